@@ -103,8 +103,23 @@ def addRecursiveCategories(experiments):
             addRecursiveCategories(experiments['categories'][category])
     addCategory(experiments['measurements'])
 
+# The input is either a single JSON object or one
+# JSON object per line. Merge all objects into one.
+def loadResults(handle):
+    decoder = json.JSONDecoder()
+    content = handle.read()
+    merged = {}
+    position = 0
+    while position < len(content):
+        if content[position].isspace():
+            position += 1
+            continue
+        value, position = decoder.raw_decode(content, position)
+        merged.update(value)
+    return merged
+
 handle = gzip.open(inputFile, 'rb')
-data = json.load(handle)
+data = loadResults(handle)
 handle.close()
 results = {'start': {}, 'end': {}, 'duration': {}}
 navigation = {}
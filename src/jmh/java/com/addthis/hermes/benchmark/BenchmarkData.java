@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+
+/**
+ * Input of the benchmarks: the iterations of {@code examples/spacejam.txt.gz}
+ * repeated until the requested number of iterations is reached. Every tenth
+ * resource of a repeated iteration has a cache busting query string appended
+ * so that not every name has been seen before. The example file can be
+ * replaced with the system property {@code hermes.benchmark.data}.
+ */
+final class BenchmarkData {
+
+    private static final Path EXAMPLE = Paths.get(System.getProperty("hermes.benchmark.data",
+                                                                     "examples/spacejam.txt.gz"));
+
+    private static final long FIRST_ID = 1_400_000_000_000L;
+
+    /**
+     * The raw entries of one iteration as captured from the browser.
+     */
+    static final class Iteration {
+
+        final long id;
+
+        final NavigationTiming navigation;
+
+        final List<ResourceTiming> entries;
+
+        Iteration(long id, NavigationTiming navigation, List<ResourceTiming> entries) {
+            this.id = id;
+            this.navigation = navigation;
+            this.entries = entries;
+        }
+    }
+
+    private BenchmarkData() {}
+
+    private static List<MeasurementTree> example() {
+        try {
+            return new ArrayList<>(ResultsReader.read(EXAMPLE).values());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the raw entries of the specified number of iterations.
+     */
+    static List<Iteration> iterations(int count) {
+        List<MeasurementTree> example = example();
+        List<Iteration> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MeasurementTree tree = example.get(i % example.size());
+            List<ResourceTiming> entries = new ArrayList<>();
+            flatten(tree, entries);
+            if (i >= example.size()) {
+                for (int j = 0; j < entries.size(); j += 10) {
+                    entries.set(j, rename(entries.get(j), entries.get(j).getName() + "?cb=" + i));
+                }
+            }
+            result.add(new Iteration(FIRST_ID + i, tree.getNavigation(), entries));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the contents of a results file with the specified number of iterations.
+     */
+    static Map<Long, MeasurementTree> results(int count) {
+        List<MeasurementTree> example = example();
+        Map<Long, MeasurementTree> result = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            result.put(FIRST_ID + i, example.get(i % example.size()));
+        }
+        return result;
+    }
+
+    private static void flatten(MeasurementTree tree, List<ResourceTiming> entries) {
+        entries.addAll(tree.getMeasurements());
+        for (MeasurementTree category : tree.getCategories().values()) {
+            flatten(category, entries);
+        }
+    }
+
+    private static ResourceTiming rename(ResourceTiming entry, String name) {
+        return new ResourceTiming(name, entry.getEntryType(), entry.getInitiatorType(), entry.getStartTime(),
+                                  entry.getDuration(), entry.getRedirectStart(), entry.getRedirectEnd(),
+                                  entry.getFetchStart(), entry.getDomainLookupStart(), entry.getDomainLookupEnd(),
+                                  entry.getConnectStart(), entry.getConnectEnd(), entry.getSecureConnectionStart(),
+                                  entry.getRequestStart(), entry.getResponseStart(), entry.getResponseEnd());
+    }
+}
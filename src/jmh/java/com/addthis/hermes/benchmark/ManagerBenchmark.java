@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Passes the captured entries of one iteration at a time through
+ * {@link Manager#addMeasurement(long, ResourceTiming)}, which applies
+ * the transformer and builds the {@link MeasurementTree}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ManagerBenchmark {
+
+    @Param({"identity", "site"})
+    public String transformer;
+
+    @Param({"5000"})
+    public int iterations;
+
+    private List<BenchmarkData.Iteration> data;
+
+    private Manager manager;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = BenchmarkData.iterations(iterations);
+        Transformer instance = "site".equals(transformer) ? new SiteTransformer() : new IdentityTransformer();
+        manager = new Manager(instance);
+    }
+
+    @Benchmark
+    public MeasurementTree ingestIteration() {
+        BenchmarkData.Iteration iteration = data.get(next);
+        next = (next + 1) % data.size();
+        manager.addNavigationTiming(iteration.id, iteration.navigation);
+        for (ResourceTiming entry : iteration.entries) {
+            manager.addMeasurement(iteration.id, entry);
+        }
+        return manager.removeMeasurements(iteration.id);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.StringDictionary;
+import com.addthis.hermes.internal.CategoryIndex;
+import com.addthis.hermes.internal.MeasurementTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the {@link MeasurementTree} of one iteration with
+ * {@link MeasurementTree#addMeasurement(ResourceTiming, String...)}
+ * where every entry is filed under a category path of the given depth.
+ * The paths fan out at the first level by host and at the deeper
+ * levels by the position of the entry. As in the {@code Manager}
+ * every tree shares one dictionary and one category index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MeasurementTreeBenchmark {
+
+    @Param({"0", "2", "8"})
+    public int depth;
+
+    private List<ResourceTiming> entries;
+
+    private String[][] categories;
+
+    private StringDictionary dictionary;
+
+    private CategoryIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        entries = BenchmarkData.iterations(1).get(0).entries;
+        dictionary = new StringDictionary();
+        index = new CategoryIndex();
+        SiteTransformer transformer = new SiteTransformer();
+        categories = new String[entries.size()][];
+        for (int i = 0; i < entries.size(); i++) {
+            String[] path = new String[depth];
+            for (int level = 0; level < depth; level++) {
+                path[level] = (level == 0) ? transformer.generateCategories(entries.get(i))[0] :
+                              "level" + level + "-" + (i % (level + 2));
+            }
+            categories[i] = path;
+        }
+    }
+
+    @Benchmark
+    public MeasurementTree buildTree() {
+        MeasurementTree tree = new MeasurementTree(dictionary, index);
+        for (int i = 0; i < categories.length; i++) {
+            tree.addMeasurement(entries.get(i), categories[i]);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.google.common.io.ByteStreams;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes the results of a whole run, a {@code Map<Long, MeasurementTree>},
+ * to JSON. The output is discarded so that only serialization is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResultsWriteBenchmark {
+
+    private static final ObjectWriter WRITER = new ObjectMapper()
+            .enable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS)
+            .writerWithType(new TypeReference<Map<Long, MeasurementTree>>() {});
+
+    @Param({"1000", "10000"})
+    public int iterations;
+
+    private Map<Long, MeasurementTree> results;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        results = BenchmarkData.results(iterations);
+    }
+
+    @Benchmark
+    public void writeResults() throws IOException {
+        WRITER.writeValue(ByteStreams.nullOutputStream(), results);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.benchmark;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.data.ResourceTiming;
+
+/**
+ * A transformer with the kind of rules a real test uses: query strings
+ * are removed, favicons are ignored and resources are categorized by
+ * host and by type of file.
+ */
+public class SiteTransformer implements Transformer {
+
+    private static final Pattern[] IGNORE_PATTERNS = {Pattern.compile("favicon\\.ico")};
+
+    private static final Pattern[] SEARCH_PATTERNS = {Pattern.compile("\\?.*$"),
+                                                      Pattern.compile("^https?://www\\.")};
+
+    private static final String[] REPLACEMENT_STRINGS = {"", "http://"};
+
+    private static final Pattern HOST = Pattern.compile("^[a-z]+://([^/]+)");
+
+    private static final Pattern EXTENSION = Pattern.compile(".*\\.([a-zA-Z0-9]+)$");
+
+    @Override
+    public Pattern[] getIgnorePatterns() {
+        return IGNORE_PATTERNS;
+    }
+
+    @Override
+    public Pattern[] getSearchPatterns() {
+        return SEARCH_PATTERNS;
+    }
+
+    @Override
+    public String[] getReplacementStrings() {
+        return REPLACEMENT_STRINGS;
+    }
+
+    @Override
+    public String[] generateCategories(ResourceTiming measurement) {
+        Matcher host = HOST.matcher(measurement.getName());
+        Matcher extension = EXTENSION.matcher(measurement.getName());
+        return new String[]{host.find() ? host.group(1) : "unknown",
+                            extension.matches() ? extension.group(1) : "other"};
+    }
+
+    @Override
+    public boolean hasDeterministicCategories() {
+        return true;
+    }
+}
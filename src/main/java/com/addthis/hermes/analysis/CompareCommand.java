@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.statistics.ComparisonReport;
+import com.addthis.hermes.statistics.SampleCollector;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Command line interface of the {@link RegressionGate}:
+ * <pre>
+ * compare &lt;baseline&gt; &lt;variant&gt; [options]
+ * </pre>
+ * Both arguments are results files of either format. The resources are
+ * lined up by the names they were recorded with, so both runs should use
+ * the same transformer. The report is printed as JSON or written to the
+ * file of the --report option. The exit code is {@link #EXIT_PASSED} when
+ * there is no regression, {@link #EXIT_REGRESSION} when there is and
+ * {@link #EXIT_ERROR} when the command could not be run.
+ */
+public class CompareCommand {
+
+    public static final String COMPARE = "compare";
+
+    public static final int EXIT_PASSED = 0;
+
+    public static final int EXIT_ERROR = 1;
+
+    public static final int EXIT_REGRESSION = 2;
+
+    private CompareCommand() {}
+
+    /**
+     * Returns true if the argument names the compare command.
+     *
+     * @param command first command line argument
+     * @return true for the compare command
+     */
+    public static boolean isCommand(String command) {
+        return COMPARE.equals(command);
+    }
+
+    private static Options createOptions() {
+        Option report = Option.builder().argName("filename").longOpt("report")
+                                     .hasArg().desc("write the report to this file instead of standard output")
+                                     .build();
+        Option alpha = Option.builder().argName("p").longOpt("alpha")
+                                    .hasArg().desc("significance level of the Mann-Whitney test. Default is " +
+                                                   RegressionGate.DEFAULT_ALPHA)
+                                    .build();
+        Option relative = Option.builder().argName("fraction").longOpt("relative-threshold")
+                                       .hasArg().desc("minimum increase of the median or 90th percentile " +
+                                                      "relative to the baseline. Default is " +
+                                                      RegressionGate.DEFAULT_RELATIVE_THRESHOLD)
+                                       .build();
+        Option absolute = Option.builder().argName("millis").longOpt("absolute-threshold")
+                                       .hasArg().desc("minimum increase of the median or 90th percentile " +
+                                                      "in milliseconds. Default is " +
+                                                      RegressionGate.DEFAULT_ABSOLUTE_THRESHOLD)
+                                       .build();
+        Option samples = Option.builder().argName("count").longOpt("min-samples")
+                                      .hasArg().desc("ignore resources with fewer samples on either side. " +
+                                                     "Default is " + RegressionGate.DEFAULT_MIN_SAMPLES)
+                                      .build();
+        Options options = new Options();
+        options.addOption(report);
+        options.addOption(alpha);
+        options.addOption(relative);
+        options.addOption(absolute);
+        options.addOption(samples);
+        return options;
+    }
+
+    static RegressionGate parseGate(CommandLine line) {
+        RegressionGate.Builder builder = new RegressionGate.Builder();
+        if (line.hasOption("alpha")) {
+            builder.setAlpha(Double.parseDouble(line.getOptionValue("alpha")));
+        }
+        if (line.hasOption("relative-threshold")) {
+            builder.setRelativeThreshold(Double.parseDouble(line.getOptionValue("relative-threshold")));
+        }
+        if (line.hasOption("absolute-threshold")) {
+            builder.setAbsoluteThreshold(Double.parseDouble(line.getOptionValue("absolute-threshold")));
+        }
+        if (line.hasOption("min-samples")) {
+            builder.setMinSamples(Integer.parseInt(line.getOptionValue("min-samples")));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collect the samples of every iteration of a results file of either format.
+     *
+     * @param inputPath results file
+     * @return samples of the results
+     * @throws IOException if the file cannot be read
+     */
+    static SampleCollector collect(Path inputPath) throws IOException {
+        SampleCollector samples = new SampleCollector();
+        Manager manager = new Manager(new IdentityTransformer());
+        manager.addListener(samples);
+        ResultsReader.read(inputPath, manager::replay);
+        return samples;
+    }
+
+    /**
+     * Compare two results files.
+     *
+     * @param baselinePath results of the baseline
+     * @param variantPath  results of the variant
+     * @param gate         decides which differences are regressions
+     * @return the report
+     * @throws IOException if a file cannot be read
+     */
+    public static Report compare(Path baselinePath, Path variantPath, RegressionGate gate) throws IOException {
+        ComparisonReport comparison = ComparisonReport.of(collect(baselinePath), collect(variantPath));
+        return new Report(gate, gate.evaluate(comparison), comparison);
+    }
+
+    /**
+     * Run the compare command.
+     *
+     * @param args the command followed by its arguments
+     * @return exit code of the command
+     */
+    static int run(String[] args) {
+        Options options = createOptions();
+        if (args.length < 3 || !isCommand(args[0])) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("page-racer compare <baseline> <variant> [options]", options);
+            return EXIT_ERROR;
+        }
+        try {
+            CommandLine line = new DefaultParser().parse(options, Arrays.copyOfRange(args, 3, args.length));
+            Report report = compare(Paths.get(args[1]), Paths.get(args[2]), parseGate(line));
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+            if (line.hasOption("report")) {
+                mapper.writeValue(Paths.get(line.getOptionValue("report")).toFile(), report);
+            } else {
+                mapper.writeValue(System.out, report);
+            }
+            for (RegressionGate.Regression regression : report.getRegressions()) {
+                System.err.println("REGRESSION: " + regression.getKind() + " " + regression.getName() + " " +
+                                   regression.getMetric() + " median " +
+                                   regression.getComparison().getBaselineMedian() + " -> " +
+                                   regression.getComparison().getVariantMedian() + " p90 " +
+                                   regression.getComparison().getBaselineP90() + " -> " +
+                                   regression.getComparison().getVariantP90());
+            }
+            return report.isPassed() ? EXIT_PASSED : EXIT_REGRESSION;
+        } catch (ParseException ex) {
+            System.err.println("Parsing failed.  Reason: " + ex.getMessage());
+            return EXIT_ERROR;
+        } catch (IOException | IllegalArgumentException ex) {
+            System.err.println("ERROR: " + ex.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Outcome of the compare command: the thresholds of the gate,
+     * the regressions and the full comparison of the two runs.
+     */
+    @JsonPropertyOrder({"passed", "gate", "regressions", "comparison"})
+    public static class Report {
+
+        private final RegressionGate gate;
+
+        private final List<RegressionGate.Regression> regressions;
+
+        private final ComparisonReport comparison;
+
+        Report(RegressionGate gate, List<RegressionGate.Regression> regressions, ComparisonReport comparison) {
+            this.gate = gate;
+            this.regressions = regressions;
+            this.comparison = comparison;
+        }
+
+        @JsonProperty("passed")
+        public boolean isPassed() {
+            return regressions.isEmpty();
+        }
+
+        @JsonProperty("gate")
+        public RegressionGate getGate() {
+            return gate;
+        }
+
+        @JsonProperty("regressions")
+        public List<RegressionGate.Regression> getRegressions() {
+            return regressions;
+        }
+
+        @JsonProperty("comparison")
+        public ComparisonReport getComparison() {
+            return comparison;
+        }
+    }
+}
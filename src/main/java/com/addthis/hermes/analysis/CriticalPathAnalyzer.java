@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Finds the chain of resources that bounds loadEventEnd in each iteration
+ * and ranks the resources by how often they are on that chain. The results
+ * do not record which resource initiated a fetch, so the predecessor of a
+ * resource on the chain is taken to be the resource whose responseEnd most
+ * closely precedes its startTime. Iterations are analyzed in parallel on a
+ * {@link ForkJoinPool}.
+ * <p/>
+ * Usage: CriticalPathAnalyzer &lt;results&gt; [report]
+ */
+public class CriticalPathAnalyzer {
+
+    /**
+     * Number of iterations below which a task is not split further.
+     */
+    static final int THRESHOLD = 64;
+
+    private final int parallelism;
+
+    public CriticalPathAnalyzer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of threads that analyze iterations
+     */
+    public CriticalPathAnalyzer(int parallelism) {
+        checkArgument(parallelism > 0);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Analyze every iteration of a results file of either format.
+     *
+     * @param inputPath results file
+     * @return resources on the critical path
+     * @throws IOException if the file cannot be read
+     */
+    public CriticalPathReport analyze(Path inputPath) throws IOException {
+        return analyze(new ArrayList<>(ResultsReader.read(inputPath).values()));
+    }
+
+    public CriticalPathReport analyze(List<MeasurementTree> iterations) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new AnalyzeTask(iterations, 0, iterations.size())).report();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static final class AnalyzeTask extends RecursiveTask<Accumulator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<MeasurementTree> iterations;
+
+        private final int from;
+
+        private final int to;
+
+        AnalyzeTask(List<MeasurementTree> iterations, int from, int to) {
+            this.iterations = iterations;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= THRESHOLD) {
+                Accumulator accumulator = new Accumulator();
+                for (int i = from; i < to; i++) {
+                    accumulator.add(iterations.get(i));
+                }
+                return accumulator;
+            }
+            int middle = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(iterations, from, middle);
+            left.fork();
+            Accumulator right = new AnalyzeTask(iterations, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private static final class Totals {
+
+        @Nullable
+        final String initiatorType;
+
+        long occurrences;
+
+        long links;
+
+        long bounding;
+
+        double contribution;
+
+        Totals(@Nullable String initiatorType) {
+            this.initiatorType = initiatorType;
+        }
+    }
+
+    private static final class Accumulator {
+
+        private final Map<String, Totals> resources = new HashMap<>();
+
+        private long iterations;
+
+        private long skipped;
+
+        private long pathLength;
+
+        private double coverage;
+
+        void add(MeasurementTree tree) {
+            NavigationTiming navigation = tree.getNavigation();
+            if (navigation == null || navigation.getLoadEventEnd() <= 0) {
+                skipped++;
+                return;
+            }
+            double deadline = navigation.getLoadEventEnd() - navigation.getNavigationStart();
+            Waterfall waterfall = Waterfall.of(tree);
+            int[] path = waterfall.criticalPath(deadline);
+            Set<String> seen = new HashSet<>();
+            double busy = 0;
+            for (int i = 0; i < path.length; i++) {
+                int index = path[i];
+                String name = waterfall.getName(index);
+                Totals totals = resources.get(name);
+                if (totals == null) {
+                    totals = new Totals(waterfall.getInitiatorType(index));
+                    resources.put(name, totals);
+                }
+                double duration = waterfall.getEnd(index) - waterfall.getStart(index);
+                busy += duration;
+                totals.links++;
+                totals.contribution += duration;
+                if (seen.add(name)) {
+                    totals.occurrences++;
+                }
+                if (i == 0) {
+                    totals.bounding++;
+                }
+            }
+            iterations++;
+            pathLength += path.length;
+            coverage += (deadline > 0) ? Math.min(1.0, busy / deadline) : 0;
+        }
+
+        Accumulator merge(Accumulator other) {
+            iterations += other.iterations;
+            skipped += other.skipped;
+            pathLength += other.pathLength;
+            coverage += other.coverage;
+            for (Map.Entry<String, Totals> entry : other.resources.entrySet()) {
+                Totals totals = resources.get(entry.getKey());
+                if (totals == null) {
+                    resources.put(entry.getKey(), entry.getValue());
+                } else {
+                    totals.occurrences += entry.getValue().occurrences;
+                    totals.links += entry.getValue().links;
+                    totals.bounding += entry.getValue().bounding;
+                    totals.contribution += entry.getValue().contribution;
+                }
+            }
+            return this;
+        }
+
+        CriticalPathReport report() {
+            List<CriticalPathReport.Resource> ranked = new ArrayList<>(resources.size());
+            for (Map.Entry<String, Totals> entry : resources.entrySet()) {
+                Totals totals = entry.getValue();
+                ranked.add(new CriticalPathReport.Resource(entry.getKey(), totals.initiatorType,
+                                                           totals.occurrences,
+                                                           (double) totals.occurrences / iterations,
+                                                           totals.bounding, totals.contribution / totals.links));
+            }
+            ranked.sort((a, b) -> {
+                int result = Long.compare(b.getOccurrences(), a.getOccurrences());
+                return (result != 0) ? result : a.getName().compareTo(b.getName());
+            });
+            return new CriticalPathReport(iterations, skipped,
+                                          (iterations > 0) ? (double) pathLength / iterations : 0,
+                                          (iterations > 0) ? coverage / iterations : 0, ranked);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CriticalPathAnalyzer <results> [report]");
+            System.exit(1);
+        }
+        CriticalPathReport report = new CriticalPathAnalyzer().analyze(Paths.get(args[0]));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        if (args.length == 2) {
+            mapper.writeValue(Paths.get(args[1]).toFile(), report);
+        } else {
+            mapper.writeValue(System.out, report);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The resources that most often bound the load of a page. Resources
+ * are ranked by the number of iterations in which they were on the
+ * critical path to loadEventEnd.
+ */
+@JsonPropertyOrder({"iterations", "skipped", "meanPathLength", "meanCoverage", "resources"})
+public class CriticalPathReport {
+
+    private final long iterations;
+
+    private final long skipped;
+
+    private final double meanPathLength;
+
+    private final double meanCoverage;
+
+    private final List<Resource> resources;
+
+    CriticalPathReport(long iterations, long skipped, double meanPathLength, double meanCoverage,
+                       List<Resource> resources) {
+        this.iterations = iterations;
+        this.skipped = skipped;
+        this.meanPathLength = meanPathLength;
+        this.meanCoverage = meanCoverage;
+        this.resources = resources;
+    }
+
+    /**
+     * Returns the number of iterations that were analyzed.
+     */
+    @JsonProperty("iterations")
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of iterations without a loadEventEnd
+     * that were not analyzed.
+     */
+    @JsonProperty("skipped")
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @JsonProperty("meanPathLength")
+    public double getMeanPathLength() {
+        return meanPathLength;
+    }
+
+    /**
+     * Returns the mean fraction of the time to loadEventEnd that
+     * was spent fetching resources on the critical path.
+     */
+    @JsonProperty("meanCoverage")
+    public double getMeanCoverage() {
+        return meanCoverage;
+    }
+
+    @JsonProperty("resources")
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    @JsonPropertyOrder({"name", "initiatorType", "occurrences", "fraction", "bounding", "meanContribution"})
+    public static class Resource {
+
+        private final String name;
+
+        @Nullable
+        private final String initiatorType;
+
+        private final long occurrences;
+
+        private final double fraction;
+
+        private final long bounding;
+
+        private final double meanContribution;
+
+        Resource(String name, @Nullable String initiatorType, long occurrences, double fraction,
+                 long bounding, double meanContribution) {
+            this.name = name;
+            this.initiatorType = initiatorType;
+            this.occurrences = occurrences;
+            this.fraction = fraction;
+            this.bounding = bounding;
+            this.meanContribution = meanContribution;
+        }
+
+        @JsonProperty("name")
+        public String getName() {
+            return name;
+        }
+
+        @Nullable
+        @JsonProperty("initiatorType")
+        public String getInitiatorType() {
+            return initiatorType;
+        }
+
+        /**
+         * Returns the number of iterations in which the
+         * resource was on the critical path.
+         */
+        @JsonProperty("occurrences")
+        public long getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * Returns the fraction of the analyzed iterations in
+         * which the resource was on the critical path.
+         */
+        @JsonProperty("fraction")
+        public double getFraction() {
+            return fraction;
+        }
+
+        /**
+         * Returns the number of iterations in which the resource was
+         * the last one on the critical path to finish before loadEventEnd.
+         */
+        @JsonProperty("bounding")
+        public long getBounding() {
+            return bounding;
+        }
+
+        /**
+         * Returns the mean milliseconds from startTime to responseEnd
+         * of the resource when it was on the critical path.
+         */
+        @JsonProperty("meanContribution")
+        public double getMeanContribution() {
+            return meanContribution;
+        }
+    }
+}
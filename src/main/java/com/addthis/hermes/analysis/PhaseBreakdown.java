@@ -0,0 +1,338 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementListener;
+import com.addthis.hermes.io.ResultsReader;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Splits the time of every resource into its {@link ResourcePhase phases}
+ * and aggregates the phases per origin, per initiatorType and per category
+ * as the measurements arrive from the {@link Manager}. Together with the
+ * number of new and reused connections the breakdown shows whether a page
+ * is bound by DNS, by the handshakes or by the bandwidth. Each group keeps
+ * a fixed number of running totals so memory grows with the number of
+ * groups and not with the number of measurements. The number of groups
+ * of each kind can be bounded, in which case measurements of groups beyond
+ * the bound are counted and dropped from that kind of group.
+ * This class is safe for use by multiple threads.
+ * <p/>
+ * Usage: PhaseBreakdown &lt;results&gt; [report]
+ */
+@JsonPropertyOrder({"origins", "initiatorTypes", "categories"})
+public class PhaseBreakdown implements MeasurementListener {
+
+    /**
+     * Origin of the resources whose name is not an absolute url.
+     */
+    public static final String UNKNOWN_ORIGIN = "unknown";
+
+    private final Map<String, Breakdown> origins = new TreeMap<>();
+
+    private final Map<String, Breakdown> initiatorTypes = new TreeMap<>();
+
+    private final Map<String, Breakdown> categories = new TreeMap<>();
+
+    private final int maxGroups;
+
+    private long droppedMeasurements;
+
+    public PhaseBreakdown() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxGroups maximum number of distinct groups of each kind
+     */
+    public PhaseBreakdown(int maxGroups) {
+        checkArgument(maxGroups > 0);
+        this.maxGroups = maxGroups;
+    }
+
+    @Override
+    public void navigationTiming(long timestamp, NavigationTiming navigation) {}
+
+    @Override
+    public void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+        boolean detailed = ResourcePhase.isDetailed(measurement);
+        double[] phases = new double[ResourcePhase.values().length];
+        if (detailed) {
+            for (ResourcePhase phase : ResourcePhase.values()) {
+                phases[phase.ordinal()] = phase.get(measurement);
+            }
+        }
+        String initiatorType = measurement.getInitiatorType();
+        synchronized (this) {
+            add(origins, origin(measurement.getName()), detailed, phases, measurement);
+            add(initiatorTypes, (initiatorType != null) ? initiatorType : "", detailed, phases, measurement);
+            add(this.categories, categoryPath(categories), detailed, phases, measurement);
+        }
+    }
+
+    private void add(Map<String, Breakdown> groups, String key, boolean detailed, double[] phases,
+                     ResourceTiming measurement) {
+        Breakdown breakdown = groups.get(key);
+        if (breakdown == null) {
+            if (groups.size() >= maxGroups) {
+                droppedMeasurements++;
+                return;
+            }
+            breakdown = new Breakdown();
+            groups.put(key, breakdown);
+        }
+        breakdown.add(detailed, phases, measurement);
+    }
+
+    /**
+     * Returns the scheme, host and port of an url without parsing
+     * the rest of it, or {@link #UNKNOWN_ORIGIN} if the name is
+     * not an absolute url.
+     *
+     * @param name resource name
+     * @return origin of the resource
+     */
+    static String origin(String name) {
+        int scheme = name.indexOf("://");
+        if (scheme <= 0) {
+            return UNKNOWN_ORIGIN;
+        }
+        int end = scheme + 3;
+        while (end < name.length()) {
+            char c = name.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        return (end > scheme + 3) ? name.substring(0, end) : UNKNOWN_ORIGIN;
+    }
+
+    /**
+     * Returns the categories joined into a path such as
+     * {@code /images/hero}, or {@code /} for no categories.
+     */
+    static String categoryPath(String[] categories) {
+        if (categories.length == 0) {
+            return "/";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String category : categories) {
+            builder.append('/').append(category);
+        }
+        return builder.toString();
+    }
+
+    @Nullable
+    public synchronized Breakdown getOrigin(String origin) {
+        return origins.get(origin);
+    }
+
+    @Nullable
+    public synchronized Breakdown getInitiatorType(String initiatorType) {
+        return initiatorTypes.get(initiatorType);
+    }
+
+    @Nullable
+    public synchronized Breakdown getCategory(String categoryPath) {
+        return categories.get(categoryPath);
+    }
+
+    @JsonProperty("origins")
+    public synchronized Map<String, Breakdown> getOrigins() {
+        return origins;
+    }
+
+    @JsonProperty("initiatorTypes")
+    public synchronized Map<String, Breakdown> getInitiatorTypes() {
+        return initiatorTypes;
+    }
+
+    @JsonProperty("categories")
+    public synchronized Map<String, Breakdown> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Returns the number of times a measurement was dropped from a
+     * kind of group because the maximum number of groups was reached.
+     */
+    @JsonIgnore
+    public synchronized long getDroppedMeasurements() {
+        return droppedMeasurements;
+    }
+
+    /**
+     * Returns the path of the phase breakdown that is
+     * written next to the specified results file.
+     *
+     * @param outputPath path of the results file
+     * @return path of the phase breakdown file
+     */
+    public static Path breakdownPath(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + ".phases.json");
+    }
+
+    /**
+     * Aggregate the phases of every iteration of a results file of either format.
+     *
+     * @param inputPath results file
+     * @return phase breakdown of the results
+     * @throws IOException if the file cannot be read
+     */
+    public static PhaseBreakdown of(Path inputPath) throws IOException {
+        PhaseBreakdown breakdown = new PhaseBreakdown();
+        Manager manager = new Manager(new IdentityTransformer());
+        manager.addListener(breakdown);
+        ResultsReader.read(inputPath, manager::replay);
+        return breakdown;
+    }
+
+    /**
+     * The phases of the resources of one group. Resources without detailed
+     * timing attributes are counted as opaque and are not included in the
+     * phases or the connections. A connection is reused when connectStart
+     * equals connectEnd. This class is not safe for use by multiple threads.
+     */
+    @JsonPropertyOrder({"resources", "opaque", "newConnections", "reusedConnections", "phases"})
+    public static class Breakdown {
+
+        private final double[] totals = new double[ResourcePhase.values().length];
+
+        private final double[] maxima = new double[ResourcePhase.values().length];
+
+        private long resources;
+
+        private long opaque;
+
+        private long newConnections;
+
+        private long reusedConnections;
+
+        void add(boolean detailed, double[] phases, ResourceTiming measurement) {
+            resources++;
+            if (!detailed) {
+                opaque++;
+                return;
+            }
+            for (int i = 0; i < phases.length; i++) {
+                totals[i] += phases[i];
+                maxima[i] = Math.max(maxima[i], phases[i]);
+            }
+            if (measurement.getConnectEnd() == measurement.getConnectStart()) {
+                reusedConnections++;
+            } else {
+                newConnections++;
+            }
+        }
+
+        @JsonProperty("resources")
+        public long getResources() {
+            return resources;
+        }
+
+        @JsonProperty("opaque")
+        public long getOpaque() {
+            return opaque;
+        }
+
+        @JsonProperty("newConnections")
+        public long getNewConnections() {
+            return newConnections;
+        }
+
+        @JsonProperty("reusedConnections")
+        public long getReusedConnections() {
+            return reusedConnections;
+        }
+
+        public double getTotal(ResourcePhase phase) {
+            return totals[phase.ordinal()];
+        }
+
+        public double getMax(ResourcePhase phase) {
+            return maxima[phase.ordinal()];
+        }
+
+        /**
+         * Returns the mean milliseconds of the phase over
+         * the resources with detailed timing attributes.
+         */
+        public double getMean(ResourcePhase phase) {
+            long detailed = resources - opaque;
+            return (detailed > 0) ? totals[phase.ordinal()] / detailed : 0;
+        }
+
+        /**
+         * Returns the fraction of the time of all phases
+         * that was spent in the specified phase.
+         */
+        public double getShare(ResourcePhase phase) {
+            double sum = 0;
+            for (double total : totals) {
+                sum += total;
+            }
+            return (sum > 0) ? totals[phase.ordinal()] / sum : 0;
+        }
+
+        @JsonProperty("phases")
+        public Map<String, Map<String, Double>> getPhases() {
+            Map<String, Map<String, Double>> phases = new LinkedHashMap<>();
+            for (ResourcePhase phase : ResourcePhase.values()) {
+                Map<String, Double> values = new LinkedHashMap<>();
+                values.put("mean", getMean(phase));
+                values.put("max", getMax(phase));
+                values.put("share", getShare(phase));
+                phases.put(phase.getPropertyName(), values);
+            }
+            return phases;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: PhaseBreakdown <results> [report]");
+            System.exit(1);
+        }
+        PhaseBreakdown breakdown = of(Paths.get(args[0]));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        if (args.length == 2) {
+            mapper.writeValue(Paths.get(args[1]).toFile(), breakdown);
+        } else {
+            mapper.writeValue(System.out, breakdown);
+        }
+    }
+}
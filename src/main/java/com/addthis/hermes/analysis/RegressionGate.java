@@ -0,0 +1,228 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.addthis.hermes.statistics.Comparison;
+import com.addthis.hermes.statistics.ComparisonReport;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides which {@link Comparison}s of a {@link ComparisonReport} are
+ * regressions. A comparison is a regression when both sides have enough
+ * samples, the Mann-Whitney test is significant and the median or the 90th
+ * percentile of the variant exceeds that of the baseline by at least the
+ * absolute threshold and by at least the relative threshold. Requiring
+ * both thresholds keeps fast resources from failing on a few milliseconds
+ * and slow resources from failing on a small fraction.
+ */
+@JsonPropertyOrder({"alpha", "relativeThreshold", "absoluteThreshold", "minSamples"})
+public class RegressionGate {
+
+    /**
+     * Default significance level of the test.
+     * Can be overridden in the Builder options.
+     */
+    public static final double DEFAULT_ALPHA = 0.01;
+
+    /**
+     * Default minimum increase relative to the baseline.
+     * Can be overridden in the Builder options.
+     */
+    public static final double DEFAULT_RELATIVE_THRESHOLD = 0.05;
+
+    /**
+     * Default minimum increase in milliseconds.
+     * Can be overridden in the Builder options.
+     */
+    public static final double DEFAULT_ABSOLUTE_THRESHOLD = 10;
+
+    /**
+     * Default minimum number of samples on each side.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 5;
+
+    private final double alpha;
+
+    private final double relativeThreshold;
+
+    private final double absoluteThreshold;
+
+    private final int minSamples;
+
+    private RegressionGate(double alpha, double relativeThreshold, double absoluteThreshold, int minSamples) {
+        checkArgument(alpha > 0 && alpha < 1);
+        checkArgument(relativeThreshold >= 0);
+        checkArgument(absoluteThreshold >= 0);
+        checkArgument(minSamples > 0);
+        this.alpha = alpha;
+        this.relativeThreshold = relativeThreshold;
+        this.absoluteThreshold = absoluteThreshold;
+        this.minSamples = minSamples;
+    }
+
+    public boolean isRegression(Comparison comparison) {
+        return comparison.getBaselineCount() >= minSamples && comparison.getVariantCount() >= minSamples &&
+               comparison.getPValue() < alpha &&
+               (exceeds(comparison.getBaselineMedian(), comparison.getVariantMedian()) ||
+                exceeds(comparison.getBaselineP90(), comparison.getVariantP90()));
+    }
+
+    private boolean exceeds(double baseline, double variant) {
+        double increase = variant - baseline;
+        return increase >= absoluteThreshold && increase >= relativeThreshold * baseline;
+    }
+
+    /**
+     * Find the regressions of a comparison report.
+     *
+     * @param report comparison of a baseline and a variant
+     * @return the regressions
+     */
+    public List<Regression> evaluate(ComparisonReport report) {
+        List<Regression> regressions = new ArrayList<>();
+        for (Map.Entry<String, Comparison> entry : report.getNavigation().entrySet()) {
+            if (isRegression(entry.getValue())) {
+                regressions.add(new Regression(Regression.NAVIGATION, entry.getKey(), entry.getKey(),
+                                               entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, Map<String, Comparison>> resource : report.getResources().entrySet()) {
+            for (Map.Entry<String, Comparison> entry : resource.getValue().entrySet()) {
+                if (isRegression(entry.getValue())) {
+                    regressions.add(new Regression(Regression.RESOURCE, resource.getKey(), entry.getKey(),
+                                                   entry.getValue()));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    @JsonProperty("alpha")
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @JsonProperty("relativeThreshold")
+    public double getRelativeThreshold() {
+        return relativeThreshold;
+    }
+
+    @JsonProperty("absoluteThreshold")
+    public double getAbsoluteThreshold() {
+        return absoluteThreshold;
+    }
+
+    @JsonProperty("minSamples")
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * A navigation timing attribute or a metric of a resource
+     * that is significantly slower in the variant.
+     */
+    @JsonPropertyOrder({"kind", "name", "metric", "comparison"})
+    public static class Regression {
+
+        public static final String NAVIGATION = "navigation";
+
+        public static final String RESOURCE = "resource";
+
+        private final String kind;
+
+        private final String name;
+
+        private final String metric;
+
+        private final Comparison comparison;
+
+        Regression(String kind, String name, String metric, Comparison comparison) {
+            this.kind = kind;
+            this.name = name;
+            this.metric = metric;
+            this.comparison = comparison;
+        }
+
+        /**
+         * Returns {@link #NAVIGATION} or {@link #RESOURCE}.
+         */
+        @JsonProperty("kind")
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the navigation timing attribute or the transformed name of the resource.
+         */
+        @JsonProperty("name")
+        public String getName() {
+            return name;
+        }
+
+        @JsonProperty("metric")
+        public String getMetric() {
+            return metric;
+        }
+
+        @JsonProperty("comparison")
+        public Comparison getComparison() {
+            return comparison;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Builder {
+
+        private double alpha = DEFAULT_ALPHA;
+
+        private double relativeThreshold = DEFAULT_RELATIVE_THRESHOLD;
+
+        private double absoluteThreshold = DEFAULT_ABSOLUTE_THRESHOLD;
+
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+
+        public Builder setAlpha(double alpha) {
+            this.alpha = alpha;
+            return this;
+        }
+
+        public Builder setRelativeThreshold(double relativeThreshold) {
+            this.relativeThreshold = relativeThreshold;
+            return this;
+        }
+
+        public Builder setAbsoluteThreshold(double absoluteThreshold) {
+            this.absoluteThreshold = absoluteThreshold;
+            return this;
+        }
+
+        public Builder setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public RegressionGate build() {
+            return new RegressionGate(alpha, relativeThreshold, absoluteThreshold, minSamples);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import com.addthis.hermes.data.ResourceTiming;
+
+/**
+ * The consecutive phases of fetching a resource: following redirects,
+ * the DNS lookup, the TCP handshake, the TLS handshake, waiting for the
+ * first byte of the response and downloading the rest of it. A phase that
+ * did not happen, such as the handshakes on a reused connection, lasts zero
+ * milliseconds.
+ */
+public enum ResourcePhase {
+    REDIRECT, DNS, CONNECT, TLS, TTFB, DOWNLOAD;
+
+    /**
+     * Returns the milliseconds spent in the phase.
+     *
+     * @param measurement resource with detailed timing attributes
+     * @return duration of the phase, never negative
+     */
+    public double get(ResourceTiming measurement) {
+        double secureStart = measurement.getSecureConnectionStart();
+        switch (this) {
+            case REDIRECT:
+                return elapsed(measurement.getRedirectStart(), measurement.getRedirectEnd());
+            case DNS:
+                return elapsed(measurement.getDomainLookupStart(), measurement.getDomainLookupEnd());
+            case CONNECT:
+                return elapsed(measurement.getConnectStart(),
+                               (secureStart > 0) ? secureStart : measurement.getConnectEnd());
+            case TLS:
+                return (secureStart > 0) ? elapsed(secureStart, measurement.getConnectEnd()) : 0;
+            case TTFB:
+                return elapsed(measurement.getRequestStart(), measurement.getResponseStart());
+            case DOWNLOAD:
+                return elapsed(measurement.getResponseStart(), measurement.getResponseEnd());
+            default:
+                throw new IllegalStateException("unknown phase " + this);
+        }
+    }
+
+    private static double elapsed(double start, double end) {
+        return (start > 0 && end > start) ? end - start : 0;
+    }
+
+    /**
+     * Returns whether the detailed timing attributes of the resource are
+     * available. They are zero for cross-origin resources that are not
+     * served with a Timing-Allow-Origin header.
+     *
+     * @param measurement resource timing
+     * @return true if the phases can be measured
+     */
+    public static boolean isDetailed(ResourceTiming measurement) {
+        return measurement.getRequestStart() > 0 || measurement.getResponseStart() > 0;
+    }
+
+    /**
+     * Returns the name used for the phase in reports.
+     *
+     * @return lower case name
+     */
+    public String getPropertyName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.data.StringDictionary;
+import com.addthis.hermes.internal.MeasurementTree;
+
+/**
+ * The resources of one iteration ordered by the time their response
+ * ended, relative to navigationStart. Resources of every category of
+ * the tree are included. Names are decoded only when they are asked for
+ * so that building a waterfall does not contend on the shared dictionary.
+ * Each row keeps the dictionary of the columns it was read from.
+ */
+final class Waterfall {
+
+    private final StringDictionary[] dictionaries;
+
+    private final int[] names;
+
+    private final int[] initiatorTypes;
+
+    private final double[] starts;
+
+    private final double[] ends;
+
+    private Waterfall(StringDictionary[] dictionaries, int[] names, int[] initiatorTypes, double[] starts,
+                      double[] ends) {
+        this.dictionaries = dictionaries;
+        this.names = names;
+        this.initiatorTypes = initiatorTypes;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    static Waterfall of(MeasurementTree tree) {
+        int size = 0;
+        Deque<MeasurementTree> pending = new ArrayDeque<>();
+        pending.push(tree);
+        while (!pending.isEmpty()) {
+            MeasurementTree node = pending.pop();
+            size += node.getMeasurements().size();
+            pending.addAll(node.getCategories().values());
+        }
+        Row[] rows = new Row[size];
+        int next = 0;
+        pending.push(tree);
+        while (!pending.isEmpty()) {
+            MeasurementTree node = pending.pop();
+            ResourceTimingColumns columns = node.getMeasurements();
+            for (int row = 0; row < columns.size(); row++) {
+                rows[next++] = new Row(columns.getDictionary(), columns.getNameId(row),
+                                       columns.getInitiatorTypeId(row),
+                                       columns.get(row, ResourceTimingField.START_TIME),
+                                       columns.get(row, ResourceTimingField.RESPONSE_END));
+            }
+            pending.addAll(node.getCategories().values());
+        }
+        Arrays.sort(rows, (a, b) -> Double.compare(a.end, b.end));
+        StringDictionary[] dictionaries = new StringDictionary[size];
+        int[] names = new int[size];
+        int[] initiatorTypes = new int[size];
+        double[] starts = new double[size];
+        double[] ends = new double[size];
+        for (int i = 0; i < size; i++) {
+            dictionaries[i] = rows[i].dictionary;
+            names[i] = rows[i].name;
+            initiatorTypes[i] = rows[i].initiatorType;
+            starts[i] = rows[i].start;
+            ends[i] = rows[i].end;
+        }
+        return new Waterfall(dictionaries, names, initiatorTypes, starts, ends);
+    }
+
+    private static final class Row {
+
+        final StringDictionary dictionary;
+
+        final int name;
+
+        final int initiatorType;
+
+        final double start;
+
+        final double end;
+
+        Row(StringDictionary dictionary, int name, int initiatorType, double start, double end) {
+            this.dictionary = dictionary;
+            this.name = name;
+            this.initiatorType = initiatorType;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    String getName(int index) {
+        return dictionaries[index].decode(names[index]);
+    }
+
+    @Nullable
+    String getInitiatorType(int index) {
+        return dictionaries[index].decode(initiatorTypes[index]);
+    }
+
+    double getStart(int index) {
+        return starts[index];
+    }
+
+    double getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Returns the index of the resource that ended last at or before
+     * the time, or -1 if no resource ended by then.
+     */
+    private int lastEndedBy(double time) {
+        int low = 0;
+        int high = ends.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= time) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the chain of resources that bounds the deadline, latest first.
+     * The first link is the resource that ended last by the deadline. Each
+     * further link is the resource that ended last before the previous link
+     * started, the resource most likely to have held it back. Resources that
+     * ended at time zero were served from the cache without a fetch and are
+     * not part of the chain.
+     *
+     * @param deadline time relative to navigationStart, typically loadEventEnd
+     * @return indices of the resources on the critical path
+     */
+    int[] criticalPath(double deadline) {
+        int[] path = new int[8];
+        int length = 0;
+        int current = lastEndedBy(deadline);
+        while (current >= 0 && ends[current] > 0) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = current;
+            int previous = lastEndedBy(starts[current]);
+            current = (previous < current) ? previous : -1;
+        }
+        return Arrays.copyOf(path, length);
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.beacon;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.data.PerformanceSnapshot;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.metrics.Timer;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Collects Resource Timing and Navigation Timing beacons from the browsers
+ * of real users. A beacon has the same shape as the snapshot captured by the
+ * synthetic tests, {@code {"navigation": ..., "entries": [...]}}, and a request
+ * to {@code POST /beacon} carries either one beacon or an array of beacons.
+ * For example a page can send
+ * <pre>
+ * navigator.sendBeacon("http://collector:8080/beacon", JSON.stringify({
+ *     navigation: performance.timing,
+ *     entries: performance.getEntriesByType("resource")}));
+ * </pre>
+ * once it has loaded. The beacons are parsed one at a time from the request
+ * stream, passed through a {@link Manager} that applies the configured
+ * {@link Transformer} without retaining anything, and aggregated into
+ * {@link RollingWindows}. {@code GET /windows} returns the
+ * statistics of the retained windows as JSON.
+ * <p/>
+ * The server is the JDK's selector based HTTP server: connections are
+ * multiplexed by one dispatcher thread and requests are handled on a fixed
+ * pool of worker threads, so memory is bounded by the number of windows,
+ * the resource names per window, the transformation cache of the manager
+ * and the maximum request size.
+ */
+public class BeaconServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BeaconServer.class);
+
+    /**
+     * Default length of a window in seconds.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_WINDOW_SECONDS = 60;
+
+    /**
+     * Default number of windows retained.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_WINDOW_COUNT = 60;
+
+    /**
+     * Default maximum number of distinct resource names per window.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_MAX_RESOURCES = 10_000;
+
+    /**
+     * Default maximum size of a request body in bytes.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_MAX_REQUEST_BYTES = 1 << 20;
+
+    /**
+     * Counter of the beacons ingested.
+     */
+    public static final String BEACONS = "beacons";
+
+    /**
+     * Counter of the requests rejected as malformed.
+     */
+    public static final String REJECTED = "beacon.request.rejected";
+
+    /**
+     * Counter of the requests rejected as too large.
+     */
+    public static final String OVERSIZED = "beacon.request.oversized";
+
+    /**
+     * Timer of the requests that carry beacons.
+     */
+    public static final String REQUEST = "beacon.request";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private static final ObjectReader READER = MAPPER
+            .reader(PerformanceSnapshot.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    private final int port;
+
+    private final int threads;
+
+    private final int maxRequestBytes;
+
+    private final Manager manager;
+
+    private final RollingWindows windows;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Nullable private HttpServer server;
+
+    @Nullable private ExecutorService executor;
+
+    private BeaconServer(int port, Transformer transformer, int windowSeconds, int windowCount,
+                         int maxResources, int threads, int maxRequestBytes) {
+        checkArgument(port >= 0 && port <= 0xFFFF);
+        checkNotNull(transformer);
+        checkArgument(threads > 0);
+        checkArgument(maxRequestBytes > 0);
+        this.port = port;
+        this.threads = threads;
+        this.maxRequestBytes = maxRequestBytes;
+        this.windows = new RollingWindows(TimeUnit.SECONDS.toMillis(windowSeconds), windowCount, maxResources,
+                                          System::currentTimeMillis);
+        this.manager = new Manager(transformer, Manager.DEFAULT_NAME_CACHE_SIZE, false);
+        this.manager.addListener(windows);
+    }
+
+    /**
+     * Starts accepting beacons.
+     *
+     * @return port on which the server is listening
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized int start() throws IOException {
+        checkState(server == null, "server has already been started");
+        executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("hermes-beacon-%d").setDaemon(true).build());
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/beacon", this::handleBeacon);
+        server.createContext("/windows", this::handleWindows);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Accepting beacons on port {}", server.getAddress().getPort());
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, waiting at most the specified number of
+     * seconds for requests in progress to complete.
+     */
+    public synchronized void stop(int delay) {
+        if (server != null) {
+            server.stop(delay);
+            executor.shutdown();
+            server = null;
+            executor = null;
+        }
+    }
+
+    public RollingWindows getWindows() {
+        return windows;
+    }
+
+    /**
+     * Returns the counters of accepted and rejected beacons and the ingestion timer.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private void handleBeacon(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+            switch (exchange.getRequestMethod()) {
+                case "OPTIONS":
+                    exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "POST");
+                    exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type");
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                case "POST":
+                    exchange.sendResponseHeaders(ingest(exchange), -1);
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+                    break;
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Ingest the beacons of one request.
+     *
+     * @return HTTP status of the response
+     */
+    private int ingest(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        CountingInputStream limited = new CountingInputStream(ByteStreams.limit(body, maxRequestBytes + 1L));
+        Timer.Context timer = metrics.timer(REQUEST).time();
+        try (JsonParser parser = FACTORY.createParser(limited)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ingest((PerformanceSnapshot) READER.readValue(parser));
+                }
+                if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                    return reject();
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                ingest((PerformanceSnapshot) READER.readValue(parser));
+            } else {
+                return reject();
+            }
+            return 204;
+        } catch (JsonProcessingException ex) {
+            ByteStreams.copy(limited, ByteStreams.nullOutputStream());
+            if (limited.getCount() > maxRequestBytes) {
+                metrics.counter(OVERSIZED).increment();
+                return 413;
+            }
+            log.debug("Rejected malformed beacon", ex);
+            return reject();
+        } finally {
+            timer.stop();
+            ByteStreams.copy(body, ByteStreams.nullOutputStream());
+        }
+    }
+
+    private int reject() {
+        metrics.counter(REJECTED).increment();
+        return 400;
+    }
+
+    private void ingest(PerformanceSnapshot snapshot) {
+        long id = RollingWindows.id(System.currentTimeMillis(), sequence.getAndIncrement());
+        windows.beacon(id);
+        if (snapshot.getNavigation() != null) {
+            manager.addNavigationTiming(id, snapshot.getNavigation());
+        }
+        if (snapshot.getEntries() != null) {
+            for (ResourceTiming entry : snapshot.getEntries()) {
+                if (entry.getName() != null) {
+                    manager.addMeasurement(id, entry);
+                }
+            }
+        }
+        metrics.counter(BEACONS).increment();
+    }
+
+    private void handleWindows(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] response = WRITER.writeValueAsBytes(windows.getWindows());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Builder {
+
+        private int port;
+
+        private Transformer transformer = new IdentityTransformer();
+
+        private int windowSeconds = DEFAULT_WINDOW_SECONDS;
+
+        private int windowCount = DEFAULT_WINDOW_COUNT;
+
+        private int maxResources = DEFAULT_MAX_RESOURCES;
+
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        private int maxRequestBytes = DEFAULT_MAX_REQUEST_BYTES;
+
+        /**
+         * Port to listen on. Zero selects an ephemeral port.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder setTransformer(Transformer transformer) {
+            this.transformer = transformer;
+            return this;
+        }
+
+        public Builder setWindowSeconds(int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+            return this;
+        }
+
+        public Builder setWindowCount(int windowCount) {
+            this.windowCount = windowCount;
+            return this;
+        }
+
+        public Builder setMaxResources(int maxResources) {
+            this.maxResources = maxResources;
+            return this;
+        }
+
+        /**
+         * Number of threads that handle requests.
+         */
+        public Builder setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder setMaxRequestBytes(int maxRequestBytes) {
+            this.maxRequestBytes = maxRequestBytes;
+            return this;
+        }
+
+        public BeaconServer build() {
+            return new BeaconServer(port, transformer, windowSeconds, windowCount, maxResources, threads,
+                                    maxRequestBytes);
+        }
+    }
+}
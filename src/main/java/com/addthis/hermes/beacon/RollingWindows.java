@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.beacon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.MeasurementListener;
+import com.addthis.hermes.statistics.RunStatistics;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Aggregates measurements into a fixed number of consecutive time windows
+ * of equal length. The windows form a ring: when time moves past the oldest
+ * window its slot is reused for the newest one, so memory is bounded by the
+ * number of windows times the bounded {@link RunStatistics} of each window.
+ * The window of a measurement is determined by the arrival time encoded in
+ * its iteration id, see {@link #id(long, long)}, so that all measurements of
+ * one beacon land in the same window. Measurements older than the oldest
+ * window are dropped. This class is safe for use by multiple threads.
+ */
+public class RollingWindows implements MeasurementListener {
+
+    /**
+     * Number of low bits of an iteration id that hold a sequence
+     * number distinguishing beacons that arrive in the same millisecond.
+     */
+    private static final int SEQUENCE_BITS = 20;
+
+    /**
+     * The statistics of one window.
+     */
+    @JsonPropertyOrder({"start", "end", "beacons", "statistics"})
+    public static final class Window {
+
+        private final long start;
+
+        private final long end;
+
+        private final AtomicLong beacons = new AtomicLong();
+
+        private final RunStatistics statistics;
+
+        Window(long start, long end, int maxResources) {
+            this.start = start;
+            this.end = end;
+            this.statistics = new RunStatistics(maxResources);
+        }
+
+        /**
+         * Returns the start of the window in milliseconds since the epoch, inclusive.
+         */
+        @JsonProperty
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the end of the window in milliseconds since the epoch, exclusive.
+         */
+        @JsonProperty
+        public long getEnd() {
+            return end;
+        }
+
+        @JsonProperty
+        public long getBeacons() {
+            return beacons.get();
+        }
+
+        @JsonProperty
+        public RunStatistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    private final long windowMillis;
+
+    private final int maxResources;
+
+    private final AtomicReferenceArray<Window> windows;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param windowMillis length of each window
+     * @param windowCount  number of windows retained
+     * @param maxResources maximum number of distinct resource names per window
+     * @param clock        current time in milliseconds since the epoch
+     */
+    public RollingWindows(long windowMillis, int windowCount, int maxResources, LongSupplier clock) {
+        checkArgument(windowMillis > 0);
+        checkArgument(windowCount > 0);
+        checkArgument(maxResources > 0);
+        this.windowMillis = windowMillis;
+        this.maxResources = maxResources;
+        this.windows = new AtomicReferenceArray<>(windowCount);
+        this.clock = checkNotNull(clock);
+    }
+
+    /**
+     * Returns an iteration id that encodes the arrival time of a beacon.
+     *
+     * @param arrival  arrival time in milliseconds since the epoch
+     * @param sequence distinguishes beacons arriving in the same millisecond
+     * @return iteration id
+     */
+    public static long id(long arrival, long sequence) {
+        return (arrival << SEQUENCE_BITS) | (sequence & ((1 << SEQUENCE_BITS) - 1));
+    }
+
+    private static long arrival(long id) {
+        return id >>> SEQUENCE_BITS;
+    }
+
+    /**
+     * Returns the window containing the time or null if the time
+     * is before the oldest window or after the current window.
+     */
+    private Window window(long time) {
+        long now = clock.getAsLong();
+        long index = Math.floorDiv(time, windowMillis);
+        long current = Math.floorDiv(now, windowMillis);
+        if (index > current || index <= current - windows.length()) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(index, (long) windows.length());
+        long start = index * windowMillis;
+        while (true) {
+            Window window = windows.get(slot);
+            if (window != null && window.start == start) {
+                return window;
+            } else if (window != null && window.start > start) {
+                return null;
+            }
+            Window created = new Window(start, start + windowMillis, maxResources);
+            if (windows.compareAndSet(slot, window, created)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * Count a beacon in the window of its arrival time.
+     *
+     * @param id iteration id of the beacon
+     */
+    public void beacon(long id) {
+        Window window = window(arrival(id));
+        if (window != null) {
+            window.beacons.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void navigationTiming(long timestamp, NavigationTiming timing) {
+        Window window = window(arrival(timestamp));
+        if (window != null) {
+            window.statistics.navigationTiming(timestamp, timing);
+        }
+    }
+
+    @Override
+    public void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+        Window window = window(arrival(timestamp));
+        if (window != null) {
+            window.statistics.measurement(timestamp, categories, measurement);
+        }
+    }
+
+    /**
+     * Returns the retained windows from oldest to newest.
+     */
+    public List<Window> getWindows() {
+        long current = Math.floorDiv(clock.getAsLong(), windowMillis);
+        List<Window> result = new ArrayList<>(windows.length());
+        for (long index = current - windows.length() + 1; index <= current; index++) {
+            Window window = windows.get((int) Math.floorMod(index, (long) windows.length()));
+            if (window != null && window.start == index * windowMillis) {
+                result.add(window);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of beacons that arrived outside of the retained windows.
+     */
+    public long getDroppedBeacons() {
+        return dropped.get();
+    }
+}
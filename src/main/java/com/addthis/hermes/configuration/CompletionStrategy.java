@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+
+/**
+ * The completion strategy decides when the page visited by
+ * the {@link Navigator} has finished loading and its performance
+ * measurements can be recorded. The strategy is given an upper
+ * bound on the amount of time it may wait. See the
+ * {@link FixedDelayCompletion} for waiting the full upper bound
+ * and the {@link NetworkQuietCompletion} for returning as soon
+ * as the page has settled.
+ */
+public interface CompletionStrategy {
+
+    /**
+     * Block until the page has finished loading or
+     * until the timeout has elapsed, whichever comes first.
+     *
+     * @param driver  browser that has navigated to the page
+     * @param timeout maximum amount of time to wait
+     * @param unit    unit of the timeout argument
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitCompletion(ChromeDriver driver, long timeout, TimeUnit unit) throws InterruptedException;
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+
+/**
+ * This implementation of the {@link CompletionStrategy}
+ * interface always waits for the entire timeout without
+ * inspecting the page.
+ */
+public class FixedDelayCompletion implements CompletionStrategy {
+
+    @Override
+    public void awaitCompletion(ChromeDriver driver, long timeout, TimeUnit unit) throws InterruptedException {
+        Sleeper.SYSTEM_SLEEPER.sleep(new Duration(timeout, unit));
+    }
+
+}
@@ -40,4 +40,9 @@ public class IdentityTransformer implements Transformer {
     public String[] generateCategories(ResourceTiming measurement) {
         return EMPTY_STRINGS;
     }
+
+    @Override
+    public boolean hasDeterministicCategories() {
+        return true;
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.support.ui.Duration;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * This implementation of the {@link CompletionStrategy}
+ * interface polls the browser until the load event has
+ * ended and no new resource timing entries have appeared
+ * for a quiet period. Resources that are fetched after the
+ * load event (lazy loaded images, analytics beacons) extend
+ * the wait until the network has been idle for the quiet period.
+ * The timeout remains an upper bound on the wait.
+ * <p/>
+ * Browsers stop recording resource timing entries once the buffer
+ * is full, 150 entries by default, which would make a busy page look
+ * quiet. Every poll raises the buffer size to {@link #RESOURCE_BUFFER_SIZE}.
+ * The buffer size belongs to the document and the first poll only runs
+ * once the navigation has returned, so it cannot be raised earlier from
+ * a script. Entries beyond the first 150 that arrive before the first poll
+ * are still lost, both to this strategy and to the captured snapshot;
+ * pages that load more resources than that during the initial load must
+ * raise the buffer size themselves.
+ */
+public class NetworkQuietCompletion implements CompletionStrategy {
+
+    /**
+     * Default number of milliseconds without new resources
+     * before the page is considered to have finished loading.
+     */
+    public static final long DEFAULT_QUIET_PERIOD_MILLIS = 2000;
+
+    /**
+     * Default number of milliseconds between polls of the browser.
+     */
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 250;
+
+    /**
+     * Number of resource timing entries the browser is asked to buffer.
+     */
+    public static final int RESOURCE_BUFFER_SIZE = 100_000;
+
+    private static final String SCRIPT = "var performance = window.performance || {}; " +
+                                         "if (performance.setResourceTimingBufferSize) { " +
+                                         "performance.setResourceTimingBufferSize(" + RESOURCE_BUFFER_SIZE + "); } " +
+                                         "var timing = performance.timing || {}; " +
+                                         "var entries = performance.getEntriesByType ? " +
+                                         "performance.getEntriesByType('resource').length : 0; " +
+                                         "return [timing.loadEventEnd || 0, entries];";
+
+    private final long quietPeriodMillis;
+
+    private final long pollIntervalMillis;
+
+    public NetworkQuietCompletion() {
+        this(DEFAULT_QUIET_PERIOD_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    public NetworkQuietCompletion(long quietPeriodMillis) {
+        this(quietPeriodMillis, DEFAULT_POLL_INTERVAL_MILLIS);
+    }
+
+    public NetworkQuietCompletion(long quietPeriodMillis, long pollIntervalMillis) {
+        checkArgument(quietPeriodMillis >= 0);
+        checkArgument(pollIntervalMillis > 0);
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    @Override
+    public void awaitCompletion(ChromeDriver driver, long timeout, TimeUnit unit) throws InterruptedException {
+        await(driver, timeout, unit);
+    }
+
+    void await(JavascriptExecutor driver, long timeout, TimeUnit unit) throws InterruptedException {
+        long now = System.nanoTime();
+        long deadline = now + unit.toNanos(timeout);
+        long quietPeriod = TimeUnit.MILLISECONDS.toNanos(quietPeriodMillis);
+        long lastChange = now;
+        long lastCount = -1;
+        while (now < deadline) {
+            List<?> state = (List<?>) driver.executeScript(SCRIPT);
+            long loadEventEnd = ((Number) state.get(0)).longValue();
+            long count = ((Number) state.get(1)).longValue();
+            now = System.nanoTime();
+            if (loadEventEnd == 0 || count != lastCount) {
+                lastChange = now;
+                lastCount = count;
+            } else if (now - lastChange >= quietPeriod) {
+                return;
+            }
+            long sleep = Math.min(TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis), deadline - now);
+            if (sleep > 0) {
+                Sleeper.SYSTEM_SLEEPER.sleep(new Duration(sleep, TimeUnit.NANOSECONDS));
+            }
+            now = System.nanoTime();
+        }
+    }
+
+}
@@ -69,4 +69,18 @@ public interface Transformer {
      * @return category for the measurement
      */
     String[] generateCategories(ResourceTiming measurement);
+
+    /**
+     * Returns true if {@link Transformer#generateCategories(ResourceTiming)}
+     * depends only on the (transformed) name of the measurement. When true the
+     * categories are computed once per name and reused for every later
+     * measurement with the same name. The search patterns, replacement strings
+     * and ignore patterns are always assumed to be fixed for the lifetime
+     * of the transformer.
+     *
+     * @return true if the categories are a function of the name alone
+     */
+    default boolean hasDeterministicCategories() {
+        return false;
+    }
 }
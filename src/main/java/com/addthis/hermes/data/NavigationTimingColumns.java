@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Column oriented storage of {@link NavigationTiming} measurements with one
+ * {@code long[]} per attribute, typically one row per iteration. The class is
+ * a {@link java.util.List} view of the measurements: {@link #get(int)} creates
+ * a {@link NavigationTiming} on demand while {@link #get(int, NavigationTimingField)}
+ * reads individual cells without allocating. Only appending is supported.
+ * This class is not safe for use by multiple threads.
+ */
+public class NavigationTimingColumns extends AbstractList<NavigationTiming> implements RandomAccess {
+
+    private static final NavigationTimingField[] FIELDS = NavigationTimingField.values();
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final long[][] columns;
+
+    private int size;
+
+    public NavigationTimingColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NavigationTimingColumns(int capacity) {
+        this.columns = new long[FIELDS.length][capacity];
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = columns[0].length;
+        if (capacity > length) {
+            int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, length + (length >> 1)));
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], newCapacity);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public NavigationTiming get(int row) {
+        checkElementIndex(row, size);
+        return new NavigationTiming(columns[0][row], columns[1][row], columns[2][row],
+                                    columns[3][row], columns[4][row], columns[5][row],
+                                    columns[6][row], columns[7][row], columns[8][row],
+                                    columns[9][row], columns[10][row], columns[11][row],
+                                    columns[12][row], columns[13][row], columns[14][row],
+                                    columns[15][row], columns[16][row], columns[17][row],
+                                    columns[18][row], columns[19][row], columns[20][row]);
+    }
+
+    @Override
+    public void add(int index, NavigationTiming navigation) {
+        checkNotNull(navigation);
+        if (index != size) {
+            throw new UnsupportedOperationException("Measurements can only be appended");
+        }
+        ensureCapacity(size + 1);
+        for (NavigationTimingField field : FIELDS) {
+            columns[field.ordinal()][size] = field.get(navigation);
+        }
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Read one attribute without creating a {@link NavigationTiming}.
+     *
+     * @param row   index of the measurement
+     * @param field timing attribute
+     * @return value of the attribute
+     */
+    public long get(int row, NavigationTimingField field) {
+        checkElementIndex(row, size);
+        return columns[field.ordinal()][row];
+    }
+
+    /**
+     * Returns a copy of the values of one attribute.
+     *
+     * @param field timing attribute
+     * @return one value per measurement
+     */
+    public long[] getColumn(NavigationTimingField field) {
+        return Arrays.copyOf(columns[field.ordinal()], size);
+    }
+}
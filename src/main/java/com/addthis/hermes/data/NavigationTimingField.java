@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+/**
+ * The attributes of a {@link NavigationTiming} in declaration order.
+ * Used to address the columns of {@link NavigationTimingColumns}.
+ */
+public enum NavigationTimingField {
+    NAVIGATION_START("navigationStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getNavigationStart();
+        }
+    },
+    UNLOAD_EVENT_START("unloadEventStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getUnloadEventStart();
+        }
+    },
+    UNLOAD_EVENT_END("unloadEventEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getUnloadEventEnd();
+        }
+    },
+    REDIRECT_START("redirectStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getRedirectStart();
+        }
+    },
+    REDIRECT_END("redirectEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getRedirectEnd();
+        }
+    },
+    FETCH_START("fetchStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getFetchStart();
+        }
+    },
+    DOMAIN_LOOKUP_START("domainLookupStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomainLookupStart();
+        }
+    },
+    DOMAIN_LOOKUP_END("domainLookupEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomainLookupEnd();
+        }
+    },
+    CONNECT_START("connectStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getConnectStart();
+        }
+    },
+    CONNECT_END("connectEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getConnectEnd();
+        }
+    },
+    SECURE_CONNECTION_START("secureConnectionStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getSecureConnectionStart();
+        }
+    },
+    REQUEST_START("requestStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getRequestStart();
+        }
+    },
+    RESPONSE_START("responseStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getResponseStart();
+        }
+    },
+    RESPONSE_END("responseEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getResponseEnd();
+        }
+    },
+    DOM_LOADING("domLoading") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomLoading();
+        }
+    },
+    DOM_INTERACTIVE("domInteractive") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomInteractive();
+        }
+    },
+    DOM_CONTENT_LOADED_EVENT_START("domContentLoadedEventStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomContentLoadedEventStart();
+        }
+    },
+    DOM_CONTENT_LOADED_EVENT_END("domContentLoadedEventEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomContentLoadedEventEnd();
+        }
+    },
+    DOM_COMPLETE("domComplete") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getDomComplete();
+        }
+    },
+    LOAD_EVENT_START("loadEventStart") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getLoadEventStart();
+        }
+    },
+    LOAD_EVENT_END("loadEventEnd") {
+        @Override
+        public long get(NavigationTiming navigation) {
+            return navigation.getLoadEventEnd();
+        }
+    };
+
+    private final String propertyName;
+
+    NavigationTimingField(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * Returns the name of the attribute in the Navigation Timing API
+     * and in the JSON output.
+     *
+     * @return attribute name
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public abstract long get(NavigationTiming navigation);
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+/**
+ * POJO for the performance data captured from the browser in a single
+ * round trip: the Navigation Timing of the page and every entry of the
+ * Performance Timeline http://www.w3.org/TR/performance-timeline/.
+ * Unknown properties are ignored so that further entry types can be
+ * added to the capture script without breaking older readers.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PerformanceSnapshot {
+
+    private final NavigationTiming navigation;
+
+    private final List<ResourceTiming> entries;
+
+    @JsonCreator
+    public PerformanceSnapshot(@JsonProperty("navigation") NavigationTiming navigation,
+                               @JsonProperty("entries") List<ResourceTiming> entries) {
+        this.navigation = navigation;
+        this.entries = (entries != null) ? entries : Collections.<ResourceTiming>emptyList();
+    }
+
+    public NavigationTiming getNavigation() {
+        return navigation;
+    }
+
+    public List<ResourceTiming> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("navigation", navigation)
+                .add("entries", entries)
+                .toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Column oriented storage of {@link ResourceTiming} measurements. Each timing
+ * attribute is stored in its own {@code double[]} and the string attributes
+ * are stored as ids of a {@link StringDictionary} that may be shared between
+ * many instances. The class is a {@link java.util.List} view of the
+ * measurements: {@link #get(int)} creates a {@link ResourceTiming} on demand
+ * while {@link #get(int, ResourceTimingField)} and {@link #getNameId(int)}
+ * read individual cells without allocating. Only appending is supported,
+ * and {@link #empty(StringDictionary)} lists cannot be modified at all.
+ * This class is not safe for use by multiple threads.
+ */
+public class ResourceTimingColumns extends AbstractList<ResourceTiming> implements RandomAccess {
+
+    private static final ResourceTimingField[] FIELDS = ResourceTimingField.values();
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final StringDictionary dictionary;
+
+    private final boolean modifiable;
+
+    private int[] names;
+
+    private int[] entryTypes;
+
+    private int[] initiatorTypes;
+
+    private final double[][] columns;
+
+    private int size;
+
+    public ResourceTimingColumns(StringDictionary dictionary) {
+        this(dictionary, DEFAULT_CAPACITY);
+    }
+
+    public ResourceTimingColumns(StringDictionary dictionary, int capacity) {
+        this(dictionary, capacity, true);
+    }
+
+    private ResourceTimingColumns(StringDictionary dictionary, int capacity, boolean modifiable) {
+        this.dictionary = checkNotNull(dictionary);
+        this.modifiable = modifiable;
+        this.names = new int[capacity];
+        this.entryTypes = new int[capacity];
+        this.initiatorTypes = new int[capacity];
+        this.columns = new double[FIELDS.length][capacity];
+    }
+
+    /**
+     * Returns an empty list that cannot be modified
+     * and whose dictionary is the specified dictionary.
+     *
+     * @param dictionary dictionary of the list
+     * @return an empty read-only list
+     */
+    public static ResourceTimingColumns empty(StringDictionary dictionary) {
+        return new ResourceTimingColumns(dictionary, 0, false);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > names.length) {
+            int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, names.length + (names.length >> 1)));
+            names = Arrays.copyOf(names, newCapacity);
+            entryTypes = Arrays.copyOf(entryTypes, newCapacity);
+            initiatorTypes = Arrays.copyOf(initiatorTypes, newCapacity);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], newCapacity);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ResourceTiming get(int row) {
+        checkElementIndex(row, size);
+        return new ResourceTiming(dictionary.decode(names[row]),
+                                  dictionary.decode(entryTypes[row]),
+                                  dictionary.decode(initiatorTypes[row]),
+                                  columns[0][row], columns[1][row], columns[2][row],
+                                  columns[3][row], columns[4][row], columns[5][row],
+                                  columns[6][row], columns[7][row], columns[8][row],
+                                  columns[9][row], columns[10][row], columns[11][row],
+                                  columns[12][row]);
+    }
+
+    @Override
+    public void add(int index, ResourceTiming measurement) {
+        if (!modifiable) {
+            throw new UnsupportedOperationException("Measurements are read only");
+        }
+        if (index != size) {
+            throw new UnsupportedOperationException("Measurements can only be appended");
+        }
+        ensureCapacity(size + 1);
+        names[size] = dictionary.encode(measurement.getName());
+        entryTypes[size] = dictionary.encode(measurement.getEntryType());
+        initiatorTypes[size] = dictionary.encode(measurement.getInitiatorType());
+        for (ResourceTimingField field : FIELDS) {
+            columns[field.ordinal()][size] = field.get(measurement);
+        }
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Read one timing attribute without creating a {@link ResourceTiming}.
+     *
+     * @param row   index of the measurement
+     * @param field timing attribute
+     * @return value of the attribute
+     */
+    public double get(int row, ResourceTimingField field) {
+        checkElementIndex(row, size);
+        return columns[field.ordinal()][row];
+    }
+
+    public int getNameId(int row) {
+        checkElementIndex(row, size);
+        return names[row];
+    }
+
+    public int getEntryTypeId(int row) {
+        checkElementIndex(row, size);
+        return entryTypes[row];
+    }
+
+    public int getInitiatorTypeId(int row) {
+        checkElementIndex(row, size);
+        return initiatorTypes[row];
+    }
+
+    public String getName(int row) {
+        return dictionary.decode(getNameId(row));
+    }
+
+    /**
+     * Returns a copy of the values of one timing attribute.
+     *
+     * @param field timing attribute
+     * @return one value per measurement
+     */
+    public double[] getColumn(ResourceTimingField field) {
+        return Arrays.copyOf(columns[field.ordinal()], size);
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+/**
+ * The timing attributes of a {@link ResourceTiming} in declaration order.
+ * Used to address the columns of {@link ResourceTimingColumns}.
+ */
+public enum ResourceTimingField {
+    START_TIME("startTime") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getStartTime();
+        }
+    },
+    DURATION("duration") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getDuration();
+        }
+    },
+    REDIRECT_START("redirectStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getRedirectStart();
+        }
+    },
+    REDIRECT_END("redirectEnd") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getRedirectEnd();
+        }
+    },
+    FETCH_START("fetchStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getFetchStart();
+        }
+    },
+    DOMAIN_LOOKUP_START("domainLookupStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getDomainLookupStart();
+        }
+    },
+    DOMAIN_LOOKUP_END("domainLookupEnd") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getDomainLookupEnd();
+        }
+    },
+    CONNECT_START("connectStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getConnectStart();
+        }
+    },
+    CONNECT_END("connectEnd") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getConnectEnd();
+        }
+    },
+    SECURE_CONNECTION_START("secureConnectionStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getSecureConnectionStart();
+        }
+    },
+    REQUEST_START("requestStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getRequestStart();
+        }
+    },
+    RESPONSE_START("responseStart") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getResponseStart();
+        }
+    },
+    RESPONSE_END("responseEnd") {
+        @Override
+        public double get(ResourceTiming measurement) {
+            return measurement.getResponseEnd();
+        }
+    };
+
+    private final String propertyName;
+
+    ResourceTimingField(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * Returns the name of the attribute in the Resource Timing API
+     * and in the JSON output.
+     *
+     * @return attribute name
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public abstract double get(ResourceTiming measurement);
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Assigns a dense integer id to each distinct string so that repeated
+ * names, entry types and initiator types are stored once. Ids are
+ * assigned in order of first appearance starting from zero.
+ * The null string is encoded as {@link #NULL_ID}.
+ * This class is safe for use by multiple threads.
+ */
+public class StringDictionary {
+
+    public static final int NULL_ID = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Returns the id of the string, assigning
+     * a new id if the string has not been seen before.
+     *
+     * @param value input string
+     * @return id of the string
+     */
+    public synchronized int encode(@Nullable String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the string with the specified id.
+     *
+     * @param id previously assigned id
+     * @return string with the id
+     */
+    @Nullable
+    public synchronized String decode(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        checkElementIndex(id, strings.size());
+        return strings.get(id);
+    }
+
+    public synchronized int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.framework.PerformanceTest;
+import com.addthis.hermes.internal.IterationIds;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsFormat;
+import com.addthis.hermes.io.ResultsWriter;
+import com.addthis.hermes.statistics.RunStatistics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits the iterations of a test plan into {@link Shard}s and hands
+ * them out to {@link Worker}s that connect over TCP. Each worker runs
+ * one shard at a time and streams its iterations back. The iterations
+ * of a shard are written to the output file only once the whole shard
+ * has completed, so a shard whose worker disconnects or stops responding
+ * is simply queued again for the next idle worker. The summary statistics
+ * are written next to the output file as with {@link PerformanceTest}.
+ */
+public class Coordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(Coordinator.class);
+
+    /**
+     * Default number of iterations per shard.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_SHARD_SIZE = 5;
+
+    /**
+     * Default number of times a shard is attempted before the run fails.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * Default time in seconds to wait for a message from a busy
+     * worker before it is presumed lost. Can be overridden
+     * in the Builder options.
+     */
+    public static final int DEFAULT_WORKER_TIMEOUT_SECONDS = 300;
+
+    private static final long POLL_MILLIS = 250;
+
+    private final int port;
+
+    private final int workerTimeout;
+
+    private final int maxAttempts;
+
+    private final int shardCount;
+
+    private final BlockingDeque<Shard> pending = new LinkedBlockingDeque<>();
+
+    private final int[] attempts;
+
+    private final ResultsWriter writer;
+
+    private final Manager manager;
+
+    private final RunStatistics statistics;
+
+    private final IterationIds iterationIds = new IterationIds();
+
+    private final List<Thread> handlers = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    @Nullable private ServerSocket server;
+
+    private int completed;
+
+    @Nullable private volatile IOException failure;
+
+    private volatile boolean shutdown;
+
+    private Coordinator(String url, @Nullable String transformer, Path outputPath, ResultsFormat format,
+                        int iterations, int shardSize, int pageLoadWait, @Nullable Long quietMillis,
+                        int port, int workerTimeout, int maxAttempts) {
+        checkNotNull(url);
+        checkNotNull(outputPath);
+        checkNotNull(format);
+        checkArgument(iterations > 0);
+        checkArgument(shardSize > 0);
+        checkArgument(pageLoadWait >= 0);
+        checkArgument(port >= 0 && port <= 0xFFFF);
+        checkArgument(workerTimeout > 0);
+        checkArgument(maxAttempts > 0);
+        this.port = port;
+        this.workerTimeout = workerTimeout;
+        this.maxAttempts = maxAttempts;
+        this.shardCount = (iterations + shardSize - 1) / shardSize;
+        this.attempts = new int[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int size = Math.min(shardSize, iterations - i * shardSize);
+            pending.add(new Shard(i, size, url, transformer, pageLoadWait, quietMillis));
+        }
+        this.writer = format.createWriter(outputPath);
+        this.statistics = new RunStatistics();
+        this.manager = new Manager(new IdentityTransformer());
+        this.manager.addListener(statistics);
+    }
+
+    /**
+     * Starts listening for workers. Called by {@link #run()}
+     * if it has not been called before.
+     *
+     * @return port on which the coordinator is listening
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized int start() throws IOException {
+        if (server == null) {
+            ServerSocket socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            server = socket;
+            Thread acceptor = new Thread(this::accept, "hermes-coordinator-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            log.info("Waiting for workers on port {}", socket.getLocalPort());
+        }
+        return server.getLocalPort();
+    }
+
+    /**
+     * Blocks until every shard has been completed by some worker and
+     * records the results to the output file.
+     *
+     * @throws IOException if a shard failed on too many attempts
+     *                     or the results could not be written
+     */
+    public void run() throws IOException, InterruptedException {
+        try {
+            start();
+            finished.await();
+        } finally {
+            shutdown = true;
+            synchronized (this) {
+                if (server != null) {
+                    server.close();
+                }
+            }
+            for (Thread handler : handlers) {
+                handler.join(TimeUnit.SECONDS.toMillis(1));
+            }
+            synchronized (this) {
+                writer.close();
+                if (writer.getCount() > 0) {
+                    ObjectMapper mapper = new ObjectMapper();
+                    mapper.enable(SerializationFeature.INDENT_OUTPUT);
+                    mapper.writeValue(PerformanceTest.summaryPath(writer.getOutputPath()).toFile(), statistics);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public RunStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void accept() {
+        while (!shutdown) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> handle(socket),
+                                            "hermes-coordinator-" + socket.getRemoteSocketAddress());
+                handler.setDaemon(true);
+                handlers.add(handler);
+                handler.start();
+            } catch (IOException ex) {
+                if (!shutdown) {
+                    log.warn("Error accepting worker connection", ex);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        String name = String.valueOf(socket.getRemoteSocketAddress());
+        Shard shard = null;
+        try {
+            socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(workerTimeout));
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            JsonNode hello = Frames.read(input);
+            expect(hello, Frames.HELLO);
+            name = hello.path("worker").asText(name);
+            log.info("Worker {} connected", name);
+            while (true) {
+                shard = null;
+                while (shard == null && !shutdown) {
+                    shard = pending.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (shard == null) {
+                    Frames.write(output, Frames.message(Frames.SHUTDOWN));
+                    return;
+                }
+                log.info("Sending {} to worker {}", shard, name);
+                ObjectNode message = Frames.message(Frames.SHARD);
+                message.set("shard", Frames.MAPPER.valueToTree(shard));
+                Frames.write(output, message);
+                List<Iteration> results = receive(input, shard);
+                if (results != null) {
+                    complete(shard, results);
+                } else {
+                    retry(shard);
+                }
+            }
+        } catch (IOException ex) {
+            if (shard != null) {
+                log.warn("Lost worker {} while running {}", name, shard, ex);
+                retry(shard);
+            } else if (!shutdown) {
+                log.warn("Lost worker {}", name, ex);
+            }
+        } catch (InterruptedException ex) {
+            if (shard != null) {
+                retry(shard);
+            }
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Collects the iterations of a shard.
+     *
+     * @return iterations of the shard or null if the worker reported a failure
+     */
+    @Nullable
+    private List<Iteration> receive(DataInputStream input, Shard shard) throws IOException {
+        List<Iteration> results = new ArrayList<>(shard.getIterations());
+        while (true) {
+            JsonNode message = Frames.read(input);
+            String type = message.path("type").asText();
+            if (message.path("shard").asInt(-1) != shard.getId()) {
+                throw new IOException("Unexpected message for shard " + message.path("shard"));
+            }
+            switch (type) {
+                case Frames.ITERATION:
+                    MeasurementTree measurements = Frames.MAPPER.treeToValue(message.get("measurements"),
+                                                                             MeasurementTree.class);
+                    results.add(new Iteration(message.path("id").asLong(), measurements));
+                    break;
+                case Frames.DONE:
+                    return results;
+                case Frames.ERROR:
+                    log.warn("Worker failed {}: {}", shard, message.path("message").asText());
+                    return null;
+                default:
+                    throw new IOException("Unexpected message " + type);
+            }
+        }
+    }
+
+    private static void expect(JsonNode message, String type) throws IOException {
+        if (!type.equals(message.path("type").asText())) {
+            throw new IOException("Expected " + type + " message but received " + message.path("type"));
+        }
+    }
+
+    /**
+     * Records the iterations of a shard. A failure to write the output
+     * is fatal rather than retried, because the iterations written before
+     * the failure would be written and counted again.
+     */
+    private synchronized void complete(Shard shard, List<Iteration> results) {
+        if (shutdown) {
+            return;
+        }
+        for (Iteration iteration : results) {
+            long id = iterationIds.next(iteration.id);
+            try {
+                writer.write(id, iteration.measurements);
+            } catch (IOException ex) {
+                log.error("Could not write the results of {}", shard, ex);
+                failure = ex;
+                shutdown = true;
+                finished.countDown();
+                return;
+            }
+            manager.replay(id, iteration.measurements);
+        }
+        completed++;
+        log.info("Completed {} ({} of {} shards)", shard, completed, shardCount);
+        if (completed == shardCount) {
+            finished.countDown();
+        }
+    }
+
+    private synchronized void retry(Shard shard) {
+        if (shutdown) {
+            return;
+        }
+        int attempt = ++attempts[shard.getId()];
+        if (attempt >= maxAttempts) {
+            failure = new IOException(shard + " failed on " + attempt + " attempts");
+            finished.countDown();
+        } else {
+            pending.addFirst(shard);
+        }
+    }
+
+    private static final class Iteration {
+
+        final long id;
+
+        final MeasurementTree measurements;
+
+        Iteration(long id, MeasurementTree measurements) {
+            this.id = id;
+            this.measurements = measurements;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Builder {
+
+        private String url;
+
+        private String transformer;
+
+        private Path outputPath;
+
+        private ResultsFormat format = ResultsFormat.JSON;
+
+        private int iterations = PerformanceTest.DEFAULT_NUMBER_ITERATIONS;
+
+        private int shardSize = DEFAULT_SHARD_SIZE;
+
+        private int pageLoadWait = PerformanceTest.DEFAULT_PAGE_LOAD_WAIT_SECONDS;
+
+        private Long quietMillis;
+
+        private int port;
+
+        private int workerTimeout = DEFAULT_WORKER_TIMEOUT_SECONDS;
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        public Builder setUrl(String url) {
+            this.url = url;
+            return this;
+        }
+
+        /**
+         * Class name of the {@link com.addthis.hermes.configuration.Transformer}
+         * that the workers apply. Must be on the classpath of every worker.
+         */
+        public Builder setTransformer(String transformer) {
+            this.transformer = transformer;
+            return this;
+        }
+
+        public Builder setOutputPath(Path outputPath) {
+            this.outputPath = outputPath;
+            return this;
+        }
+
+        public Builder setFormat(ResultsFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setIterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        public Builder setShardSize(int shardSize) {
+            this.shardSize = shardSize;
+            return this;
+        }
+
+        public Builder setPageLoadWait(int pageLoadWait) {
+            this.pageLoadWait = pageLoadWait;
+            return this;
+        }
+
+        /**
+         * Quiet period of the network for the workers to wait for
+         * instead of the full page load wait.
+         */
+        public Builder setQuietMillis(Long quietMillis) {
+            this.quietMillis = quietMillis;
+            return this;
+        }
+
+        /**
+         * Port to listen on. Zero selects an ephemeral port.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder setWorkerTimeout(int workerTimeout) {
+            this.workerTimeout = workerTimeout;
+            return this;
+        }
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Coordinator build() {
+            return new Coordinator(url, transformer, outputPath, format, iterations, shardSize, pageLoadWait,
+                                   quietMillis, port, workerTimeout, maxAttempts);
+        }
+    }
+}
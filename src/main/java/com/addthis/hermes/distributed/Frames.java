@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The wire format between the {@link Coordinator} and its {@link Worker}s:
+ * every message is a JSON object preceded by its length in bytes as a
+ * four byte big-endian integer. The "type" property names the message.
+ */
+final class Frames {
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+
+    /**
+     * Sent by a worker once connected. Carries the "worker" name.
+     */
+    static final String HELLO = "hello";
+
+    /**
+     * Sent by the coordinator. Carries the "shard" to run.
+     */
+    static final String SHARD = "shard";
+
+    /**
+     * Sent by a worker for every iteration. Carries the "shard" id,
+     * the iteration "id" and the "measurements" tree.
+     */
+    static final String ITERATION = "iteration";
+
+    /**
+     * Sent by a worker when every iteration of the "shard" has been sent.
+     */
+    static final String DONE = "done";
+
+    /**
+     * Sent by a worker when the "shard" failed. Carries a "message".
+     */
+    static final String ERROR = "error";
+
+    /**
+     * Sent by the coordinator when there is no more work.
+     */
+    static final String SHUTDOWN = "shutdown";
+
+    private static final int MAX_FRAME_BYTES = 256 << 20;
+
+    private Frames() {}
+
+    static ObjectNode message(String type) {
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put("type", type);
+        return message;
+    }
+
+    static void write(DataOutputStream output, JsonNode message) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(message);
+        synchronized (output) {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+            output.flush();
+        }
+    }
+
+    static JsonNode read(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return MAPPER.readTree(bytes);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A contiguous slice of the iterations of a test plan that is run by
+ * one worker. Besides the number of iterations the shard carries the
+ * settings that every worker must apply identically.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class Shard {
+
+    @JsonProperty
+    private final int id;
+
+    @JsonProperty
+    private final int iterations;
+
+    @JsonProperty
+    private final String url;
+
+    @JsonProperty
+    @Nullable
+    private final String transformer;
+
+    @JsonProperty
+    private final int pageLoadWait;
+
+    @JsonProperty
+    @Nullable
+    private final Long quietMillis;
+
+    @JsonCreator
+    public Shard(@JsonProperty("id") int id,
+                 @JsonProperty("iterations") int iterations,
+                 @JsonProperty("url") String url,
+                 @JsonProperty("transformer") @Nullable String transformer,
+                 @JsonProperty("pageLoadWait") int pageLoadWait,
+                 @JsonProperty("quietMillis") @Nullable Long quietMillis) {
+        this.id = id;
+        this.iterations = iterations;
+        this.url = url;
+        this.transformer = transformer;
+        this.pageLoadWait = pageLoadWait;
+        this.quietMillis = quietMillis;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the class name of the {@link com.addthis.hermes.configuration.Transformer}
+     * or null for the {@link com.addthis.hermes.configuration.IdentityTransformer}.
+     */
+    @Nullable
+    public String getTransformer() {
+        return transformer;
+    }
+
+    public int getPageLoadWait() {
+        return pageLoadWait;
+    }
+
+    /**
+     * Returns the quiet period of a {@link com.addthis.hermes.configuration.NetworkQuietCompletion}
+     * or null for a {@link com.addthis.hermes.configuration.FixedDelayCompletion}.
+     */
+    @Nullable
+    public Long getQuietMillis() {
+        return quietMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + id + " (" + iterations + " iterations)";
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import java.io.IOException;
+
+import com.addthis.hermes.io.ResultsReader;
+
+/**
+ * Runs the iterations of a {@link Shard} on a {@link Worker}.
+ */
+public interface ShardExecutor {
+
+    /**
+     * Run every iteration of the shard and pass each one to
+     * the sink as soon as it completes.
+     *
+     * @param shard iterations to run
+     * @param sink  receives the iterations
+     */
+    void execute(Shard shard, ResultsReader.IterationHandler sink) throws IOException, InterruptedException;
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Connects to a {@link Coordinator} and runs the shards it is sent
+ * with a {@link ShardExecutor} until the coordinator has no more work.
+ * Every iteration is sent back to the coordinator as soon as it completes.
+ */
+public class Worker {
+
+    private static final Logger log = LoggerFactory.getLogger(Worker.class);
+
+    private final String host;
+
+    private final int port;
+
+    private final ShardExecutor executor;
+
+    private final String name;
+
+    public Worker(String host, int port, ShardExecutor executor) {
+        this(host, port, executor, ManagementFactory.getRuntimeMXBean().getName());
+    }
+
+    /**
+     * @param host     host name of the coordinator
+     * @param port     port of the coordinator
+     * @param executor runs the shards
+     * @param name     identifies the worker in the log messages of the coordinator
+     */
+    public Worker(String host, int port, ShardExecutor executor, String name) {
+        checkArgument(port > 0 && port <= 0xFFFF, "invalid port %s", port);
+        this.host = checkNotNull(host);
+        this.port = port;
+        this.executor = checkNotNull(executor);
+        this.name = checkNotNull(name);
+    }
+
+    /**
+     * Runs shards until the coordinator sends a shutdown message.
+     *
+     * @throws IOException if the connection to the coordinator is lost
+     */
+    public void run() throws IOException, InterruptedException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            ObjectNode hello = Frames.message(Frames.HELLO);
+            hello.put("worker", name);
+            Frames.write(output, hello);
+            while (true) {
+                JsonNode message = Frames.read(input);
+                String type = message.path("type").asText();
+                if (Frames.SHUTDOWN.equals(type)) {
+                    log.info("Coordinator has no more work");
+                    return;
+                } else if (!Frames.SHARD.equals(type)) {
+                    throw new IOException("Unexpected message " + type);
+                }
+                Shard shard = Frames.MAPPER.treeToValue(message.get("shard"), Shard.class);
+                log.info("Now starting {}", shard);
+                execute(shard, output);
+            }
+        }
+    }
+
+    private void execute(Shard shard, DataOutputStream output) throws IOException, InterruptedException {
+        ObjectNode result;
+        try {
+            executor.execute(shard, (id, measurements) -> {
+                ObjectNode iteration = Frames.message(Frames.ITERATION);
+                iteration.put("shard", shard.getId());
+                iteration.put("id", id);
+                iteration.set("measurements", Frames.MAPPER.valueToTree(measurements));
+                Frames.write(output, iteration);
+            });
+            result = Frames.message(Frames.DONE);
+        } catch (RuntimeException ex) {
+            log.warn("Error running {}", shard, ex);
+            result = Frames.message(Frames.ERROR);
+            result.put("message", String.valueOf(ex));
+        }
+        result.put("shard", shard.getId());
+        Frames.write(output, result);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.FixedDelayCompletion;
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.NetworkQuietCompletion;
+import com.addthis.hermes.configuration.SinglePageNavigator;
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.distributed.Shard;
+import com.addthis.hermes.distributed.ShardExecutor;
+import com.addthis.hermes.internal.IterationIds;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.metrics.MetricsRegistry;
+
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the iterations of a {@link Shard} with local browsers in the
+ * same way as {@link PerformanceTest}. The page and the transformations
+ * come from the shard while the browser settings belong to the worker.
+ */
+public class BrowserShardExecutor implements ShardExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(BrowserShardExecutor.class);
+
+    private final IterationRunner runner;
+
+    private final IterationIds iterationIds = new IterationIds();
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    /**
+     * @param options             options of the browser, may be null
+     * @param useIncognitoBrowser use incognito browsers
+     * @param resetMode           how the browser is reset between iterations
+     * @param concurrency         number of browsers running iterations in parallel
+     * @param standbyBrowser      launch the next browser in the background
+     */
+    public BrowserShardExecutor(@Nullable ChromeOptions options, boolean useIncognitoBrowser, ResetMode resetMode,
+                                int concurrency, boolean standbyBrowser) {
+        this.runner = new IterationRunner(IterationRunner.browserOptions(options, useIncognitoBrowser),
+                                          resetMode, concurrency, standbyBrowser, metrics);
+    }
+
+    /**
+     * Returns the timers and counters of the harness across every shard.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void execute(Shard shard, ResultsReader.IterationHandler sink) throws IOException, InterruptedException {
+        Transformer transformer = (shard.getTransformer() != null) ?
+                                  SuiteManifest.instantiate(shard.getTransformer(), Transformer.class) :
+                                  new IdentityTransformer();
+        CompletionStrategy completionStrategy = (shard.getQuietMillis() != null) ?
+                                                new NetworkQuietCompletion(shard.getQuietMillis()) :
+                                                new FixedDelayCompletion();
+        PageRecorder recorder = new PageRecorder(new SinglePageNavigator(shard.getUrl()), completionStrategy,
+                                                 shard.getPageLoadWait(), new Manager(transformer),
+                                                 iterationIds, sink, metrics);
+        AtomicInteger nextIteration = new AtomicInteger();
+        runner.run(() -> {
+            int i = nextIteration.getAndIncrement();
+            if (i >= shard.getIterations()) {
+                return null;
+            }
+            log.info("Now starting iteration {} of {}", i + 1, shard);
+            return recorder::record;
+        }, shard.getIterations());
+    }
+}
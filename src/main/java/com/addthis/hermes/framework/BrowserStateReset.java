@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+
+/**
+ * Implements {@link ResetMode#STATE_CLEAR}. The origins of the page and of
+ * every resource it loaded are read from the page, the browser navigates to
+ * about:blank so that no page of those origins stays alive, and then the
+ * HTTP cache, the cookies and the storage of each origin are cleared.
+ */
+final class BrowserStateReset {
+
+    static final String ORIGINS_SCRIPT = "return [location.href].concat(" +
+                                         "performance.getEntries().map(function (e) { return e.name; }));";
+
+    static final String STORAGE_TYPES = "appcache,cookies,file_systems,indexeddb,local_storage," +
+                                        "shader_cache,websql,service_workers,cache_storage";
+
+    private BrowserStateReset() {}
+
+    static void reset(ChromeDriver driver, DevToolsClient devTools) throws IOException {
+        Set<String> origins = origins(driver.executeScript(ORIGINS_SCRIPT));
+        driver.get("about:blank");
+        clear(devTools, origins);
+    }
+
+    static void clear(DevToolsClient devTools, Set<String> origins) throws IOException {
+        devTools.send("Network.clearBrowserCache");
+        devTools.send("Network.clearBrowserCookies");
+        for (String origin : origins) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("origin", origin);
+            params.put("storageTypes", STORAGE_TYPES);
+            devTools.send("Storage.clearDataForOrigin", params);
+        }
+    }
+
+    /**
+     * Returns the distinct http and https origins of a list of urls.
+     */
+    static Set<String> origins(Object urls) {
+        Set<String> origins = new TreeSet<>();
+        if (urls instanceof List) {
+            for (Object url : (List<?>) urls) {
+                String origin = origin(String.valueOf(url));
+                if (origin != null) {
+                    origins.add(origin);
+                }
+            }
+        }
+        return origins;
+    }
+
+    @Nullable
+    private static String origin(String url) {
+        try {
+            URI uri = new URI(url);
+            String scheme = uri.getScheme();
+            if (uri.getHost() == null || !("http".equals(scheme) || "https".equals(scheme))) {
+                return null;
+            }
+            return scheme + "://" + uri.getHost() + ((uri.getPort() >= 0) ? ":" + uri.getPort() : "");
+        } catch (URISyntaxException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.FixedDelayCompletion;
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.Navigator;
+import com.addthis.hermes.configuration.SinglePageNavigator;
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.internal.IterationIds;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.io.ResultsFormat;
+import com.addthis.hermes.io.ResultsWriter;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.statistics.ComparisonReport;
+import com.addthis.hermes.statistics.SampleCollector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compares a baseline against a variant. The iterations of the two
+ * {@link Navigator}s are interleaved in a random order so that drift
+ * in the network or the host affects both sides equally. Both sides
+ * share the same {@link Transformer} so that their resources line up
+ * by transformed name. When the run ends a {@link ComparisonReport}
+ * with a Mann-Whitney U test and an effect size for every resource
+ * and navigation timing attribute is written to the report file.
+ * Optionally the raw results of each side are written in the same
+ * format as {@link PerformanceTest}.
+ */
+public class ComparisonTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ComparisonTest.class);
+
+    private final int iterations;
+
+    private final Path reportPath;
+
+    private final long seed;
+
+    private final PageRecorder[] recorders;
+
+    private final SampleCollector[] samples;
+
+    private final ResultsWriter[] writers;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private final IterationRunner runner;
+
+    @Nullable private ComparisonReport report;
+
+    private ComparisonTest(Navigator baseline, Navigator variant, Transformer transformer,
+                           CompletionStrategy completionStrategy, Path reportPath,
+                           @Nullable Path baselineOutputPath, @Nullable Path variantOutputPath,
+                           ResultsFormat format, ChromeOptions options, int iterations, int pageLoadWait,
+                           ResetMode resetMode, boolean useIncognitoBrowser,
+                           boolean standbyBrowser, int concurrency, long seed) {
+        checkNotNull(baseline);
+        checkNotNull(variant);
+        checkNotNull(transformer);
+        checkNotNull(completionStrategy);
+        checkNotNull(reportPath);
+        checkNotNull(format);
+        checkArgument(iterations > 0);
+        checkArgument(pageLoadWait >= 0);
+        checkArgument(concurrency > 0);
+        Navigator[] navigators = {baseline, variant};
+        Path[] outputPaths = {baselineOutputPath, variantOutputPath};
+        IterationIds iterationIds = new IterationIds();
+        this.recorders = new PageRecorder[2];
+        this.samples = new SampleCollector[2];
+        this.writers = new ResultsWriter[2];
+        for (int i = 0; i < 2; i++) {
+            Manager manager = new Manager(transformer);
+            samples[i] = new SampleCollector();
+            manager.addListener(samples[i]);
+            writers[i] = (outputPaths[i] != null) ? format.createWriter(outputPaths[i]) : null;
+            ResultsWriter writer = writers[i];
+            recorders[i] = new PageRecorder(navigators[i], completionStrategy, pageLoadWait,
+                                            manager, iterationIds, (writer != null) ? writer::write : null, metrics);
+        }
+        this.runner = new IterationRunner(IterationRunner.browserOptions(options, useIncognitoBrowser),
+                                          resetMode, concurrency, standbyBrowser, metrics);
+        this.reportPath = reportPath;
+        this.iterations = iterations;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the iterations of both sides and writes the comparison report.
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException, InterruptedException {
+        int[] order = Scheduling.RANDOM.order(2, iterations, new Random(seed));
+        AtomicInteger nextIteration = new AtomicInteger();
+        try {
+            runner.run(() -> {
+                int i = nextIteration.getAndIncrement();
+                if (i >= order.length) {
+                    return null;
+                }
+                PageRecorder recorder = recorders[order[i]];
+                log.info("Now starting iteration {} of {} ({})", i + 1, order.length,
+                         (order[i] == 0) ? "baseline" : "variant");
+                return recorder::record;
+            }, order.length);
+        } finally {
+            for (ResultsWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+        report = ComparisonReport.of(samples[0], samples[1]);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(reportPath.toFile(), report);
+        metrics.writeSummary(MetricsRegistry.summaryPath(reportPath));
+    }
+
+    /**
+     * Returns the timers and counters of the harness itself.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the report of the last run.
+     *
+     * @return comparison report or null if the test has not completed
+     */
+    @Nullable
+    public ComparisonReport getReport() {
+        return report;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Builder {
+
+        private Navigator baseline;
+
+        private Navigator variant;
+
+        private Transformer transformer;
+
+        private CompletionStrategy completionStrategy = new FixedDelayCompletion();
+
+        private Path reportPath;
+
+        private Path baselineOutputPath;
+
+        private Path variantOutputPath;
+
+        private ResultsFormat format = ResultsFormat.JSON;
+
+        private int iterations = PerformanceTest.DEFAULT_NUMBER_ITERATIONS;
+
+        private int pageLoadWait = PerformanceTest.DEFAULT_PAGE_LOAD_WAIT_SECONDS;
+
+        private ResetMode resetMode = PerformanceTest.DEFAULT_RESET_MODE;
+
+        private boolean useIncognitoBrowser = PerformanceTest.DEFAULT_USE_INCOGNITO_BROWSER;
+
+        private boolean standbyBrowser = PerformanceTest.DEFAULT_STANDBY_BROWSER;
+
+        private int concurrency = PerformanceTest.DEFAULT_CONCURRENCY;
+
+        private long seed = System.nanoTime();
+
+        private ChromeOptions options;
+
+        /**
+         * Construct a minimal comparison of two urls.
+         *
+         * @param baselineUrl website of the baseline
+         * @param variantUrl  website of the variant
+         * @param reportPath  path to new file for the comparison report
+         */
+        public Builder(String baselineUrl, String variantUrl, Path reportPath) {
+            this(new SinglePageNavigator(baselineUrl), new SinglePageNavigator(variantUrl),
+                 new IdentityTransformer(), reportPath);
+        }
+
+        /**
+         * Construct a comparison with the specified navigators and transformer.
+         *
+         * @param baseline    browser operations of the baseline
+         * @param variant     browser operations of the variant
+         * @param transformer transformations applied to the performance events of both sides
+         * @param reportPath  path to new file for the comparison report
+         */
+        public Builder(Navigator baseline, Navigator variant, Transformer transformer, Path reportPath) {
+            this.baseline = baseline;
+            this.variant = variant;
+            this.transformer = transformer;
+            this.reportPath = reportPath;
+        }
+
+        public Builder setTransformer(Transformer transformer) {
+            this.transformer = transformer;
+            return this;
+        }
+
+        public Builder setCompletionStrategy(CompletionStrategy completionStrategy) {
+            this.completionStrategy = completionStrategy;
+            return this;
+        }
+
+        /**
+         * Also write the raw results of each side. Either path may be null.
+         */
+        public Builder setOutputPaths(Path baselineOutputPath, Path variantOutputPath) {
+            this.baselineOutputPath = baselineOutputPath;
+            this.variantOutputPath = variantOutputPath;
+            return this;
+        }
+
+        /**
+         * Format of the raw results. Default is JSON.
+         */
+        public Builder setFormat(ResultsFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Number of iterations of each side.
+         */
+        public Builder setIterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        public Builder setPageLoadWait(int pageLoadWait) {
+            this.pageLoadWait = pageLoadWait;
+            return this;
+        }
+
+        public Builder setOptions(ChromeOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * Restart the browser between iterations or keep it.
+         * Equivalent to {@link ResetMode#PROCESS_RESTART} or {@link ResetMode#NONE}.
+         */
+        public Builder setResetBetweenIterations(boolean reset) {
+            this.resetMode = reset ? ResetMode.PROCESS_RESTART : ResetMode.NONE;
+            return this;
+        }
+
+        /**
+         * How the browser is returned to a cold state between iterations.
+         */
+        public Builder setResetMode(ResetMode resetMode) {
+            this.resetMode = resetMode;
+            return this;
+        }
+
+        public Builder setUseIncognitoBrowser(boolean incognito) {
+            this.useIncognitoBrowser = incognito;
+            return this;
+        }
+
+        /**
+         * See {@link PerformanceTest.Builder#setStandbyBrowser(boolean)}.
+         */
+        public Builder setStandbyBrowser(boolean standby) {
+            this.standbyBrowser = standby;
+            return this;
+        }
+
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Seed of the random order of the iterations.
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ComparisonTest build() {
+            return new ComparisonTest(baseline, variant, transformer, completionStrategy, reportPath,
+                                      baselineOutputPath, variantOutputPath, format, options, iterations, pageLoadWait,
+                                      resetMode, useIncognitoBrowser, standbyBrowser, concurrency,
+                                      seed);
+        }
+    }
+}
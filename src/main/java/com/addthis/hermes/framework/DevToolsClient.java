@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sends Chrome DevTools Protocol commands to a browser through the
+ * chromedriver endpoint of its session. The version of Selenium that
+ * is used does not expose this endpoint, so the command is posted to
+ * the chromedriver server directly.
+ */
+final class DevToolsClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    private final URL endpoint;
+
+    /**
+     * @param serverUrl base url of the chromedriver server
+     * @param sessionId id of the webdriver session
+     */
+    DevToolsClient(URL serverUrl, String sessionId) throws IOException {
+        String base = serverUrl.toString();
+        if (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        this.endpoint = new URL(base + "/session/" + sessionId + "/chromium/send_command_and_get_result");
+    }
+
+    JsonNode send(String method) throws IOException {
+        return send(method, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Run a DevTools command and return its result.
+     *
+     * @param method DevTools method such as Network.clearBrowserCache
+     * @param params parameters of the method
+     * @return result of the command
+     * @throws IOException if the command cannot be sent or fails
+     */
+    JsonNode send(String method, Map<String, Object> params) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("cmd", method);
+        body.put("params", params);
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            try (OutputStream output = connection.getOutputStream()) {
+                MAPPER.writeValue(output, body);
+            }
+            int code = connection.getResponseCode();
+            InputStream input = (code < 400) ? connection.getInputStream() : connection.getErrorStream();
+            JsonNode response = (input != null) ? MAPPER.readTree(input) : MAPPER.createObjectNode();
+            JsonNode value = response.path("value");
+            int status = response.path("status").asInt(0);
+            if (code >= 400 || status != 0 || value.has("error")) {
+                throw new IOException("DevTools command " + method + " failed with HTTP status " +
+                                      code + ": " + value);
+            }
+            return value;
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.metrics.Timer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs browser tasks on a bounded number of workers. Each worker owns
+ * an independent {@link ChromeDriver} and repeatedly asks the schedule
+ * for its next task until the schedule is exhausted. The first task
+ * that fails stops every worker and its exception is rethrown.
+ * <p/>
+ * Between tasks the browser is reset according to the {@link ResetMode}.
+ * When the browser is restarted between iterations and standby browsers are
+ * enabled, each worker claims its next task from the schedule as the current
+ * task starts and, if there is one, launches the browser for it in the
+ * background while the current task runs. Browsers are quit in the
+ * background once their task is done. Every task still receives a new
+ * browser but launching and quitting are no longer on the critical path.
+ * The background launch competes with the measured task for CPU time.
+ */
+final class IterationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IterationRunner.class);
+
+    /**
+     * One unit of work performed with a browser, typically one iteration.
+     */
+    interface Task {
+        void run(ChromeDriver driver) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Hands out tasks to the workers. Must be safe for use by multiple threads.
+     */
+    interface Schedule {
+        /**
+         * Returns the next task or null if there is no more work.
+         */
+        @Nullable Task next();
+    }
+
+    @Nullable private final ChromeOptions options;
+
+    private final ResetMode resetMode;
+
+    private final int concurrency;
+
+    private final boolean standby;
+
+    private final MetricsRegistry metrics;
+
+    IterationRunner(@Nullable ChromeOptions options, ResetMode resetMode, int concurrency,
+                    boolean standby, MetricsRegistry metrics) {
+        checkArgument(concurrency > 0);
+        checkNotNull(resetMode);
+        checkNotNull(metrics);
+        this.options = options;
+        this.resetMode = resetMode;
+        this.concurrency = concurrency;
+        this.standby = standby;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the browser options with the incognito flag added if requested.
+     */
+    @Nullable
+    static ChromeOptions browserOptions(@Nullable ChromeOptions options, boolean useIncognitoBrowser) {
+        if (useIncognitoBrowser) {
+            if (options == null) {
+                options = new ChromeOptions();
+            }
+            options.addArguments("--incognito");
+        }
+        return options;
+    }
+
+    /**
+     * Run the tasks of the schedule until it is exhausted.
+     *
+     * @param schedule source of tasks
+     * @param maxTasks upper bound on the number of tasks, used to avoid idle workers
+     */
+    void run(Schedule schedule, int maxTasks) throws IOException, InterruptedException {
+        int workers = Math.max(1, Math.min(concurrency, maxTasks));
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                new ThreadFactoryBuilder().setNameFormat("hermes-browser-%d").build());
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        ExecutorService background = null;
+        if (resetMode == ResetMode.PROCESS_RESTART && standby) {
+            background = Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder().setNameFormat("hermes-browser-standby-%d").setDaemon(true).build());
+        }
+        try {
+            for (int i = 0; i < workers; i++) {
+                completionService.submit(new Worker(schedule, background));
+            }
+            for (int i = 0; i < workers; i++) {
+                awaitWorker(completionService);
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            if (background != null) {
+                // let pending launches and quits finish so no browser is left running
+                background.shutdown();
+                background.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private ChromeDriver launch() {
+        return (options != null) ? new ChromeDriver(options) : new ChromeDriver();
+    }
+
+    private static void quit(ChromeDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException ex) {
+            log.warn("Unable to quit browser", ex);
+        }
+    }
+
+    private static void awaitWorker(CompletionService<Void> completionService)
+            throws IOException, InterruptedException {
+        try {
+            completionService.take().get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Runs tasks on its own browser instance until
+     * the schedule has no more work.
+     */
+    private class Worker implements Callable<Void> {
+
+        private final Schedule schedule;
+
+        @Nullable private final ExecutorService background;
+
+        @Nullable private ChromeDriver driver;
+
+        @Nullable private Future<ChromeDriver> standbyDriver;
+
+        @Nullable private ChromeDriverService service;
+
+        @Nullable private DevToolsClient devTools;
+
+        Worker(Schedule schedule, @Nullable ExecutorService background) {
+            this.schedule = schedule;
+            this.background = background;
+        }
+
+        private void setup() throws IOException, InterruptedException {
+            if (driver == null) {
+                if (resetMode == ResetMode.STATE_CLEAR) {
+                    launchWithDevTools();
+                } else if (standbyDriver != null) {
+                    // keep the reference until the launch completes so that
+                    // an interrupted wait still quits the browser in discardStandby()
+                    driver = await(standbyDriver);
+                    standbyDriver = null;
+                } else {
+                    driver = launch();
+                }
+            }
+        }
+
+        /**
+         * Claim the task that follows the current one. With standby browsers the
+         * browser for that task is launched in the background, so no browser is
+         * launched while the last task runs.
+         */
+        @Nullable
+        private Task claimNext() {
+            Task next = schedule.next();
+            if (next != null) {
+                standbyDriver = background.submit(IterationRunner.this::launch);
+            }
+            return next;
+        }
+
+        /**
+         * Launch the browser through a chromedriver server owned by
+         * this worker so that DevTools commands can be sent to it.
+         */
+        private void launchWithDevTools() throws IOException {
+            service = ChromeDriverService.createDefaultService();
+            service.start();
+            driver = (options != null) ? new ChromeDriver(service, options) : new ChromeDriver(service);
+            devTools = new DevToolsClient(service.getUrl(), driver.getSessionId().toString());
+        }
+
+        private ChromeDriver await(Future<ChromeDriver> launched) throws InterruptedException {
+            try {
+                return launched.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+
+        private void teardown() {
+            switch (resetMode) {
+                case PROCESS_RESTART:
+                    quit();
+                    break;
+                case STATE_CLEAR:
+                    if (driver != null) {
+                        try {
+                            BrowserStateReset.reset(driver, devTools);
+                        } catch (IOException | RuntimeException ex) {
+                            log.warn("Unable to clear browser state, restarting the browser", ex);
+                            quit();
+                        }
+                    }
+                    break;
+                case NONE:
+                    break;
+                default:
+                    throw new IllegalStateException("unknown reset mode " + resetMode);
+            }
+        }
+
+        private void quit() {
+            if (driver != null) {
+                ChromeDriver finished = driver;
+                driver = null;
+                if (background != null) {
+                    background.submit(() -> IterationRunner.quit(finished));
+                } else {
+                    IterationRunner.quit(finished);
+                }
+            }
+            if (service != null) {
+                service.stop();
+                service = null;
+                devTools = null;
+            }
+        }
+
+        /**
+         * Quit the standby browser that will not be used once it has launched.
+         */
+        private void discardStandby() {
+            if (standbyDriver != null) {
+                Future<ChromeDriver> launched = standbyDriver;
+                standbyDriver = null;
+                background.submit(() -> {
+                    try {
+                        IterationRunner.quit(launched.get());
+                    } catch (ExecutionException ignored) {
+                        // the launch failed so there is nothing to quit
+                    }
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public Void call() throws IOException, InterruptedException {
+            try {
+                Task task = schedule.next();
+                while (!Thread.currentThread().isInterrupted() && task != null) {
+                    Task next = null;
+                    try {
+                        Timer.Context setupTimer = metrics.timer(MetricsRegistry.SETUP).time();
+                        try {
+                            setup();
+                            if (background != null) {
+                                next = claimNext();
+                            }
+                        } finally {
+                            setupTimer.stop();
+                        }
+                        task.run(driver);
+                    } finally {
+                        Timer.Context teardownTimer = metrics.timer(MetricsRegistry.TEARDOWN).time();
+                        try {
+                            teardown();
+                        } finally {
+                            teardownTimer.stop();
+                        }
+                    }
+                    task = (background != null) ? next : schedule.next();
+                }
+            } finally {
+                quit();
+                discardStandby();
+            }
+            return null;
+        }
+    }
+}
@@ -14,13 +14,33 @@
 package com.addthis.hermes.framework;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import com.addthis.hermes.analysis.CompareCommand;
+import com.addthis.hermes.beacon.BeaconServer;
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.FixedDelayCompletion;
 import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.NetworkQuietCompletion;
 import com.addthis.hermes.configuration.SinglePageNavigator;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.distributed.Coordinator;
+import com.addthis.hermes.distributed.Worker;
+import com.addthis.hermes.history.HistoryCommand;
+import com.addthis.hermes.history.HistoryStore;
+import com.addthis.hermes.io.Journal;
+import com.addthis.hermes.io.ResultsFormat;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.statistics.IterationMetric;
+import com.addthis.hermes.statistics.StoppingRule;
+import com.addthis.hermes.store.StoreCommand;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -46,11 +66,12 @@ public class Main {
         Option help = Option.builder("h").longOpt("help")
                                    .desc("print this message").build();
         Option url = Option.builder("u").longOpt("url")
-                                  .hasArg().desc("url of the website to test. Required!")
-                                  .required().type(String.class).build();
+                                  .hasArg().desc("url of the website to test. Required unless --suite is used")
+                                  .type(String.class).build();
         Option outfile = Option.builder("o").argName("filename").longOpt("output")
-                                      .hasArg().desc("filename and path of output. Required!")
-                                      .required().build();
+                                      .hasArg().desc("filename and path of output. Required unless --suite " +
+                                                     "is used")
+                                      .build();
         Option iterations = Option.builder().argName("N").longOpt("iterations")
                                          .hasArg().desc("number of iterations. Default is " +
                                                         PerformanceTest.DEFAULT_NUMBER_ITERATIONS)
@@ -60,21 +81,116 @@ public class Main {
                                                        PerformanceTest.DEFAULT_USE_INCOGNITO_BROWSER)
                                         .type(Boolean.class).build();
         Option wait = Option.builder().argName("N").longOpt("wait")
-                                   .hasArg().desc("number of seconds to wait. Default is " +
+                                   .hasArg().desc("maximum number of seconds to wait. Default is " +
                                                   PerformanceTest.DEFAULT_PAGE_LOAD_WAIT_SECONDS)
                                    .type(Integer.class).build();
         Option reset = Option.builder().argName("true|false").longOpt("reset")
                                     .hasArg().desc("Close and reopen browser each iteration. Default is " +
                                                    PerformanceTest.DEFAULT_RESET_BETWEEN_ITERATIONS)
                                     .type(Boolean.class).build();
+        Option resetMode = Option.builder().argName("process_restart|state_clear|none").longOpt("reset-mode")
+                                        .hasArg().desc("how the browser is returned to a cold state between " +
+                                                       "iterations. Overrides --reset. Default is " +
+                                                       PerformanceTest.DEFAULT_RESET_MODE.name().toLowerCase())
+                                        .type(String.class).build();
+        Option standby = Option.builder().argName("true|false").longOpt("standby")
+                                      .hasArg().desc("launch the next browser while the current iteration " +
+                                                     "runs when using --reset. Default is " +
+                                                     PerformanceTest.DEFAULT_STANDBY_BROWSER)
+                                      .type(Boolean.class).build();
+        Option quiet = Option.builder().argName("N").longOpt("quiet")
+                                    .hasArg().desc("stop waiting once the page has loaded and no new resources " +
+                                                   "have appeared for N milliseconds. Default is to always " +
+                                                   "wait the full number of seconds")
+                                    .type(Long.class).build();
+        Option precision = Option.builder().argName("R").longOpt("precision")
+                                        .hasArg().desc("stop once the confidence interval of the metric is at " +
+                                                       "most R times its mean, e.g. 0.05. The number of " +
+                                                       "iterations becomes the maximum. Default is to run " +
+                                                       "every iteration")
+                                        .type(Double.class).build();
+        Option confidence = Option.builder().argName("P").longOpt("confidence")
+                                         .hasArg().desc("confidence level used with --precision. Default is " +
+                                                        StoppingRule.DEFAULT_CONFIDENCE)
+                                         .type(Double.class).build();
+        Option metric = Option.builder().argName("name").longOpt("metric")
+                                     .hasArg().desc("metric used with --precision: either a navigation timing " +
+                                                    "attribute measured from navigationStart or the url of a " +
+                                                    "resource whose responseEnd is measured. Default is " +
+                                                    NavigationTimingField.LOAD_EVENT_END.getPropertyName())
+                                     .type(String.class).build();
+        Option concurrency = Option.builder().argName("N").longOpt("concurrency")
+                                          .hasArg().desc("number of browsers running iterations in parallel. " +
+                                                         "Default is " + PerformanceTest.DEFAULT_CONCURRENCY)
+                                          .type(Integer.class).build();
+        Option versus = Option.builder().argName("url").longOpt("versus")
+                                     .hasArg().desc("compare the website against this website by interleaving " +
+                                                    "their iterations in random order. The output is the " +
+                                                    "comparison report and the number of iterations is per " +
+                                                    "website")
+                                     .type(String.class).build();
+        Option format = Option.builder().argName("json|binary").longOpt("format")
+                                     .hasArg().desc("format of the output file. Default is json")
+                                     .type(String.class).build();
+        Option resume = Option.builder().longOpt("resume")
+                                     .desc("continue an interrupted run from the journal next to the output file")
+                                     .build();
+        Option suite = Option.builder().argName("manifest").longOpt("suite")
+                                    .hasArg().desc("run every page of the JSON suite manifest in one process " +
+                                                   "with interleaved iterations. Each page is written to the " +
+                                                   "output named in the manifest")
+                                    .type(String.class).build();
+        Option listen = Option.builder().argName("port").longOpt("listen")
+                                     .hasArg().desc("coordinate workers connecting on this port instead of " +
+                                                    "running browsers. The iterations are split into shards " +
+                                                    "that are reassigned if their worker is lost")
+                                     .type(Integer.class).build();
+        Option shardSize = Option.builder().argName("N").longOpt("shard-size")
+                                        .hasArg().desc("number of iterations per shard used with --listen. " +
+                                                       "Default is " + Coordinator.DEFAULT_SHARD_SIZE)
+                                        .type(Integer.class).build();
+        Option worker = Option.builder().argName("host:port").longOpt("worker")
+                                     .hasArg().desc("run the shards sent by the coordinator at host:port. " +
+                                                    "Browser options apply to this worker")
+                                     .type(String.class).build();
+        Option metrics = Option.builder().argName("filename").longOpt("metrics")
+                                      .hasArg().desc("write the timers and counters of the harness itself in " +
+                                                     "the Prometheus text format once the run ends")
+                                      .type(String.class).build();
+        Option beacon = Option.builder().argName("port").longOpt("beacon")
+                                     .hasArg().desc("collect Resource Timing beacons from real users on this " +
+                                                    "port until the process is stopped. Statistics of the " +
+                                                    "rolling windows are served at /windows")
+                                     .type(Integer.class).build();
+        Option history = Option.builder().argName("directory").longOpt("history")
+                                      .hasArg().desc("record the summaries of the run in this history store " +
+                                                     "once the run ends. See the history command")
+                                      .type(String.class).build();
         Options options = new Options();
         options.addOption(help);
         options.addOption(url);
         options.addOption(outfile);
+        options.addOption(format);
+        options.addOption(resume);
         options.addOption(iterations);
         options.addOption(incognito);
         options.addOption(reset);
+        options.addOption(resetMode);
         options.addOption(wait);
+        options.addOption(standby);
+        options.addOption(quiet);
+        options.addOption(concurrency);
+        options.addOption(precision);
+        options.addOption(confidence);
+        options.addOption(metric);
+        options.addOption(versus);
+        options.addOption(suite);
+        options.addOption(listen);
+        options.addOption(shardSize);
+        options.addOption(worker);
+        options.addOption(metrics);
+        options.addOption(beacon);
+        options.addOption(history);
         return options;
     }
 
@@ -99,15 +215,102 @@ public class Main {
         }
     }
 
+    /**
+     * Interpret the metric option as a navigation timing
+     * attribute or else as the name of a resource.
+     */
+    private static IterationMetric parseMetric(String name) {
+        for (NavigationTimingField field : NavigationTimingField.values()) {
+            if (field.getPropertyName().equals(name)) {
+                return IterationMetric.navigation(NavigationTimingField.NAVIGATION_START, field);
+            }
+        }
+        return IterationMetric.resource(name, ResourceTimingField.RESPONSE_END);
+    }
+
+    /**
+     * Run the pages of a suite manifest. Settings in the manifest
+     * take precedence over defaults but not over explicit options.
+     */
+    private static void runSuite(CommandLine line, Path manifestPath, ResultsFormat format, int iterations,
+                                 int wait, boolean incognito, ResetMode resetMode, boolean standby,
+                                 int concurrency, CompletionStrategy completionStrategy)
+            throws IOException, InterruptedException {
+        SuiteManifest manifest = SuiteManifest.read(manifestPath);
+        List<PerformanceSuite.Page> pages = manifest.createPages(manifestPath.toAbsolutePath().getParent());
+        for (PerformanceSuite.Page page : pages) {
+            if (Files.exists(page.getOutputPath())) {
+                System.err.println("ERROR: The output file already exists " + page.getOutputPath());
+                System.exit(1);
+            }
+        }
+        if (manifest.getIterations() != null && !line.hasOption("iterations")) {
+            iterations = manifest.getIterations();
+        }
+        PerformanceSuite.Builder builder = new PerformanceSuite.Builder()
+                .setFormat(format)
+                .setIterations(iterations)
+                .setUseIncognitoBrowser(incognito)
+                .setPageLoadWait(wait)
+                .setCompletionStrategy(completionStrategy)
+                .setResetMode(resetMode)
+                .setStandbyBrowser(standby)
+                .setConcurrency(concurrency);
+        if (manifest.getScheduling() != null) {
+            builder.setScheduling(manifest.getScheduling());
+        }
+        if (manifest.getSeed() != null) {
+            builder.setSeed(manifest.getSeed());
+        }
+        for (PerformanceSuite.Page page : pages) {
+            builder.addPage(page);
+        }
+        PerformanceSuite performanceSuite = builder.build();
+        try {
+            performanceSuite.run();
+        } finally {
+            writeMetrics(line, performanceSuite.getMetrics());
+        }
+    }
+
+    /**
+     * Write the metrics of the harness if requested on the command line.
+     */
+    private static void writeMetrics(CommandLine line, MetricsRegistry metrics) throws IOException {
+        if (line.hasOption("metrics")) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(line.getOptionValue("metrics")),
+                                                         StandardCharsets.UTF_8)) {
+                metrics.writePrometheus(writer);
+            }
+        }
+    }
+
     /**
      * The main entry point into the application.
      *
-     * @param args see "-h" or "--h" for command line arguments
+     * @param args see "-h" or "--h" for command line arguments, or
+     *             a {@link StoreCommand}, the {@link CompareCommand} or the
+     *             {@link HistoryCommand} followed by its arguments
      * @throws IOException             if output files cannot be written
      * @throws InterruptedException    if thread is interrupted while sleeping
      */
     public static void main(String[] args) throws IOException, InterruptedException {
 
+        if (args.length > 0 && StoreCommand.isCommand(args[0])) {
+            StoreCommand.main(args);
+            return;
+        }
+
+        if (args.length > 0 && CompareCommand.isCommand(args[0])) {
+            CompareCommand.main(args);
+            return;
+        }
+
+        if (args.length > 0 && HistoryCommand.isCommand(args[0])) {
+            HistoryCommand.main(args);
+            return;
+        }
+
         Options options = createOptions();
         showHelpMessage(args, options);
         CommandLineParser parser = new DefaultParser();
@@ -119,14 +322,6 @@ public class Main {
             System.exit(1);
         }
 
-        String url = line.getOptionValue("url");
-        String outfile = line.getOptionValue("output");
-        Path writePath = Paths.get(outfile);
-
-        if (!url.startsWith("http")) {
-            url = "http://" + url;
-        }
-
         int iterations = Integer.parseInt(line.getOptionValue("iterations",
                                                               Integer.toString(
                                                                       PerformanceTest.DEFAULT_NUMBER_ITERATIONS)));
@@ -143,21 +338,160 @@ public class Main {
                 line.getOptionValue("incognito",
                                     Boolean.toString(PerformanceTest.DEFAULT_USE_INCOGNITO_BROWSER)));
 
-        if (Files.exists(writePath)) {
+        ResetMode resetMode = reset ? ResetMode.PROCESS_RESTART : ResetMode.NONE;
+        if (line.hasOption("reset-mode")) {
+            resetMode = ResetMode.valueOf(line.getOptionValue("reset-mode").toUpperCase());
+        }
+
+        boolean standby = Boolean.parseBoolean(
+                line.getOptionValue("standby",
+                                    Boolean.toString(PerformanceTest.DEFAULT_STANDBY_BROWSER)));
+
+        int concurrency = Integer.parseInt(line.getOptionValue("concurrency",
+                                                               Integer.toString(
+                                                                       PerformanceTest.DEFAULT_CONCURRENCY)));
+
+        ResultsFormat format = ResultsFormat.valueOf(line.getOptionValue("format", "json").toUpperCase());
+
+        CompletionStrategy completionStrategy;
+        if (line.hasOption("quiet")) {
+            completionStrategy = new NetworkQuietCompletion(Long.parseLong(line.getOptionValue("quiet")));
+        } else {
+            completionStrategy = new FixedDelayCompletion();
+        }
+
+        StoppingRule stoppingRule = null;
+        if (line.hasOption("precision")) {
+            stoppingRule = new StoppingRule(parseMetric(line.getOptionValue("metric",
+                                                NavigationTimingField.LOAD_EVENT_END.getPropertyName())),
+                                            Double.parseDouble(line.getOptionValue("confidence",
+                                                Double.toString(StoppingRule.DEFAULT_CONFIDENCE))),
+                                            Double.parseDouble(line.getOptionValue("precision")));
+        }
+
+        if (line.hasOption("suite")) {
+            runSuite(line, Paths.get(line.getOptionValue("suite")), format, iterations, wait, incognito,
+                     resetMode, standby, concurrency, completionStrategy);
+            return;
+        }
+
+        if (line.hasOption("beacon")) {
+            new BeaconServer.Builder()
+                    .setPort(Integer.parseInt(line.getOptionValue("beacon")))
+                    .build()
+                    .start();
+            Thread.currentThread().join();
+        }
+
+        if (line.hasOption("worker")) {
+            String address = line.getOptionValue("worker");
+            int separator = address.lastIndexOf(':');
+            if (separator < 0) {
+                System.err.println("ERROR: The --worker option must be host:port");
+                System.exit(1);
+            }
+            BrowserShardExecutor executor = new BrowserShardExecutor(null, incognito, resetMode, concurrency, standby);
+            try {
+                new Worker(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)),
+                           executor).run();
+            } finally {
+                writeMetrics(line, executor.getMetrics());
+            }
+            return;
+        }
+
+        if (!line.hasOption("url") || !line.hasOption("output")) {
+            System.err.println("ERROR: The --url and --output options are required");
+            System.exit(1);
+        }
+
+        String url = line.getOptionValue("url");
+        String outfile = line.getOptionValue("output");
+        Path writePath = Paths.get(outfile);
+
+        if (!url.startsWith("http")) {
+            url = "http://" + url;
+        }
+
+        boolean resume = line.hasOption("resume");
+        Path journalPath = Journal.journalPath(writePath);
+        if (resume && !Files.exists(journalPath)) {
+            System.err.println("ERROR: There is no journal to resume " + journalPath);
+            System.exit(1);
+        } else if (!resume && Files.exists(journalPath)) {
+            System.err.println("ERROR: An interrupted run can be resumed with --resume " + journalPath);
+            System.exit(1);
+        } else if (!resume && Files.exists(writePath)) {
             System.err.println("ERROR: The output file already exists " + outfile);
             System.exit(1);
         }
 
+        if (line.hasOption("listen")) {
+            Coordinator coordinator = new Coordinator.Builder()
+                    .setUrl(url)
+                    .setOutputPath(writePath)
+                    .setFormat(format)
+                    .setIterations(iterations)
+                    .setShardSize(Integer.parseInt(line.getOptionValue("shard-size",
+                            Integer.toString(Coordinator.DEFAULT_SHARD_SIZE))))
+                    .setPageLoadWait(wait)
+                    .setQuietMillis(line.hasOption("quiet") ? Long.parseLong(line.getOptionValue("quiet")) : null)
+                    .setPort(Integer.parseInt(line.getOptionValue("listen")))
+                    .build();
+            coordinator.run();
+            return;
+        }
+
         IdentityTransformer configuration = new IdentityTransformer();
         SinglePageNavigator navigator = new SinglePageNavigator(url);
+
+        if (line.hasOption("versus")) {
+            String versusUrl = line.getOptionValue("versus");
+            if (!versusUrl.startsWith("http")) {
+                versusUrl = "http://" + versusUrl;
+            }
+            ComparisonTest comparisonTest = new ComparisonTest.Builder(
+                    navigator, new SinglePageNavigator(versusUrl), configuration, writePath)
+                    .setIterations(iterations)
+                    .setUseIncognitoBrowser(incognito)
+                    .setPageLoadWait(wait)
+                    .setCompletionStrategy(completionStrategy)
+                    .setResetMode(resetMode)
+                    .setStandbyBrowser(standby)
+                    .setConcurrency(concurrency)
+                    .build();
+            try {
+                comparisonTest.run();
+            } finally {
+                writeMetrics(line, comparisonTest.getMetrics());
+            }
+            return;
+        }
+
         PerformanceTest performanceTest = new PerformanceTest.Builder(navigator, configuration, writePath)
+                .setFormat(format)
                 .setIterations(iterations)
                 .setUseIncognitoBrowser(incognito)
                 .setPageLoadWait(wait)
-                .setResetBetweenIterations(reset)
+                .setCompletionStrategy(completionStrategy)
+                .setResetMode(resetMode)
+                .setStandbyBrowser(standby)
+                .setConcurrency(concurrency)
+                .setStoppingRule(stoppingRule)
+                .setResume(resume)
                 .build();
 
-        performanceTest.run();
+        long started = System.currentTimeMillis();
+        try {
+            performanceTest.run();
+        } finally {
+            writeMetrics(line, performanceTest.getMetrics());
+        }
+        if (line.hasOption("history")) {
+            HistoryStore history = HistoryStore.open(Paths.get(line.getOptionValue("history")));
+            history.record(started, performanceTest.getStatistics());
+            history.rollup(System.currentTimeMillis());
+        }
     }
 
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+
+import java.util.concurrent.TimeUnit;
+
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.Navigator;
+import com.addthis.hermes.data.PerformanceSnapshot;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.IterationIds;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.metrics.Timer;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+
+/**
+ * Performs one iteration against a page: navigates, waits for the page
+ * to load, captures the performance entries, passes them through the
+ * {@link Manager} and passes the resulting {@link MeasurementTree}
+ * to a sink, typically the writer of the results file.
+ */
+final class PageRecorder {
+
+    private final Navigator navigator;
+
+    private final CompletionStrategy completionStrategy;
+
+    private final int pageLoadWait;
+
+    private final Manager manager;
+
+    private final IterationIds iterationIds;
+
+    @Nullable private final ResultsReader.IterationHandler sink;
+
+    private final MetricsRegistry metrics;
+
+    PageRecorder(Navigator navigator, CompletionStrategy completionStrategy, int pageLoadWait,
+                 Manager manager, IterationIds iterationIds, @Nullable ResultsReader.IterationHandler sink,
+                 MetricsRegistry metrics) {
+        this.navigator = navigator;
+        this.completionStrategy = completionStrategy;
+        this.pageLoadWait = pageLoadWait;
+        this.manager = manager;
+        this.iterationIds = iterationIds;
+        this.sink = sink;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Run one iteration with the browser.
+     *
+     * @return measurements of the iteration or null if nothing was captured
+     */
+    @Nullable
+    MeasurementTree record(ChromeDriver driver) throws IOException, InterruptedException {
+        Timer.Context navigate = metrics.timer(MetricsRegistry.NAVIGATE).time();
+        try {
+            navigator.navigate(driver);
+        } finally {
+            navigate.stop();
+        }
+        long timestamp = iterationIds.next();
+        Timer.Context wait = metrics.timer(MetricsRegistry.WAIT).time();
+        try {
+            completionStrategy.awaitCompletion(driver, pageLoadWait, TimeUnit.SECONDS);
+        } finally {
+            wait.stop();
+        }
+        PerformanceSnapshot snapshot;
+        Timer.Context capture = metrics.timer(MetricsRegistry.CAPTURE).time();
+        try {
+            snapshot = SnapshotCollector.collect(driver);
+        } finally {
+            capture.stop();
+        }
+        MeasurementTree results;
+        Timer.Context transform = metrics.timer(MetricsRegistry.TRANSFORM).time();
+        try {
+            manager.addNavigationTiming(timestamp, snapshot.getNavigation());
+            for (ResourceTiming measurement : snapshot.getEntries()) {
+                manager.addMeasurement(timestamp, measurement);
+            }
+            results = manager.removeMeasurements(timestamp);
+        } finally {
+            transform.stop();
+        }
+        metrics.counter(MetricsRegistry.RESOURCES).add(snapshot.getEntries().size());
+        if (results != null && sink != null) {
+            Timer.Context write = metrics.timer(MetricsRegistry.WRITE).time();
+            try {
+                sink.iteration(timestamp, results);
+            } finally {
+                write.stop();
+            }
+        }
+        return results;
+    }
+
+    Manager getManager() {
+        return manager;
+    }
+}
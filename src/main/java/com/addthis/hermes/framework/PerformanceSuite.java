@@ -0,0 +1,311 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.FixedDelayCompletion;
+import com.addthis.hermes.configuration.Navigator;
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.internal.IterationIds;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.io.ResultsFormat;
+import com.addthis.hermes.io.ResultsWriter;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.statistics.RunStatistics;
+
+import com.google.common.collect.ImmutableList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs a suite of pages in one process with shared browser
+ * infrastructure. The iterations of the pages are interleaved
+ * according to the {@link Scheduling}. Every page has its own
+ * {@link Navigator}, {@link Transformer} and output file, and
+ * its summary statistics are written next to its output file
+ * as with {@link PerformanceTest}.
+ */
+public class PerformanceSuite {
+
+    private static final Logger log = LoggerFactory.getLogger(PerformanceSuite.class);
+
+    /**
+     * Default order of the iterations of the pages.
+     * Can be overridden in the Builder options.
+     */
+    public static final Scheduling DEFAULT_SCHEDULING = Scheduling.ROUND_ROBIN;
+
+    /**
+     * One page of the suite.
+     */
+    public static class Page {
+
+        private final String name;
+
+        private final Navigator navigator;
+
+        private final Transformer transformer;
+
+        private final Path outputPath;
+
+        /**
+         * @param name        used in log messages
+         * @param navigator   what browser operations to execute
+         * @param transformer transformations that can be applied to the performance events
+         * @param outputPath  path to new file for output results
+         */
+        public Page(String name, Navigator navigator, Transformer transformer, Path outputPath) {
+            this.name = checkNotNull(name);
+            this.navigator = checkNotNull(navigator);
+            this.transformer = checkNotNull(transformer);
+            this.outputPath = checkNotNull(outputPath);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Navigator getNavigator() {
+            return navigator;
+        }
+
+        public Transformer getTransformer() {
+            return transformer;
+        }
+
+        public Path getOutputPath() {
+            return outputPath;
+        }
+    }
+
+    private final ImmutableList<Page> pages;
+
+    private final int iterations;
+
+    private final Scheduling scheduling;
+
+    private final long seed;
+
+    private final PageRecorder[] recorders;
+
+    private final ResultsWriter[] writers;
+
+    private final RunStatistics[] statistics;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private final IterationRunner runner;
+
+    private PerformanceSuite(List<Page> pages, CompletionStrategy completionStrategy, ResultsFormat format,
+                             ChromeOptions options, int iterations, int pageLoadWait, ResetMode resetMode,
+                             boolean useIncognitoBrowser, boolean standbyBrowser, int concurrency,
+                             Scheduling scheduling, long seed) {
+        checkArgument(!pages.isEmpty(), "suite has no pages");
+        checkNotNull(completionStrategy);
+        checkNotNull(format);
+        checkNotNull(scheduling);
+        checkArgument(iterations > 0);
+        checkArgument(pageLoadWait >= 0);
+        checkArgument(concurrency > 0);
+        this.pages = ImmutableList.copyOf(pages);
+        this.recorders = new PageRecorder[pages.size()];
+        this.writers = new ResultsWriter[pages.size()];
+        this.statistics = new RunStatistics[pages.size()];
+        IterationIds iterationIds = new IterationIds();
+        for (int i = 0; i < pages.size(); i++) {
+            Page page = pages.get(i);
+            Manager manager = new Manager(page.getTransformer());
+            statistics[i] = new RunStatistics();
+            manager.addListener(statistics[i]);
+            writers[i] = format.createWriter(page.getOutputPath());
+            recorders[i] = new PageRecorder(page.getNavigator(), completionStrategy, pageLoadWait,
+                                            manager, iterationIds, writers[i]::write, metrics);
+        }
+        this.runner = new IterationRunner(IterationRunner.browserOptions(options, useIncognitoBrowser),
+                                          resetMode, concurrency, standbyBrowser, metrics);
+        this.iterations = iterations;
+        this.scheduling = scheduling;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs every iteration of every page and records the
+     * results of each page to its own output file.
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException, InterruptedException {
+        int[] order = scheduling.order(pages.size(), iterations, new Random(seed));
+        AtomicInteger nextIteration = new AtomicInteger();
+        try {
+            runner.run(() -> {
+                int i = nextIteration.getAndIncrement();
+                if (i >= order.length) {
+                    return null;
+                }
+                log.info("Now starting iteration {} of {} ({})", i + 1, order.length,
+                         pages.get(order[i]).getName());
+                return recorders[order[i]]::record;
+            }, order.length);
+        } finally {
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+            for (int i = 0; i < writers.length; i++) {
+                writers[i].close();
+                if (writers[i].getCount() > 0) {
+                    mapper.writeValue(PerformanceTest.summaryPath(writers[i].getOutputPath()).toFile(),
+                                      statistics[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the timers and counters of the harness, shared by every page.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public List<Page> getPages() {
+        return pages;
+    }
+
+    /**
+     * Returns the summary statistics of a page accumulated so far.
+     *
+     * @param index position of the page in the suite
+     * @return summary statistics of the page
+     */
+    public RunStatistics getStatistics(int index) {
+        return statistics[index];
+    }
+
+    @SuppressWarnings("unused")
+    public static class Builder {
+
+        private final List<Page> pages = new ArrayList<>();
+
+        private CompletionStrategy completionStrategy = new FixedDelayCompletion();
+
+        private ResultsFormat format = ResultsFormat.JSON;
+
+        private int iterations = PerformanceTest.DEFAULT_NUMBER_ITERATIONS;
+
+        private int pageLoadWait = PerformanceTest.DEFAULT_PAGE_LOAD_WAIT_SECONDS;
+
+        private ResetMode resetMode = PerformanceTest.DEFAULT_RESET_MODE;
+
+        private boolean useIncognitoBrowser = PerformanceTest.DEFAULT_USE_INCOGNITO_BROWSER;
+
+        private boolean standbyBrowser = PerformanceTest.DEFAULT_STANDBY_BROWSER;
+
+        private int concurrency = PerformanceTest.DEFAULT_CONCURRENCY;
+
+        private Scheduling scheduling = DEFAULT_SCHEDULING;
+
+        private long seed = System.nanoTime();
+
+        private ChromeOptions options;
+
+        public Builder addPage(Page page) {
+            this.pages.add(page);
+            return this;
+        }
+
+        public Builder setCompletionStrategy(CompletionStrategy completionStrategy) {
+            this.completionStrategy = completionStrategy;
+            return this;
+        }
+
+        public Builder setFormat(ResultsFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Number of iterations of each page.
+         */
+        public Builder setIterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        public Builder setPageLoadWait(int pageLoadWait) {
+            this.pageLoadWait = pageLoadWait;
+            return this;
+        }
+
+        public Builder setOptions(ChromeOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        public Builder setResetMode(ResetMode resetMode) {
+            this.resetMode = resetMode;
+            return this;
+        }
+
+        public Builder setUseIncognitoBrowser(boolean incognito) {
+            this.useIncognitoBrowser = incognito;
+            return this;
+        }
+
+        public Builder setStandbyBrowser(boolean standby) {
+            this.standbyBrowser = standby;
+            return this;
+        }
+
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public Builder setScheduling(Scheduling scheduling) {
+            this.scheduling = scheduling;
+            return this;
+        }
+
+        /**
+         * Seed of the {@link Scheduling#RANDOM} order of the iterations.
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public PerformanceSuite build() {
+            return new PerformanceSuite(pages, completionStrategy, format, options, iterations, pageLoadWait,
+                                        resetMode, useIncognitoBrowser, standbyBrowser, concurrency,
+                                        scheduling, seed);
+        }
+    }
+}
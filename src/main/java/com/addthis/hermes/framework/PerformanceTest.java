@@ -14,26 +14,30 @@
 package com.addthis.hermes.framework;
 
 import javax.annotation.Nullable;
+import javax.management.ObjectName;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.nio.file.Path;
 
+import com.addthis.hermes.analysis.PhaseBreakdown;
+import com.addthis.hermes.configuration.CompletionStrategy;
+import com.addthis.hermes.configuration.FixedDelayCompletion;
 import com.addthis.hermes.configuration.IdentityTransformer;
 import com.addthis.hermes.configuration.Navigator;
 import com.addthis.hermes.configuration.SinglePageNavigator;
 import com.addthis.hermes.configuration.Transformer;
-import com.addthis.hermes.data.NavigationTiming;
-import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.IterationIds;
 import com.addthis.hermes.internal.Manager;
 import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.Journal;
+import com.addthis.hermes.io.JournaledResultsWriter;
+import com.addthis.hermes.io.ResultsFormat;
+import com.addthis.hermes.metrics.MetricsRegistry;
+import com.addthis.hermes.statistics.RunStatistics;
+import com.addthis.hermes.statistics.StoppingRule;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -41,8 +45,6 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.Duration;
-import org.openqa.selenium.support.ui.Sleeper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,13 +58,23 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * tools interface (https://developer.chrome.com/devtools/docs/network).
  * The network performance events are recorded to a JSON formatted gzip-compressed
  * output file that can be analyzed and graphed with the provided graph.py
- * python script.
+ * python script. Alternatively the results can be written in the compact
+ * {@link ResultsFormat#BINARY} format and converted with the
+ * {@link com.addthis.hermes.io.ResultsConverter}. Each iteration is appended to the output file as soon as it
+ * has been captured and also recorded durably in a {@link Journal} next
+ * to the output file (see {@link Journal#journalPath(Path)}). If the run is
+ * interrupted it can be resumed from the journal, which is removed once
+ * the run completes. Summary statistics of every resource and navigation timing
+ * attribute are accumulated during the run and written next to the output file
+ * (see {@link #summaryPath(Path)}) when the run ends, together with the
+ * {@link PhaseBreakdown} of the resources (see {@link PhaseBreakdown#breakdownPath(Path)}).
  * <p/>
  * The {@link Navigator} interface
  * specifies what browser operations to execute. The
  * {@link Transformer} interface
  * specifies optional transformations that can be applied to the performance events
- * prior to writing them to the file.
+ * prior to writing them to the file. The {@link CompletionStrategy}
+ * interface specifies how long to wait for the page to finish loading.
  * <p/>
  * The {@link SinglePageNavigator} class is provided
  * for measuring the network events resulting from loading a single specified webpage.
@@ -80,7 +92,8 @@ public class PerformanceTest {
     public static final int DEFAULT_NUMBER_ITERATIONS = 10;
 
     /**
-     * Default number of seconds to wait before retrieving network performance events from the browser.
+     * Default upper bound on the number of seconds to wait before retrieving network
+     * performance events from the browser. The {@link CompletionStrategy} may stop waiting sooner.
      * Can be overridden in the Builder options.
      */
     public static final int DEFAULT_PAGE_LOAD_WAIT_SECONDS = 30;
@@ -91,135 +104,203 @@ public class PerformanceTest {
      */
     public static final boolean DEFAULT_RESET_BETWEEN_ITERATIONS = true;
 
+    /**
+     * Default strategy for returning the browser to a cold state between
+     * experiments. Consistent with {@link #DEFAULT_RESET_BETWEEN_ITERATIONS}.
+     * Can be overridden in the Builder options.
+     */
+    public static final ResetMode DEFAULT_RESET_MODE = ResetMode.PROCESS_RESTART;
+
     /**
      * Default option on whether to conduct the experiments in an incognito browser.
      * Can be overridden in the Builder options.
      */
     public static final boolean DEFAULT_USE_INCOGNITO_BROWSER = true;
 
-    private final Navigator navigator;
+    /**
+     * Default option on whether to launch the browser for the next iteration
+     * while the current iteration runs. Only applies to {@link ResetMode#PROCESS_RESTART}.
+     * Off by default because the launch competes with the measured page for CPU time.
+     * Can be overridden in the Builder options.
+     */
+    public static final boolean DEFAULT_STANDBY_BROWSER = false;
+
+    /**
+     * Default number of browser instances that run iterations in parallel.
+     * Can be overridden in the Builder options.
+     */
+    public static final int DEFAULT_CONCURRENCY = 1;
 
     private final int iterations;
 
-    private final int pageLoadWait;
+    private final JournaledResultsWriter writer;
+
+    private final boolean resume;
 
-    private final Path outputPath;
+    private final Path summaryPath;
 
-    private final ChromeOptions options;
+    private final RunStatistics statistics;
 
-    @Nullable private ChromeDriver driver;
+    private final PhaseBreakdown phases;
 
-    private final Manager manager;
+    private final MetricsRegistry metrics = new MetricsRegistry();
 
-    private final boolean resetBetweenIterations;
+    private final PageRecorder recorder;
 
-    private PerformanceTest(Navigator navigator, Transformer transformer,
-                            Path outputPath, ChromeOptions options, int iterations, int pageLoadWait,
-                            boolean resetBetweenIterations, boolean useIncognitoBrowser) {
+    private final IterationRunner runner;
+
+    @Nullable private final StoppingRule stoppingRule;
+
+    private PerformanceTest(Navigator navigator, Transformer transformer, CompletionStrategy completionStrategy,
+                            Path outputPath, ResultsFormat format, ChromeOptions options, int iterations,
+                            int pageLoadWait, ResetMode resetMode, boolean useIncognitoBrowser,
+                            boolean standbyBrowser, int concurrency, @Nullable StoppingRule stoppingRule,
+                            boolean resume) {
         checkNotNull(navigator);
         checkNotNull(transformer);
+        checkNotNull(completionStrategy);
         checkArgument(iterations > 0);
         checkArgument(pageLoadWait >= 0);
+        checkArgument(concurrency > 0);
         checkNotNull(outputPath);
-        if (useIncognitoBrowser) {
-            if (options == null) {
-                options = new ChromeOptions();
-            }
-            options.addArguments("--incognito");
-        }
-        this.manager = new Manager(transformer);
-        this.navigator = navigator;
-        this.outputPath = outputPath;
-        this.options = options;
+        checkNotNull(format);
+        Manager manager = new Manager(transformer);
+        this.writer = new JournaledResultsWriter(format.createWriter(outputPath),
+                                                 new Journal(Journal.journalPath(outputPath), resume));
+        this.resume = resume;
+        this.summaryPath = summaryPath(outputPath);
+        this.statistics = new RunStatistics();
+        manager.addListener(statistics);
+        this.phases = new PhaseBreakdown();
+        manager.addListener(phases);
+        this.recorder = new PageRecorder(navigator, completionStrategy, pageLoadWait,
+                                         manager, new IterationIds(), writer::write, metrics);
+        this.runner = new IterationRunner(IterationRunner.browserOptions(options, useIncognitoBrowser),
+                                          resetMode, concurrency, standbyBrowser, metrics);
         this.iterations = iterations;
-        this.pageLoadWait = pageLoadWait;
-        this.resetBetweenIterations = resetBetweenIterations;
+        this.stoppingRule = stoppingRule;
     }
 
-    private void setup() {
-        if (driver == null) {
-            driver = (options != null) ? new ChromeDriver(options) : new ChromeDriver();
+    private void capture(ChromeDriver driver) throws IOException, InterruptedException {
+        MeasurementTree results = recorder.record(driver);
+        if (results != null && stoppingRule != null) {
+            stoppingRule.record(results);
         }
     }
 
-    private List<ResourceTiming> generateResourceTimingEvents() throws IOException {
-        String scriptToExecute = "var performance = window.performance || window.mozPerformance || " +
-                                 "window.msPerformance || window.webkitPerformance || {}; " +
-                                 "var network = performance.getEntries() || {}; return JSON.stringify(network);";
-        String netData = driver.executeScript(scriptToExecute).toString();
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(netData,
-                    mapper.getTypeFactory().constructCollectionType(
-                            List.class, ResourceTiming.class));
-        } catch (IOException ex) {
-            log.error("Unable to deserialize JSON results: {}", netData, ex);
-            throw ex;
+    private boolean isStopped() {
+        if (stoppingRule != null && stoppingRule.isSatisfied()) {
+            log.info("Confidence interval of {} samples is {} of the mean (target {})",
+                     stoppingRule.getSamples(), stoppingRule.getRelativeWidth(), stoppingRule.getTargetWidth());
+            return true;
         }
+        return false;
     }
 
-    private NavigationTiming generateNavigationTimingEvent() throws IOException {
-        String scriptToExecute = "var network = window.performance.timing || {}; return JSON.stringify(network);";
-        String netData = driver.executeScript(scriptToExecute).toString();
+    /**
+     * Runs a series of experiments and record the results to a file.
+     * When the concurrency is greater than one the iterations are
+     * divided among that many independent browser instances. When
+     * a {@link StoppingRule} has been specified the experiments end
+     * as soon as the rule is satisfied and the number of iterations
+     * is only an upper bound. When the test resumes an interrupted
+     * run the iterations in the journal are written to the output file
+     * again and count towards the number of iterations. While the test
+     * runs the {@link MetricsRegistry} of the harness is exposed over JMX
+     * and afterwards it is written next to the output file.
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException, InterruptedException {
+        boolean complete = false;
+        ObjectName objectName = metrics.register(writer.getOutputPath().getFileName().toString());
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(netData, NavigationTiming.class);
-        } catch (IOException ex) {
-            log.error("Unable to deserialize JSON results: {}", netData, ex);
-            throw ex;
+            runIterations(resume ? replayJournal() : 0);
+            complete = true;
+        } finally {
+            MetricsRegistry.unregister(objectName);
+            writer.close();
+            writeSummary();
+        }
+        if (complete) {
+            writer.getJournal().delete();
         }
     }
 
-    private void capture() throws IOException, InterruptedException {
-        long timestamp = System.currentTimeMillis();
-        Sleeper.SYSTEM_SLEEPER.sleep(new Duration(pageLoadWait, TimeUnit.SECONDS));
-        List<ResourceTiming> measurements = generateResourceTimingEvents();
-        NavigationTiming navigationTiming = generateNavigationTimingEvent();
-        manager.addNavigationTiming(timestamp, navigationTiming);
-        for (ResourceTiming measurement : measurements) {
-            manager.addMeasurement(timestamp, measurement);
-        }
+    private int replayJournal() throws IOException {
+        Manager manager = recorder.getManager();
+        long replayed = writer.replay((id, measurements) -> {
+            manager.replay(id, measurements);
+            if (stoppingRule != null) {
+                stoppingRule.record(measurements);
+            }
+        });
+        log.info("Resumed {} iterations from {}", replayed, writer.getJournal().getPath());
+        return (int) replayed;
     }
 
-    private void teardown() {
-        if (resetBetweenIterations && driver != null) {
-            driver.quit();
-            driver = null;
+    private void writeSummary() throws IOException {
+        if (writer.getCount() > 0) {
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+            mapper.writeValue(summaryPath.toFile(), statistics);
+            mapper.writeValue(PhaseBreakdown.breakdownPath(writer.getOutputPath()).toFile(), phases);
+            metrics.writeSummary(MetricsRegistry.summaryPath(writer.getOutputPath()));
         }
     }
 
     /**
-     * Runs a series of experiments and record the results to a file.
+     * Returns the path of the summary statistics that are
+     * written next to the specified results file.
      *
-     * @throws IOException
+     * @param outputPath path of the results file
+     * @return path of the summary statistics file
      */
-    public void run() throws IOException, InterruptedException {
+    public static Path summaryPath(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + ".summary.json");
+    }
 
-        try {
-            for (int i = 0; i < iterations; i++) {
-                log.info("Now starting iteration {} of {}", i + 1, iterations);
-                try {
-                    setup();
-                    navigator.navigate(driver);
-                    capture();
-                } finally {
-                    teardown();
-                }
+    /**
+     * Returns the summary statistics accumulated so far.
+     *
+     * @return summary statistics of the run
+     */
+    public RunStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the phases of the resources accumulated so far.
+     *
+     * @return phase breakdown of the run
+     */
+    public PhaseBreakdown getPhases() {
+        return phases;
+    }
+
+    /**
+     * Returns the timers and counters of the harness itself.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private void runIterations(int completed) throws IOException, InterruptedException {
+        if (completed >= iterations || isStopped()) {
+            return;
+        }
+        AtomicInteger nextIteration = new AtomicInteger(completed);
+        runner.run(() -> {
+            if (isStopped()) {
+                return null;
             }
-        } finally {
-            Map<Long, MeasurementTree> measurements = manager.getMeasurements();
-            if (measurements.size() > 0) {
-                ObjectMapper mapper = new ObjectMapper();
-                mapper.enable(SerializationFeature.INDENT_OUTPUT);
-                mapper.enable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
-                String results = mapper.writeValueAsString(measurements);
-                FileOutputStream fos = new FileOutputStream(outputPath.toFile());
-                GZIPOutputStream gzos = new GZIPOutputStream(fos);
-                try (PrintWriter writer = new PrintWriter(gzos)) {
-                    writer.append(results);
-                }
+            int i = nextIteration.getAndIncrement();
+            if (i >= iterations) {
+                return null;
             }
-        }
+            log.info("Now starting iteration {} of {}", i + 1, iterations);
+            return this::capture;
+        }, iterations - completed);
     }
 
     @SuppressWarnings("unused")
@@ -229,16 +310,28 @@ public class PerformanceTest {
 
         private Transformer transformer;
 
+        private CompletionStrategy completionStrategy = new FixedDelayCompletion();
+
         private Path outputPath;
 
+        private ResultsFormat format = ResultsFormat.JSON;
+
         private int iterations = DEFAULT_NUMBER_ITERATIONS;
 
         private int pageLoadWait = DEFAULT_PAGE_LOAD_WAIT_SECONDS;
 
-        private boolean resetBetweenIterations = DEFAULT_RESET_BETWEEN_ITERATIONS;
+        private ResetMode resetMode = DEFAULT_RESET_MODE;
 
         private boolean useIncognitoBrowser = DEFAULT_USE_INCOGNITO_BROWSER;
 
+        private boolean standbyBrowser = DEFAULT_STANDBY_BROWSER;
+
+        private int concurrency = DEFAULT_CONCURRENCY;
+
+        private StoppingRule stoppingRule;
+
+        private boolean resume;
+
         private ChromeOptions options;
 
         /**
@@ -279,11 +372,29 @@ public class PerformanceTest {
             return this;
         }
 
+        /**
+         * Decides when the page has finished loading. The
+         * page load wait is the upper bound on the time
+         * given to the completion strategy.
+         */
+        public Builder setCompletionStrategy(CompletionStrategy completionStrategy) {
+            this.completionStrategy = completionStrategy;
+            return this;
+        }
+
         public Builder setOutputPath(Path outputPath) {
             this.outputPath = outputPath;
             return this;
         }
 
+        /**
+         * Format of the output file. Default is JSON.
+         */
+        public Builder setFormat(ResultsFormat format) {
+            this.format = format;
+            return this;
+        }
+
         public Builder setIterations(int iterations) {
             this.iterations = iterations;
             return this;
@@ -299,8 +410,20 @@ public class PerformanceTest {
             return this;
         }
 
+        /**
+         * Restart the browser between iterations or keep it.
+         * Equivalent to {@link ResetMode#PROCESS_RESTART} or {@link ResetMode#NONE}.
+         */
         public Builder setResetBetweenIterations(boolean reset) {
-            this.resetBetweenIterations = reset;
+            this.resetMode = reset ? ResetMode.PROCESS_RESTART : ResetMode.NONE;
+            return this;
+        }
+
+        /**
+         * How the browser is returned to a cold state between iterations.
+         */
+        public Builder setResetMode(ResetMode resetMode) {
+            this.resetMode = resetMode;
             return this;
         }
 
@@ -309,9 +432,52 @@ public class PerformanceTest {
             return this;
         }
 
+        /**
+         * Launch the browser for the next iteration in the background
+         * while the current iteration runs and quit browsers in the
+         * background. Only applies to {@link ResetMode#PROCESS_RESTART}.
+         * Launching a browser competes for processor time with the page
+         * that is being measured, so only enable this on hosts with
+         * processors to spare.
+         */
+        public Builder setStandbyBrowser(boolean standby) {
+            this.standbyBrowser = standby;
+            return this;
+        }
+
+        /**
+         * Number of independent browser instances that run
+         * iterations in parallel. When greater than one the
+         * navigator and transformer must be safe for use
+         * by multiple threads.
+         */
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * End the test once the stopping rule is satisfied. The
+         * number of iterations becomes the maximum number of iterations.
+         */
+        public Builder setStoppingRule(StoppingRule stoppingRule) {
+            this.stoppingRule = stoppingRule;
+            return this;
+        }
+
+        /**
+         * Continue an interrupted run from the journal next to
+         * the output file. The output file is rewritten.
+         */
+        public Builder setResume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
         public PerformanceTest build() {
-            return new PerformanceTest(navigator, transformer, outputPath,
-                                       options, iterations, pageLoadWait, resetBetweenIterations, useIncognitoBrowser);
+            return new PerformanceTest(navigator, transformer, completionStrategy, outputPath,
+                                       format, options, iterations, pageLoadWait, resetMode,
+                                       useIncognitoBrowser, standbyBrowser, concurrency, stoppingRule, resume);
         }
     }
 }
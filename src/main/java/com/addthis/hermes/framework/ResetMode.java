@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+/**
+ * How the browser is returned to a cold state between iterations.
+ */
+public enum ResetMode {
+    /**
+     * Quit the browser after every iteration and launch a new one.
+     * The most faithful cold start and the most expensive.
+     */
+    PROCESS_RESTART,
+    /**
+     * Keep the browser running and clear its state through the Chrome
+     * DevTools Protocol: the HTTP cache, cookies, and the storage, cache
+     * storage and service workers of every origin the page loaded.
+     * DevTools offers no command to close the socket pool or to flush
+     * the host resolver cache, so idle connections and DNS entries from
+     * the previous iteration may be reused. Use {@link #PROCESS_RESTART}
+     * when connection setup must be part of the measurement.
+     */
+    STATE_CLEAR,
+    /**
+     * Keep the browser and its state. Later iterations measure a warm cache.
+     */
+    NONE
+}
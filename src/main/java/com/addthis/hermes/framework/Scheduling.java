@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.util.Random;
+
+/**
+ * The order in which the iterations of several pages are run.
+ * Interleaving spreads drift in the network or the host over
+ * every page instead of biasing whichever page ran at the time.
+ */
+public enum Scheduling {
+    /**
+     * One iteration of every page in turn.
+     */
+    ROUND_ROBIN {
+        @Override
+        int[] order(int pages, int iterations, Random random) {
+            int[] order = new int[pages * iterations];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i % pages;
+            }
+            return order;
+        }
+    },
+    /**
+     * A random permutation of the iterations of every page.
+     */
+    RANDOM {
+        @Override
+        int[] order(int pages, int iterations, Random random) {
+            int[] order = ROUND_ROBIN.order(pages, iterations, random);
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            return order;
+        }
+    };
+
+    /**
+     * Returns the index of the page of every iteration
+     * with each page appearing the specified number of times.
+     */
+    abstract int[] order(int pages, int iterations, Random random);
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.io.IOException;
+
+import com.addthis.hermes.data.PerformanceSnapshot;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retrieves the navigation timing and the performance entries
+ * of the current page with a single script execution. The page
+ * serializes everything into one string which is then parsed by
+ * a shared reader that is bound to {@link PerformanceSnapshot}.
+ */
+final class SnapshotCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCollector.class);
+
+    private static final String SCRIPT = "var performance = window.performance || window.mozPerformance || " +
+                                         "window.msPerformance || window.webkitPerformance || {}; " +
+                                         "return JSON.stringify({" +
+                                         "navigation: performance.timing || {}, " +
+                                         "entries: (performance.getEntries && performance.getEntries()) || []" +
+                                         "});";
+
+    private static final ObjectReader READER = new ObjectMapper()
+            .reader(PerformanceSnapshot.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private SnapshotCollector() {}
+
+    static PerformanceSnapshot collect(ChromeDriver driver) throws IOException {
+        String netData = driver.executeScript(SCRIPT).toString();
+        try {
+            return READER.readValue(netData);
+        } catch (IOException ex) {
+            log.error("Unable to deserialize JSON results: {}", netData, ex);
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.Navigator;
+import com.addthis.hermes.configuration.SinglePageNavigator;
+import com.addthis.hermes.configuration.Transformer;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON description of a {@link PerformanceSuite}:
+ * <pre>
+ * {
+ *   "iterations": 10,
+ *   "scheduling": "random",
+ *   "seed": 42,
+ *   "pages": [
+ *     {"name": "home", "url": "http://www.example.com/", "output": "home.gz"},
+ *     {"name": "checkout", "navigator": "com.example.CheckoutNavigator",
+ *      "transformer": "com.example.ShopTransformer", "output": "checkout.gz"}
+ *   ]
+ * }
+ * </pre>
+ * A page is visited with a {@link SinglePageNavigator} when it has a url and
+ * with an instance of the named {@link Navigator} class otherwise. The
+ * transformer defaults to the {@link IdentityTransformer}. Named classes
+ * must have a public no-argument constructor. Relative output paths are
+ * resolved against the directory of the manifest. Every property other
+ * than the pages is optional and falls back to the command line options.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SuiteManifest {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PageEntry {
+
+        @JsonProperty
+        @Nullable
+        private String name;
+
+        @JsonProperty
+        @Nullable
+        private String url;
+
+        @JsonProperty
+        @Nullable
+        private String navigator;
+
+        @JsonProperty
+        @Nullable
+        private String transformer;
+
+        @JsonProperty
+        @Nullable
+        private String output;
+    }
+
+    @JsonProperty
+    @Nullable
+    private Integer iterations;
+
+    @JsonProperty
+    @Nullable
+    private String scheduling;
+
+    @JsonProperty
+    @Nullable
+    private Long seed;
+
+    @JsonProperty
+    private List<PageEntry> pages = new ArrayList<>();
+
+    public static SuiteManifest read(Path path) throws IOException {
+        return new ObjectMapper().readValue(path.toFile(), SuiteManifest.class);
+    }
+
+    /**
+     * Create the pages of the suite.
+     *
+     * @param directory resolves relative output paths
+     * @return pages in manifest order
+     * @throws IllegalArgumentException if a page is incomplete or a class cannot be instantiated
+     */
+    public List<PerformanceSuite.Page> createPages(Path directory) {
+        List<PerformanceSuite.Page> result = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            PageEntry entry = pages.get(i);
+            if (entry.output == null) {
+                throw new IllegalArgumentException("page " + (i + 1) + " has no output");
+            }
+            Navigator navigator;
+            if (entry.url != null) {
+                navigator = new SinglePageNavigator(entry.url);
+            } else if (entry.navigator != null) {
+                navigator = instantiate(entry.navigator, Navigator.class);
+            } else {
+                throw new IllegalArgumentException("page " + (i + 1) + " has neither a url nor a navigator");
+            }
+            Transformer transformer = (entry.transformer != null) ?
+                                      instantiate(entry.transformer, Transformer.class) :
+                                      new IdentityTransformer();
+            String name = (entry.name != null) ? entry.name : (entry.url != null) ? entry.url : entry.navigator;
+            result.add(new PerformanceSuite.Page(name, navigator, transformer, directory.resolve(entry.output)));
+        }
+        return result;
+    }
+
+    static <T> T instantiate(String className, Class<T> type) {
+        try {
+            return Class.forName(className).asSubclass(type).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new IllegalArgumentException("Unable to create " + type.getSimpleName() + " " + className, ex);
+        }
+    }
+
+    @Nullable
+    public Integer getIterations() {
+        return iterations;
+    }
+
+    @Nullable
+    public Scheduling getScheduling() {
+        return (scheduling != null) ? Scheduling.valueOf(scheduling.toUpperCase()) : null;
+    }
+
+    @Nullable
+    public Long getSeed() {
+        return seed;
+    }
+}
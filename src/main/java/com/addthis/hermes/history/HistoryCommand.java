@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Command line interface of the {@link HistoryStore}:
+ * <pre>
+ * history record &lt;store&gt; &lt;results&gt;... [options]
+ * history query &lt;store&gt; [options]
+ * </pre>
+ * Recording a run also rolls up the points that have aged past
+ * the retention of their tier. The query prints the matching
+ * series as JSON.
+ */
+public class HistoryCommand {
+
+    public static final String HISTORY = "history";
+
+    public static final String RECORD = "record";
+
+    public static final String QUERY = "query";
+
+    private HistoryCommand() {}
+
+    /**
+     * Returns true if the argument names the history command.
+     *
+     * @param command first command line argument
+     * @return true for the history command
+     */
+    public static boolean isCommand(String command) {
+        return HISTORY.equals(command);
+    }
+
+    private static Options createOptions() {
+        Option series = Option.builder().argName("regex").longOpt("series")
+                                     .hasArg().desc("only series whose name contains a match of the regex, " +
+                                                    "such as navigation/loadEventEnd or resource/duration/")
+                                     .build();
+        Option from = Option.builder().argName("time").longOpt("from")
+                                   .hasArg().desc("only points at or after the time, in epoch " +
+                                                  "milliseconds or ISO-8601")
+                                   .build();
+        Option to = Option.builder().argName("time").longOpt("to")
+                                 .hasArg().desc("only points before the time, in epoch milliseconds " +
+                                                "or ISO-8601")
+                                 .build();
+        Option resolution = Option.builder().argName("duration").longOpt("resolution")
+                                         .hasArg().desc("merge the points into buckets of this ISO-8601 " +
+                                                        "duration, such as PT1H or P1D")
+                                         .build();
+        Option rawRetention = Option.builder().argName("duration").longOpt("raw-retention")
+                                           .hasArg().desc("age after which raw points are rolled up into " +
+                                                          "hourly points. Default is P7D")
+                                           .build();
+        Option hourlyRetention = Option.builder().argName("duration").longOpt("hourly-retention")
+                                              .hasArg().desc("age after which hourly points are rolled up " +
+                                                             "into daily points. Default is P90D")
+                                              .build();
+        Options options = new Options();
+        options.addOption(series);
+        options.addOption(from);
+        options.addOption(to);
+        options.addOption(resolution);
+        options.addOption(rawRetention);
+        options.addOption(hourlyRetention);
+        return options;
+    }
+
+    private static long parseTime(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return Instant.parse(value).toEpochMilli();
+        }
+    }
+
+    private static void usage(Options options) {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("page-racer history record <store> <results>... | history query <store> [options]",
+                            options);
+        System.exit(1);
+    }
+
+    /**
+     * Open the store with the retention of the command line options.
+     *
+     * @param directory location of the store
+     * @param line      parsed options
+     * @return the store
+     * @throws IOException if the directory cannot be created
+     */
+    public static HistoryStore open(Path directory, CommandLine line) throws IOException {
+        long rawRetention = line.hasOption("raw-retention") ?
+                            Duration.parse(line.getOptionValue("raw-retention")).toMillis() :
+                            HistoryStore.DEFAULT_RAW_RETENTION;
+        long hourlyRetention = line.hasOption("hourly-retention") ?
+                               Duration.parse(line.getOptionValue("hourly-retention")).toMillis() :
+                               HistoryStore.DEFAULT_HOURLY_RETENTION;
+        return HistoryStore.open(directory, rawRetention, hourlyRetention);
+    }
+
+    static HistoryQuery parseQuery(CommandLine line) {
+        HistoryQuery.Builder builder = new HistoryQuery.Builder();
+        if (line.hasOption("series")) {
+            builder.setSeriesPattern(Pattern.compile(line.getOptionValue("series")));
+        }
+        long from = line.hasOption("from") ? parseTime(line.getOptionValue("from")) : Long.MIN_VALUE;
+        long to = line.hasOption("to") ? parseTime(line.getOptionValue("to")) : Long.MAX_VALUE;
+        builder.setTimeRange(from, to);
+        if (line.hasOption("resolution")) {
+            builder.setResolution(Duration.parse(line.getOptionValue("resolution")).toMillis());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Run a history command.
+     *
+     * @param args the history command followed by the subcommand and its arguments
+     * @throws IOException if the store cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = createOptions();
+        if (args.length < 3 || !isCommand(args[0]) || !(RECORD.equals(args[1]) || QUERY.equals(args[1]))) {
+            usage(options);
+        }
+        CommandLine line = null;
+        try {
+            line = new DefaultParser().parse(options, Arrays.copyOfRange(args, 3, args.length));
+        } catch (ParseException ex) {
+            System.err.println("Parsing failed.  Reason: " + ex.getMessage());
+            System.exit(1);
+        }
+        HistoryStore store = open(Paths.get(args[2]), line);
+        if (RECORD.equals(args[1])) {
+            for (String results : line.getArgs()) {
+                long count = store.recordResults(Paths.get(results));
+                System.out.println("Recorded " + count + " iterations from " + results);
+            }
+            int rolled = store.rollup(System.currentTimeMillis());
+            if (rolled > 0) {
+                System.out.println("Rolled up " + rolled + " partitions");
+            }
+            return;
+        }
+        List<HistorySeries> results = store.query(parseQuery(line));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(System.out, results);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import com.addthis.hermes.statistics.Summary;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The summary of one series over the interval that
+ * starts at the time of the point and lasts its resolution.
+ */
+@JsonPropertyOrder({"time", "resolution", "summary"})
+public class HistoryPoint {
+
+    @JsonProperty
+    private final long time;
+
+    @JsonProperty
+    private final long resolution;
+
+    @JsonProperty
+    private final Summary summary;
+
+    HistoryPoint(long time, long resolution, Summary summary) {
+        this.time = time;
+        this.resolution = resolution;
+        this.summary = summary;
+    }
+
+    /**
+     * Returns the start of the point in epoch milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the milliseconds covered by the point,
+     * or zero if it is the summary of a single run.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    public Summary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Selects series of a {@link HistoryStore} by name pattern and range of
+ * time, and optionally merges their points into coarser buckets.
+ */
+public class HistoryQuery {
+
+    private final Pattern seriesPattern;
+
+    private final long from;
+
+    private final long to;
+
+    private final long resolution;
+
+    private HistoryQuery(Pattern seriesPattern, long from, long to, long resolution) {
+        checkNotNull(seriesPattern);
+        checkArgument(from <= to, "from must not be after to");
+        checkArgument(resolution >= 0, "resolution must not be negative");
+        this.seriesPattern = seriesPattern;
+        this.from = from;
+        this.to = to;
+        this.resolution = resolution;
+    }
+
+    boolean matches(String series) {
+        return seriesPattern.matcher(series).find();
+    }
+
+    boolean overlaps(long start, long end) {
+        return start < to && end > from;
+    }
+
+    public Pattern getSeriesPattern() {
+        return seriesPattern;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    public static class Builder {
+
+        private Pattern seriesPattern = Pattern.compile("");
+
+        private long from = Long.MIN_VALUE;
+
+        private long to = Long.MAX_VALUE;
+
+        private long resolution;
+
+        /**
+         * Only select series whose name contains a match of the pattern.
+         */
+        public Builder setSeriesPattern(Pattern seriesPattern) {
+            this.seriesPattern = seriesPattern;
+            return this;
+        }
+
+        /**
+         * Only select points whose time in epoch milliseconds is in the range [from, to).
+         */
+        public Builder setTimeRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        /**
+         * Merge the points into buckets of this many milliseconds.
+         * The default of zero returns the points as they are stored.
+         */
+        public Builder setResolution(long resolution) {
+            this.resolution = resolution;
+            return this;
+        }
+
+        public HistoryQuery build() {
+            return new HistoryQuery(seriesPattern, from, to, resolution);
+        }
+    }
+}
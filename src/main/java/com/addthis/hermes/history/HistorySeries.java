@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The points of one series that matched a {@link HistoryQuery}.
+ */
+@JsonPropertyOrder({"series", "points"})
+public class HistorySeries {
+
+    @JsonProperty
+    private final String series;
+
+    @JsonProperty
+    private final List<HistoryPoint> points;
+
+    HistorySeries(String series, List<HistoryPoint> points) {
+        this.series = series;
+        this.points = points;
+    }
+
+    public String getSeries() {
+        return series;
+    }
+
+    /**
+     * Returns the points in ascending order of time.
+     */
+    public List<HistoryPoint> getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.statistics.ResourceMetric;
+import com.addthis.hermes.statistics.RunStatistics;
+import com.addthis.hermes.statistics.Summary;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A directory of the summaries of past runs that answers trend queries
+ * without reading the results files again. Every run is recorded as one
+ * raw point per series: one series per navigation timing attribute and one
+ * per {@link ResourceMetric} of every resource name (see
+ * {@link #navigationSeries(NavigationTimingField)} and
+ * {@link #resourceSeries(String, ResourceMetric)}). A point holds the
+ * {@link Summary} of the series, including its quantile sketch, so that
+ * points can be merged without losing the quantiles. When the points of a
+ * {@link Tier} are older than the retention of the tier a {@link #rollup(long)}
+ * merges them into the points of the next tier: raw points into hourly
+ * points and hourly points into daily points. Daily points are kept forever.
+ * Each tier is a subdirectory with one {@link Partition} file per partition
+ * of time, and a query reads only the partitions that overlap its range.
+ * <p/>
+ * Recording and rollups hold a lock on the {@link #LOCK_FILE} of the
+ * directory, so runs that finish together can share a store. A rollup
+ * replaces each source partition in three steps: the merged targets are
+ * staged next to their partitions, the source is renamed to a tombstone,
+ * which commits the rollup of that source, and then the staged targets are
+ * moved into place and the tombstone is deleted. If the process dies
+ * part way, the next rollup completes a committed source and discards the
+ * staged targets of an uncommitted one, so no point is merged twice.
+ * Queries do not take the lock.
+ */
+public class HistoryStore {
+
+    /**
+     * Default age after which raw points are rolled up into hourly points.
+     */
+    public static final long DEFAULT_RAW_RETENTION = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * Default age after which hourly points are rolled up into daily points.
+     */
+    public static final long DEFAULT_HOURLY_RETENTION = TimeUnit.DAYS.toMillis(90);
+
+    static final String PARTITION_SUFFIX = ".points";
+
+    static final String TOMBSTONE_SUFFIX = ".rolled";
+
+    static final String LOCK_FILE = "rollup.lock";
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * File locks are held by the process, so the stores of one
+     * directory within this process also synchronize on one monitor.
+     */
+    private static final ConcurrentMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    private final long rawRetention;
+
+    private final long hourlyRetention;
+
+    private final Object monitor;
+
+    private HistoryStore(Path directory, long rawRetention, long hourlyRetention) {
+        this.directory = directory;
+        this.monitor = MONITORS.computeIfAbsent(directory.toAbsolutePath().normalize(), key -> new Object());
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+    }
+
+    public static HistoryStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_RAW_RETENTION, DEFAULT_HOURLY_RETENTION);
+    }
+
+    /**
+     * Open the store in the directory, creating the directory if necessary.
+     *
+     * @param directory       location of the store
+     * @param rawRetention    milliseconds after which raw points are rolled up
+     * @param hourlyRetention milliseconds after which hourly points are rolled up
+     * @return the store
+     * @throws IOException if the directory cannot be created
+     */
+    public static HistoryStore open(Path directory, long rawRetention, long hourlyRetention) throws IOException {
+        checkArgument(rawRetention >= 0);
+        checkArgument(hourlyRetention >= 0);
+        for (Tier tier : Tier.values()) {
+            Files.createDirectories(directory.resolve(tier.getDirectoryName()));
+        }
+        return new HistoryStore(directory, rawRetention, hourlyRetention);
+    }
+
+    public static String navigationSeries(NavigationTimingField field) {
+        return "navigation/" + field.getPropertyName();
+    }
+
+    public static String resourceSeries(String name, ResourceMetric metric) {
+        return "resource/" + metric.getPropertyName() + "/" + name;
+    }
+
+    /**
+     * Record the summaries of a run as raw points.
+     *
+     * @param timestamp  time of the run in epoch milliseconds
+     * @param statistics summaries of the run
+     * @return number of points recorded
+     * @throws IOException if the partition cannot be written
+     */
+    public int record(long timestamp, RunStatistics statistics) throws IOException {
+        Map<String, NavigableMap<Long, Summary>> points = new TreeMap<>();
+        for (NavigationTimingField field : NavigationTimingField.values()) {
+            add(points, navigationSeries(field), timestamp, statistics.getNavigation(field));
+        }
+        for (String name : statistics.getResourceNames()) {
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                add(points, resourceSeries(name, metric), timestamp, statistics.getResource(name, metric));
+            }
+        }
+        if (!points.isEmpty()) {
+            synchronized (monitor) {
+                try (FileChannel lock = openLock()) {
+                    lock.lock();
+                    Partition.append(partitionPath(Tier.RAW, Tier.RAW.partitionStart(timestamp)), points);
+                }
+            }
+        }
+        return points.size();
+    }
+
+    private static void add(Map<String, NavigableMap<Long, Summary>> points, String series, long timestamp,
+                            Summary summary) {
+        if (summary != null && summary.getCount() > 0) {
+            points.computeIfAbsent(series, key -> new TreeMap<>()).put(timestamp, summary);
+        }
+    }
+
+    /**
+     * Record a results file of either format as one run. The time
+     * of the run is the id of the earliest iteration.
+     *
+     * @param resultsPath results file
+     * @return number of iterations recorded
+     * @throws IOException if the results cannot be read or the partition cannot be written
+     */
+    public long recordResults(Path resultsPath) throws IOException {
+        RunStatistics statistics = new RunStatistics();
+        Manager manager = new Manager(new IdentityTransformer());
+        manager.addListener(statistics);
+        long[] earliest = {Long.MAX_VALUE};
+        ResultsReader.read(resultsPath, (id, measurements) -> {
+            earliest[0] = Math.min(earliest[0], id);
+            manager.replay(id, measurements);
+        });
+        if (statistics.getIterations() > 0) {
+            record(earliest[0], statistics);
+        }
+        return statistics.getIterations();
+    }
+
+    /**
+     * Merge every partition whose points are all older than the retention
+     * of its tier into the next tier and delete it.
+     *
+     * @param now current time in epoch milliseconds
+     * @return number of partitions that were rolled up
+     * @throws IOException if a partition cannot be read or written
+     */
+    public int rollup(long now) throws IOException {
+        synchronized (monitor) {
+            try (FileChannel lock = openLock()) {
+                lock.lock();
+                return rollupPartitions(now);
+            }
+        }
+    }
+
+    private FileChannel openLock() throws IOException {
+        return FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private int rollupPartitions(long now) throws IOException {
+        int rolled = 0;
+        for (Tier tier = Tier.RAW; tier.next() != null; tier = tier.next()) {
+            Tier next = tier.next();
+            recover(tier, next);
+            long cutoff = now - getRetention(tier);
+            for (Path path : getPartitions(tier)) {
+                if (partitionStart(path) + tier.getPartitionLength() > cutoff) {
+                    continue;
+                }
+                Map<Long, Map<String, NavigableMap<Long, Summary>>> targets = new TreeMap<>();
+                Partition.read(path, (series, timestamp, summary) -> {
+                    long point = next.truncate(timestamp);
+                    merge(targets.computeIfAbsent(next.partitionStart(point), key -> new TreeMap<>()),
+                          series, point, summary);
+                });
+                List<Path> staged = new ArrayList<>(targets.size());
+                for (Map.Entry<Long, Map<String, NavigableMap<Long, Summary>>> target : targets.entrySet()) {
+                    Path targetPath = partitionPath(next, target.getKey());
+                    Map<String, NavigableMap<Long, Summary>> points = target.getValue();
+                    if (Files.exists(targetPath)) {
+                        Partition.read(targetPath, (series, timestamp, summary) ->
+                                merge(points, series, timestamp, summary));
+                    }
+                    staged.add(Partition.stage(targetPath, points));
+                }
+                Path tombstone = path.resolveSibling(path.getFileName() + TOMBSTONE_SUFFIX);
+                Files.move(path, tombstone, StandardCopyOption.ATOMIC_MOVE);
+                for (Path stagedPath : staged) {
+                    promote(stagedPath);
+                }
+                Files.delete(tombstone);
+                rolled++;
+            }
+        }
+        return rolled;
+    }
+
+    /**
+     * Finish or undo a rollup from the tier into the next tier that was
+     * interrupted. A tombstone means that the source was committed, so its
+     * staged targets are moved into place. Otherwise the staged targets
+     * belong to a source that is still in place and are discarded.
+     */
+    private void recover(Tier tier, Tier next) throws IOException {
+        List<Path> tombstones = list(tier, "*" + PARTITION_SUFFIX + TOMBSTONE_SUFFIX);
+        for (Path stagedPath : list(next, "*" + PARTITION_SUFFIX + Partition.STAGED_SUFFIX)) {
+            if (tombstones.isEmpty()) {
+                Files.delete(stagedPath);
+            } else {
+                promote(stagedPath);
+            }
+        }
+        for (Path tombstone : tombstones) {
+            Files.delete(tombstone);
+        }
+    }
+
+    private static void promote(Path stagedPath) throws IOException {
+        String name = stagedPath.getFileName().toString();
+        Path path = stagedPath.resolveSibling(name.substring(0, name.length() - Partition.STAGED_SUFFIX.length()));
+        Files.move(stagedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void merge(Map<String, NavigableMap<Long, Summary>> points, String series, long timestamp,
+                              Summary summary) {
+        NavigableMap<Long, Summary> values = points.computeIfAbsent(series, key -> new TreeMap<>());
+        Summary existing = values.get(timestamp);
+        if (existing == null) {
+            values.put(timestamp, summary);
+        } else {
+            existing.merge(summary);
+        }
+    }
+
+    /**
+     * Returns the points of every series that matches the query,
+     * read from every tier.
+     *
+     * @param query selects the series and the points
+     * @return one result per matching series sorted by name
+     * @throws IOException if a partition cannot be read
+     */
+    public List<HistorySeries> query(HistoryQuery query) throws IOException {
+        Map<String, List<HistoryPoint>> series = new TreeMap<>();
+        for (Tier tier : Tier.values()) {
+            for (Path path : getPartitions(tier)) {
+                long start = partitionStart(path);
+                if (!query.overlaps(start, start + tier.getPartitionLength())) {
+                    continue;
+                }
+                Partition.read(path, (name, timestamp, summary) -> {
+                    if (timestamp >= query.getFrom() && timestamp < query.getTo() && query.matches(name)) {
+                        series.computeIfAbsent(name, key -> new ArrayList<>())
+                              .add(new HistoryPoint(timestamp, tier.getResolution(), summary));
+                    }
+                });
+            }
+        }
+        List<HistorySeries> results = new ArrayList<>(series.size());
+        for (Map.Entry<String, List<HistoryPoint>> entry : series.entrySet()) {
+            List<HistoryPoint> points = entry.getValue();
+            points.sort(Comparator.comparingLong(HistoryPoint::getTime));
+            if (query.getResolution() > 0) {
+                points = resample(points, query.getResolution());
+            }
+            results.add(new HistorySeries(entry.getKey(), points));
+        }
+        return results;
+    }
+
+    private static List<HistoryPoint> resample(List<HistoryPoint> points, long resolution) {
+        NavigableMap<Long, Summary> buckets = new TreeMap<>();
+        Map<Long, Long> resolutions = new TreeMap<>();
+        for (HistoryPoint point : points) {
+            long bucket = Math.floorDiv(point.getTime(), resolution) * resolution;
+            buckets.computeIfAbsent(bucket, key -> new Summary()).merge(point.getSummary());
+            resolutions.merge(bucket, Math.max(resolution, point.getResolution()), Math::max);
+        }
+        List<HistoryPoint> resampled = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, Summary> bucket : buckets.entrySet()) {
+            resampled.add(new HistoryPoint(bucket.getKey(), resolutions.get(bucket.getKey()), bucket.getValue()));
+        }
+        return resampled;
+    }
+
+    private long getRetention(Tier tier) {
+        switch (tier) {
+            case RAW:
+                return rawRetention;
+            case HOURLY:
+                return hourlyRetention;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    private Path partitionPath(Tier tier, long start) {
+        String name = LocalDate.ofEpochDay(Math.floorDiv(start, DAY)).toString();
+        return directory.resolve(tier.getDirectoryName()).resolve(name + PARTITION_SUFFIX);
+    }
+
+    private static long partitionStart(Path path) {
+        String name = path.getFileName().toString();
+        return LocalDate.parse(name.substring(0, name.length() - PARTITION_SUFFIX.length())).toEpochDay() * DAY;
+    }
+
+    /**
+     * Returns the partition files of a tier in ascending order of time.
+     *
+     * @param tier resolution of the points
+     * @return partition paths
+     * @throws IOException if the directory cannot be read
+     */
+    public List<Path> getPartitions(Tier tier) throws IOException {
+        return list(tier, "*" + PARTITION_SUFFIX);
+    }
+
+    private List<Path> list(Tier tier, String glob) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.resolve(tier.getDirectoryName()),
+                                                                     glob)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.addthis.hermes.statistics.Summary;
+
+import com.google.common.io.CountingInputStream;
+
+/**
+ * One file of points of a {@link Tier}. The file starts with the
+ * {@link #MAGIC} bytes and the format version, followed by one record per
+ * point: the timestamp, the series and the {@link Summary} of the point.
+ * New raw points are appended to the file. If the process dies while
+ * appending, the incomplete record at the end of the file is ignored when
+ * it is read and cut off before the next append. Rolled up partitions are
+ * replaced as a whole: the new file is staged next to the partition and
+ * moved into place by the {@link HistoryStore}.
+ */
+final class Partition {
+
+    static final byte[] MAGIC = {'H', 'R', 'M', 'H'};
+
+    static final int VERSION = 1;
+
+    static final String STAGED_SUFFIX = ".staged";
+
+    private static final int HEADER_SIZE = MAGIC.length + 4;
+
+    private static final int MAX_SERIES_LENGTH = 1 << 20;
+
+    /**
+     * Receives the points of a partition.
+     */
+    interface PointHandler {
+        void point(String series, long timestamp, Summary summary);
+    }
+
+    private Partition() {}
+
+    /**
+     * Append points to the partition, creating the file if necessary.
+     *
+     * @param path   partition file
+     * @param points summaries by series and timestamp
+     */
+    static void append(Path path, Map<String, NavigableMap<Long, Summary>> points) throws IOException {
+        boolean created = !Files.exists(path);
+        if (!created) {
+            long length = read(path, (series, timestamp, summary) -> {});
+            if (length < Files.size(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(length);
+                }
+            }
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            if (created) {
+                writeHeader(output);
+            }
+            writePoints(output, points);
+        }
+    }
+
+    /**
+     * Write the replacement of the partition next to it.
+     * The partition itself is left unchanged.
+     *
+     * @param path   partition file
+     * @param points summaries by series and timestamp
+     * @return the staged file
+     */
+    static Path stage(Path path, Map<String, NavigableMap<Long, Summary>> points) throws IOException {
+        Path staged = path.resolveSibling(path.getFileName() + STAGED_SUFFIX);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(staged)))) {
+            writeHeader(output);
+            writePoints(output, points);
+        }
+        return staged;
+    }
+
+    private static void writeHeader(DataOutputStream output) throws IOException {
+        output.write(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    private static void writePoints(DataOutputStream output, Map<String, NavigableMap<Long, Summary>> points)
+            throws IOException {
+        for (Map.Entry<String, NavigableMap<Long, Summary>> series : points.entrySet()) {
+            byte[] name = series.getKey().getBytes(StandardCharsets.UTF_8);
+            for (Map.Entry<Long, Summary> point : series.getValue().entrySet()) {
+                output.writeLong(point.getKey());
+                output.writeInt(name.length);
+                output.write(name);
+                point.getValue().writeTo(output);
+            }
+        }
+    }
+
+    /**
+     * Pass every complete point of the partition to the handler.
+     *
+     * @param path    partition file
+     * @param handler receives the points in the order they were written
+     * @return length of the complete records including the header
+     */
+    static long read(Path path, PointHandler handler) throws IOException {
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(
+                Files.newInputStream(path)))) {
+            DataInputStream input = new DataInputStream(counter);
+            byte[] magic = new byte[MAGIC.length];
+            input.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a history partition " + path);
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported partition version " + version + " in " + path);
+            }
+            long length = HEADER_SIZE;
+            while (true) {
+                String series;
+                long timestamp;
+                Summary summary;
+                try {
+                    timestamp = input.readLong();
+                    int size = input.readInt();
+                    if (size < 0 || size > MAX_SERIES_LENGTH) {
+                        throw new IOException("Invalid series length " + size + " in " + path);
+                    }
+                    byte[] name = new byte[size];
+                    input.readFully(name);
+                    series = new String(name, StandardCharsets.UTF_8);
+                    summary = Summary.readFrom(input);
+                } catch (EOFException ex) {
+                    return length;
+                }
+                handler.point(series, timestamp, summary);
+                length = counter.getCount();
+            }
+        }
+    }
+}
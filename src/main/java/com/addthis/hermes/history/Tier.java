@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import javax.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The resolutions at which a {@link HistoryStore} keeps points. Raw points
+ * are the summaries of single runs. As the points age they are merged into
+ * hourly and then daily points. Each tier is divided into partitions of
+ * a fixed length of time, one file per partition.
+ */
+public enum Tier {
+    RAW(0, TimeUnit.DAYS.toMillis(1)),
+    HOURLY(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(30)),
+    DAILY(TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(360));
+
+    private final long resolution;
+
+    private final long partitionLength;
+
+    Tier(long resolution, long partitionLength) {
+        this.resolution = resolution;
+        this.partitionLength = partitionLength;
+    }
+
+    /**
+     * Returns the start of the point that a timestamp belongs to.
+     *
+     * @param timestamp epoch milliseconds
+     * @return the timestamp rounded down to the resolution
+     */
+    public long truncate(long timestamp) {
+        return (resolution > 0) ? Math.floorDiv(timestamp, resolution) * resolution : timestamp;
+    }
+
+    long partitionStart(long timestamp) {
+        return Math.floorDiv(timestamp, partitionLength) * partitionLength;
+    }
+
+    /**
+     * Returns the milliseconds covered by one point, or zero for raw points.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    public long getPartitionLength() {
+        return partitionLength;
+    }
+
+    /**
+     * Returns the tier that points are rolled up into,
+     * or null for the coarsest tier.
+     */
+    @Nullable
+    public Tier next() {
+        return (ordinal() + 1 < values().length) ? values()[ordinal() + 1] : null;
+    }
+
+    String getDirectoryName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Interns category paths as the nodes of a trie so that every distinct
+ * path is represented by one shared node with a dense integer id. Ids are
+ * assigned in order of first appearance and the root, the empty path,
+ * has the id zero. A path is resolved iteratively and resolving a path
+ * that has been seen before allocates nothing. Many {@link MeasurementTree}s
+ * can share one index and store their measurements by node id.
+ * This class is safe for use by multiple threads.
+ */
+public final class CategoryIndex {
+
+    /**
+     * One interned category path.
+     */
+    public static final class Node {
+
+        private final int id;
+
+        private final String name;
+
+        private final Node parent;
+
+        private final int depth;
+
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        private Node(int id, String name, Node parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+            this.depth = (parent != null) ? parent.depth + 1 : 0;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the last element of the path or the empty string for the root.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the parent node or null for the root.
+         */
+        public Node getParent() {
+            return parent;
+        }
+
+        /**
+         * Returns the length of the path.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        Collection<Node> getChildren() {
+            return children.values();
+        }
+    }
+
+    private final Node root = new Node(0, "", null);
+
+    private int size = 1;
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the node of a path, creating it if necessary.
+     *
+     * @param path category names from the top level down
+     * @return node of the path
+     */
+    public Node resolve(String... path) {
+        return resolve(root, path);
+    }
+
+    /**
+     * Returns the node of a path relative to another node.
+     *
+     * @param from node the path starts from
+     * @param path category names below that node
+     * @return node of the path
+     */
+    public Node resolve(Node from, String... path) {
+        Node node = from;
+        for (String name : path) {
+            node = child(node, name);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the child of a node, creating it if necessary.
+     *
+     * @param parent parent node
+     * @param name   name of the category
+     * @return child node
+     */
+    public Node child(Node parent, String name) {
+        Node child = parent.children.get(name);
+        if (child == null) {
+            checkNotNull(name);
+            synchronized (this) {
+                child = parent.children.get(name);
+                if (child == null) {
+                    child = new Node(size++, name, parent);
+                    parent.children.put(name, child);
+                }
+            }
+        }
+        return child;
+    }
+
+    /**
+     * Returns the number of nodes including the root.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the keys that identify each iteration in the output.
+ * The keys remain millisecond timestamps so that existing results
+ * files and tools keep working, but they are guaranteed to be unique
+ * and strictly increasing even when several iterations begin within
+ * the same millisecond on different threads.
+ */
+public class IterationIds {
+
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Returns the current time in milliseconds, or one
+     * millisecond after the previously issued id if the
+     * current time has already been claimed.
+     *
+     * @return unique iteration id
+     */
+    public long next() {
+        return next(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the specified timestamp, or one millisecond after the
+     * previously issued id if the timestamp has already been claimed.
+     * Used to merge iterations that were timestamped elsewhere.
+     *
+     * @param timestamp proposed iteration id
+     * @return unique iteration id
+     */
+    public long next(long timestamp) {
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(timestamp, previous + 1);
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+}
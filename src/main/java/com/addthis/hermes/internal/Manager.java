@@ -13,56 +13,215 @@
  */
 package com.addthis.hermes.internal;
 
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import com.addthis.hermes.configuration.Transformer;
 import com.addthis.hermes.data.NavigationTiming;
 import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.StringDictionary;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
+/**
+ * Applies the {@link Transformer} to incoming measurements and
+ * stores them by iteration. Measurements for different iterations
+ * may be added concurrently from multiple threads. The measurements
+ * of any single iteration must be added by one thread at a time.
+ * <p/>
+ * The same resource names repeat in every iteration so the outcome
+ * of the ignore patterns and the search and replace patterns is
+ * memoized in a bounded cache keyed by the original name. All
+ * iterations encode their strings with one shared {@link StringDictionary}.
+ * <p/>
+ * A manager that does not retain measurements only transforms them and
+ * notifies the listeners. It never touches the shared dictionary or the
+ * category index, so its memory is bounded by the name cache. Long lived
+ * consumers that only listen, such as the beacon server, must use one.
+ */
 public class Manager {
 
+    /**
+     * Default maximum number of distinct resource names
+     * whose transformations are cached.
+     */
+    public static final int DEFAULT_NAME_CACHE_SIZE = 10_000;
+
     private final Transformer transformer;
 
-    private final Map<Long, MeasurementTree> data;
+    private final Pattern[] ignorePatterns;
+
+    private final Pattern[] searchPatterns;
+
+    private final String[] replaceStrings;
+
+    private final boolean deterministicCategories;
+
+    private final LoadingCache<String, TransformedName> names;
+
+    private final StringDictionary dictionary;
+
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+
+    private final ConcurrentMap<Long, MeasurementTree> data;
+
+    private final List<MeasurementListener> listeners;
+
+    private final boolean retain;
 
     public Manager(Transformer transformer) {
+        this(transformer, DEFAULT_NAME_CACHE_SIZE);
+    }
+
+    public Manager(Transformer transformer, int nameCacheSize) {
+        this(transformer, nameCacheSize, true);
+    }
+
+    /**
+     * @param transformer   transformations applied to the measurements
+     * @param nameCacheSize maximum number of cached name transformations
+     * @param retain        if false then measurements are only passed to the listeners
+     */
+    public Manager(Transformer transformer, int nameCacheSize, boolean retain) {
         this.transformer = transformer;
-        this.data = new HashMap<>();
+        this.ignorePatterns = transformer.getIgnorePatterns();
+        this.searchPatterns = transformer.getSearchPatterns();
+        this.replaceStrings = transformer.getReplacementStrings();
+        this.deterministicCategories = transformer.hasDeterministicCategories();
+        this.names = CacheBuilder.newBuilder()
+                                 .maximumSize(nameCacheSize)
+                                 .build(new CacheLoader<String, TransformedName>() {
+                                     @Override
+                                     public TransformedName load(String name) {
+                                         return transform(name);
+                                     }
+                                 });
+        this.dictionary = new StringDictionary();
+        this.data = new ConcurrentSkipListMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.retain = retain;
     }
 
-    public void addNavigationTiming(long timestamp, NavigationTiming navigationTiming) {
+    /**
+     * Register a listener that is notified of every
+     * measurement after it has been transformed.
+     *
+     * @param listener receives the measurements
+     */
+    public void addListener(MeasurementListener listener) {
+        listeners.add(listener);
+    }
+
+    private MeasurementTree getOrCreate(long timestamp) {
         MeasurementTree measurements = data.get(timestamp);
         if (measurements == null) {
-            measurements = new MeasurementTree();
-            data.put(timestamp, measurements);
+            MeasurementTree created = new MeasurementTree(dictionary, categoryIndex);
+            measurements = data.putIfAbsent(timestamp, created);
+            if (measurements == null) {
+                measurements = created;
+            }
         }
-        measurements.setNavigation(navigationTiming);
+        return measurements;
     }
 
-    public void addMeasurement(long timestamp, ResourceTiming measurement) {
-        String name = measurement.getName();
-        Pattern[] ignorePatterns = transformer.getIgnorePatterns();
-        Pattern[] searchPatterns = transformer.getSearchPatterns();
-        String[] replaceStrings = transformer.getReplacementStrings();
+    public void addNavigationTiming(long timestamp, NavigationTiming navigationTiming) {
+        if (retain) {
+            getOrCreate(timestamp).setNavigation(navigationTiming);
+        }
+        for (MeasurementListener listener : listeners) {
+            listener.navigationTiming(timestamp, navigationTiming);
+        }
+    }
+
+    private TransformedName transform(String name) {
         for (Pattern ignorePattern : ignorePatterns) {
             if (ignorePattern.matcher(name).find()) {
-                return;
+                return TransformedName.IGNORED;
             }
         }
         for (int i = 0; i < searchPatterns.length; i++) {
             name = searchPatterns[i].matcher(name).replaceFirst(replaceStrings[i]);
         }
-        ResourceTiming modified = new ResourceTiming.Builder(measurement).setName(name).build();
-        String[] categories = transformer.generateCategories(modified);
-        MeasurementTree measurements = data.get(timestamp);
-        if (measurements == null) {
-            measurements = new MeasurementTree();
-            data.put(timestamp, measurements);
+        return new TransformedName(name, null);
+    }
+
+    public void addMeasurement(long timestamp, ResourceTiming measurement) {
+        String original = measurement.getName();
+        TransformedName transformed = names.getUnchecked(original);
+        if (transformed.isIgnored()) {
+            return;
+        }
+        ResourceTiming modified = measurement;
+        if (!transformed.name.equals(original)) {
+            modified = new ResourceTiming.Builder(measurement).setName(transformed.name).build();
+        }
+        String[] categories = transformed.categories;
+        if (categories == null) {
+            categories = transformer.generateCategories(modified);
+            if (deterministicCategories) {
+                names.put(original, new TransformedName(transformed.name, categories));
+            }
+        }
+        if (retain) {
+            getOrCreate(timestamp).addMeasurement(modified, categories);
+        }
+        for (MeasurementListener listener : listeners) {
+            listener.measurement(timestamp, categories, modified);
+        }
+    }
+
+    /**
+     * Notifies the listeners of an iteration that was recorded earlier,
+     * such as one reloaded from a journal. The measurements have already
+     * been transformed and are not stored.
+     *
+     * @param timestamp    iteration id
+     * @param measurements measurements of the iteration
+     */
+    public void replay(long timestamp, MeasurementTree measurements) {
+        NavigationTiming navigation = measurements.getNavigation();
+        if (navigation != null) {
+            for (MeasurementListener listener : listeners) {
+                listener.navigationTiming(timestamp, navigation);
+            }
         }
-        measurements.addMeasurement(modified, categories);
+        replay(timestamp, measurements, new ArrayList<>());
+    }
+
+    private void replay(long timestamp, MeasurementTree node, List<String> path) {
+        String[] categories = path.toArray(new String[path.size()]);
+        for (ResourceTiming measurement : node.getMeasurements()) {
+            for (MeasurementListener listener : listeners) {
+                listener.measurement(timestamp, categories, measurement);
+            }
+        }
+        for (Map.Entry<String, MeasurementTree> category : node.getCategories().entrySet()) {
+            path.add(category.getKey());
+            replay(timestamp, category.getValue(), path);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * Removes and returns the measurements of a single iteration.
+     * Used to release an iteration once it has been written out.
+     *
+     * @param timestamp iteration id
+     * @return measurements of the iteration or null if none were recorded
+     */
+    @Nullable
+    public MeasurementTree removeMeasurements(long timestamp) {
+        return data.remove(timestamp);
     }
 
     /**
@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+
+/**
+ * Receives every measurement accepted by a {@link Manager} after the
+ * transformations have been applied. Listeners are called from the
+ * threads that add measurements and must be safe for use by multiple threads.
+ */
+public interface MeasurementListener {
+
+    public void navigationTiming(long timestamp, NavigationTiming navigation);
+
+    public void measurement(long timestamp, String[] categories, ResourceTiming measurement);
+
+}
@@ -15,36 +15,118 @@ package com.addthis.hermes.internal;
 
 import javax.annotation.Nullable;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.addthis.hermes.data.NavigationTiming;
 import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.StringDictionary;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The measurements of one iteration organized by category.
+ * Measurements are stored in {@link ResourceTimingColumns}
+ * and every node of a tree shares one {@link StringDictionary}.
+ * <p/>
+ * Category paths are interned in a {@link CategoryIndex} that can be
+ * shared by the trees of many iterations. A tree only stores the columns
+ * of the category nodes it uses, indexed by node id, so inserting a
+ * measurement resolves its path iteratively without allocating per level.
+ * A category of a tree is a view onto the storage of the whole tree and
+ * the tree is serialized as nested {@code categories} and
+ * {@code measurements} objects as before.
+ */
+@JsonPropertyOrder({"categories", "measurements", "navigation"})
 public class MeasurementTree {
 
-    @JsonProperty
-    private final Map<String, MeasurementTree> categories;
+    /**
+     * Storage of one iteration shared by the root and its category views.
+     */
+    private static final class Storage {
 
-    @JsonProperty
-    private final List<ResourceTiming> measurements;
+        final StringDictionary dictionary;
 
-    @JsonProperty
-    @Nullable
-    private NavigationTiming navigation;
+        ResourceTimingColumns[] columns = new ResourceTimingColumns[8];
+
+        boolean[] present = new boolean[8];
+
+        @Nullable NavigationTiming navigation;
+
+        @Nullable private ResourceTimingColumns empty;
+
+        Storage(StringDictionary dictionary) {
+            this.dictionary = dictionary;
+            this.present[0] = true;
+        }
+
+        void ensureCapacity(int id) {
+            if (id >= present.length) {
+                int capacity = Math.max(id + 1, present.length * 2);
+                columns = Arrays.copyOf(columns, capacity);
+                present = Arrays.copyOf(present, capacity);
+            }
+        }
+
+        /**
+         * Returns the read-only measurements of every node without any.
+         */
+        ResourceTimingColumns empty() {
+            if (empty == null) {
+                empty = ResourceTimingColumns.empty(dictionary);
+            }
+            return empty;
+        }
+    }
+
+    private final CategoryIndex index;
+
+    private final CategoryIndex.Node node;
+
+    private final Storage storage;
 
     public MeasurementTree() {
-        categories = new HashMap<>();
-        measurements = new ArrayList<>();
+        this(new StringDictionary());
+    }
+
+    /**
+     * Construct an empty tree whose names are encoded
+     * with the specified dictionary. The dictionary may
+     * be shared with other trees.
+     *
+     * @param dictionary encodes the string attributes of measurements
+     */
+    public MeasurementTree(StringDictionary dictionary) {
+        this(dictionary, new CategoryIndex());
+    }
+
+    /**
+     * Construct an empty tree whose names are encoded with the
+     * specified dictionary and whose category paths are interned
+     * in the specified index. Both may be shared with other trees.
+     *
+     * @param dictionary encodes the string attributes of measurements
+     * @param index      interns the category paths
+     */
+    public MeasurementTree(StringDictionary dictionary, CategoryIndex index) {
+        this(index, index.getRoot(), new Storage(dictionary));
+    }
+
+    private MeasurementTree(CategoryIndex index, CategoryIndex.Node node, Storage storage) {
+        this.index = index;
+        this.node = node;
+        this.storage = storage;
     }
 
     @SuppressWarnings("unused")
@@ -53,36 +135,126 @@ public class MeasurementTree {
             @JsonProperty("categories") Map<String, MeasurementTree> categories,
             @JsonProperty("measurements") List<ResourceTiming> measurements,
             @JsonProperty("navigation") NavigationTiming navigation) {
-        this.categories = categories;
-        this.measurements = measurements;
-        this.navigation = navigation;
+        this(new StringDictionary());
+        if (measurements != null) {
+            for (ResourceTiming measurement : measurements) {
+                addMeasurement(measurement);
+            }
+        }
+        if (categories != null) {
+            for (Map.Entry<String, MeasurementTree> category : categories.entrySet()) {
+                graft(index.child(node, category.getKey()), category.getValue());
+            }
+        }
+        storage.navigation = navigation;
+    }
+
+    /**
+     * Copy a separately built tree below a node of this tree. The source
+     * has its own dictionary, so its measurements are copied row by row
+     * and re-encoded with the dictionary of this tree.
+     */
+    private void graft(CategoryIndex.Node target, MeasurementTree source) {
+        mark(target);
+        ResourceTimingColumns columns = source.storage.columns[source.node.getId()];
+        if (columns != null && !columns.isEmpty()) {
+            columns(target).addAll(columns);
+        }
+        for (Map.Entry<String, MeasurementTree> category : source.getCategories().entrySet()) {
+            graft(index.child(target, category.getKey()), category.getValue());
+        }
+    }
+
+    /**
+     * Mark a node and its ancestors as used by this tree.
+     */
+    private void mark(CategoryIndex.Node target) {
+        storage.ensureCapacity(target.getId());
+        for (CategoryIndex.Node current = target; !storage.present[current.getId()];
+             current = current.getParent()) {
+            storage.present[current.getId()] = true;
+        }
+    }
+
+    private boolean isPresent(CategoryIndex.Node target) {
+        return target.getId() < storage.present.length && storage.present[target.getId()];
+    }
+
+    private ResourceTimingColumns columns(CategoryIndex.Node target) {
+        mark(target);
+        ResourceTimingColumns columns = storage.columns[target.getId()];
+        if (columns == null) {
+            columns = new ResourceTimingColumns(storage.dictionary);
+            storage.columns[target.getId()] = columns;
+        }
+        return columns;
     }
 
     public void addMeasurement(ResourceTiming measurement, String... names) {
-        if (names.length == 0) {
-            measurements.add(measurement);
-        } else {
-            String headName = names[0];
-            String[] tailNames = Arrays.copyOfRange(names, 1, names.length);
-            MeasurementTree category = categories.get(headName);
-            if (category == null) {
-                category = new MeasurementTree();
-                categories.put(headName, category);
+        columns(index.resolve(node, names)).add(measurement);
+    }
+
+    public void setNavigation(NavigationTiming navigation) {
+        checkState(node == index.getRoot(), "navigation timing belongs to the root of the tree");
+        storage.navigation = navigation;
+    }
+
+    /**
+     * Returns the child category with the specified name,
+     * creating an empty category if there is none.
+     *
+     * @param name name of the category
+     * @return view of the category
+     */
+    public MeasurementTree getCategory(String name) {
+        CategoryIndex.Node child = index.child(node, name);
+        mark(child);
+        return new MeasurementTree(index, child, storage);
+    }
+
+    /**
+     * Returns the child categories of this node. The map is an unmodifiable
+     * snapshot whose values are views of the categories. Use
+     * {@link #getCategory(String)} to add a category.
+     */
+    @JsonProperty
+    public Map<String, MeasurementTree> getCategories() {
+        Map<String, MeasurementTree> categories = new HashMap<>();
+        for (CategoryIndex.Node child : node.getChildren()) {
+            if (isPresent(child)) {
+                categories.put(child.getName(), new MeasurementTree(index, child, storage));
             }
-            category.addMeasurement(measurement, tailNames);
         }
+        return Collections.unmodifiableMap(categories);
     }
 
-    public void setNavigation(NavigationTiming navigation) {
-        this.navigation = navigation;
+    /**
+     * Returns the measurements of this node. The list is read-only and
+     * shared when the node has none; use {@link #addMeasurement(ResourceTiming, String...)}
+     * to add measurements.
+     */
+    @JsonProperty
+    public ResourceTimingColumns getMeasurements() {
+        ResourceTimingColumns columns = isPresent(node) ? storage.columns[node.getId()] : null;
+        return (columns != null) ? columns : storage.empty();
+    }
+
+    /**
+     * Returns the navigation timing of the iteration.
+     * Always null for a category.
+     */
+    @JsonProperty
+    @Nullable
+    public NavigationTiming getNavigation() {
+        return (node == index.getRoot()) ? storage.navigation : null;
     }
 
     @Override
     public String toString() {
         return Objects.toStringHelper(this)
-                      .add("categories", Joiner.on('\n').withKeyValueSeparator(" : ").join(categories))
-                      .add("measurements", Joiner.on(",\n").join(measurements))
-                      .add("navigation", navigation)
+                      .add("categories", Joiner.on('\n').withKeyValueSeparator(" : ").join(getCategories()))
+                      .add("measurements", Joiner.on(",\n").join(getMeasurements()))
+                      .add("navigation", getNavigation())
                       .toString();
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cached outcome of applying a {@link com.addthis.hermes.configuration.Transformer}
+ * to a resource name: either the ignored verdict or the transformed name and,
+ * when the transformer declares them deterministic, its categories.
+ */
+final class TransformedName {
+
+    static final TransformedName IGNORED = new TransformedName(null, null);
+
+    @Nullable final String name;
+
+    @Nullable final String[] categories;
+
+    TransformedName(@Nullable String name, @Nullable String[] categories) {
+        this.name = name;
+        this.categories = categories;
+    }
+
+    boolean isIgnored() {
+        return name == null;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.data.StringDictionary;
+import com.addthis.hermes.internal.CategoryIndex;
+import com.addthis.hermes.internal.MeasurementTree;
+
+import static com.addthis.hermes.io.BinaryResultsWriter.BLOCK;
+import static com.addthis.hermes.io.BinaryResultsWriter.MAGIC;
+import static com.addthis.hermes.io.BinaryResultsWriter.TAG_BITS;
+import static com.addthis.hermes.io.BinaryResultsWriter.TAG_MICROS;
+import static com.addthis.hermes.io.BinaryResultsWriter.TAG_RAW;
+import static com.addthis.hermes.io.BinaryResultsWriter.TAG_ZERO;
+import static com.addthis.hermes.io.BinaryResultsWriter.VERSION;
+
+/**
+ * Decodes the format written by {@link BinaryResultsWriter}.
+ * Every tree of a file shares the dictionary and the category index of the file.
+ */
+final class BinaryResultsReader {
+
+    private static final ResourceTimingField[] FIELDS = ResourceTimingField.values();
+
+    private final DataInputStream input;
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+
+    private final double[] values = new double[FIELDS.length];
+
+    private final long[] navigation = new long[NavigationTimingField.values().length];
+
+    private BinaryResultsReader(InputStream input) {
+        this.input = new DataInputStream(input);
+    }
+
+    /**
+     * Returns true if the stream starts with the binary magic bytes.
+     * The stream must support mark and is reset to its start.
+     */
+    static boolean isBinary(InputStream input) throws IOException {
+        input.mark(MAGIC.length);
+        try {
+            for (byte b : MAGIC) {
+                if (input.read() != b) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            input.reset();
+        }
+    }
+
+    static void read(InputStream input, ResultsReader.IterationHandler handler) throws IOException {
+        new BinaryResultsReader(input).read(handler);
+    }
+
+    private void read(ResultsReader.IterationHandler handler) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        input.readFully(magic);
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary results version " + version);
+        }
+        long id = 0;
+        int marker;
+        while ((marker = input.read()) >= 0) {
+            if (marker != BLOCK) {
+                throw new IOException("Malformed binary results: unexpected marker " + marker);
+            }
+            id += Varints.readSigned(input);
+            MeasurementTree tree = new MeasurementTree(dictionary, categoryIndex);
+            if (input.readByte() != 0) {
+                tree.setNavigation(readNavigation(id));
+            }
+            readNode(tree);
+            handler.iteration(id, tree);
+        }
+    }
+
+    private NavigationTiming readNavigation(long id) throws IOException {
+        long navigationStart = id + Varints.readSigned(input);
+        navigation[0] = navigationStart;
+        for (int i = 1; i < navigation.length; i++) {
+            navigation[i] = (Varints.readUnsigned(input) == 0) ? 0 : navigationStart + Varints.readSigned(input);
+        }
+        return new NavigationTiming(navigation[0], navigation[1], navigation[2], navigation[3], navigation[4],
+                                    navigation[5], navigation[6], navigation[7], navigation[8], navigation[9],
+                                    navigation[10], navigation[11], navigation[12], navigation[13],
+                                    navigation[14], navigation[15], navigation[16], navigation[17],
+                                    navigation[18], navigation[19], navigation[20]);
+    }
+
+    private void readNode(MeasurementTree node) throws IOException {
+        long size = Varints.readUnsigned(input);
+        double previousStart = 0;
+        for (long i = 0; i < size; i++) {
+            String name = readString();
+            String entryType = readString();
+            String initiatorType = readString();
+            values[0] = readTiming(previousStart);
+            values[1] = readTiming(0);
+            for (int j = 2; j < values.length; j++) {
+                values[j] = readTiming(values[0]);
+            }
+            previousStart = values[0];
+            node.addMeasurement(new ResourceTiming(name, entryType, initiatorType,
+                                                   values[0], values[1], values[2], values[3], values[4],
+                                                   values[5], values[6], values[7], values[8], values[9],
+                                                   values[10], values[11], values[12]));
+        }
+        long categories = Varints.readUnsigned(input);
+        for (long i = 0; i < categories; i++) {
+            readNode(node.getCategory(readString()));
+        }
+    }
+
+    private double readTiming(double reference) throws IOException {
+        long value = Varints.readUnsigned(input);
+        int tag = (int) (value & ((1 << TAG_BITS) - 1));
+        switch (tag) {
+            case TAG_ZERO:
+                return 0;
+            case TAG_MICROS:
+                long zigzag = value >>> TAG_BITS;
+                long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+                return (BinaryResultsWriter.micros(reference) + delta) / 1000.0;
+            case TAG_RAW:
+                return input.readDouble();
+            default:
+                throw new IOException("Malformed binary results: unknown tag " + tag);
+        }
+    }
+
+    private String readString() throws IOException {
+        long reference = Varints.readUnsigned(input);
+        if (reference == 0) {
+            return null;
+        }
+        int id = (int) (reference - 1);
+        if (id == dictionary.size()) {
+            byte[] bytes = new byte[(int) Varints.readUnsigned(input)];
+            input.readFully(bytes);
+            dictionary.encode(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return dictionary.decode(id);
+    }
+}
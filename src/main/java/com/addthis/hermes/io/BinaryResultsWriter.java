@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.data.StringDictionary;
+import com.addthis.hermes.internal.MeasurementTree;
+
+/**
+ * Appends iterations to a gzip-compressed binary file as they complete.
+ * The file starts with the {@link #MAGIC} bytes and a version byte,
+ * followed by one block per iteration:
+ * <ul>
+ * <li>the {@link #BLOCK} marker byte</li>
+ * <li>the difference to the previous iteration id as a signed varint</li>
+ * <li>a byte that is 1 if navigation timing is present, then navigationStart
+ * relative to the iteration id as a signed varint and every other attribute
+ * as 0 if unset or else 1 followed by its signed offset from navigationStart</li>
+ * <li>the root of the measurement tree</li>
+ * </ul>
+ * A tree node is the number of measurements, each measurement as
+ * the name, entry type and initiator type strings followed by the
+ * {@link ResourceTimingField} values, then the number of categories,
+ * each category as its name followed by the child node.
+ * <p/>
+ * Strings are references into a dictionary that is shared by the whole
+ * file and built inline: 0 is null, otherwise the reference is one plus
+ * the id of the string. A reference to the next unassigned id is followed
+ * by the length and UTF-8 bytes of the new string. Timing values are
+ * tagged: {@link #TAG_ZERO}, {@link #TAG_MICROS} for values with
+ * microsecond resolution stored as a signed offset in microseconds from a
+ * reference value, or {@link #TAG_RAW} followed by the eight bytes of the double.
+ * The reference is the start time of the previous measurement of the node
+ * for the start time, zero for the duration and the start time of the same
+ * measurement for every other attribute. The file is not created until
+ * the first iteration is written.
+ */
+public class BinaryResultsWriter implements ResultsWriter {
+
+    static final byte[] MAGIC = {'H', 'R', 'M', 'B'};
+
+    static final int VERSION = 1;
+
+    static final int BLOCK = 1;
+
+    static final int TAG_ZERO = 0;
+
+    static final int TAG_MICROS = 1;
+
+    static final int TAG_RAW = 2;
+
+    static final int TAG_BITS = 2;
+
+    private static final ResourceTimingField[] FIELDS = ResourceTimingField.values();
+
+    private static final NavigationTimingField[] NAVIGATION_FIELDS = NavigationTimingField.values();
+
+    private final Path outputPath;
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Nullable private DataOutputStream output;
+
+    private long previousId;
+
+    private long count;
+
+    private boolean closed;
+
+    public BinaryResultsWriter(Path outputPath) {
+        this.outputPath = outputPath;
+    }
+
+    private DataOutputStream open() throws IOException {
+        if (output == null) {
+            output = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(outputPath.toFile()))));
+            output.write(MAGIC);
+            output.writeByte(VERSION);
+        }
+        return output;
+    }
+
+    @Override
+    public synchronized void write(long id, MeasurementTree measurements) throws IOException {
+        if (closed) {
+            throw new IOException("Cannot write to closed results file " + outputPath);
+        }
+        DataOutputStream output = open();
+        output.writeByte(BLOCK);
+        Varints.writeSigned(output, id - previousId);
+        previousId = id;
+        writeNavigation(output, id, measurements.getNavigation());
+        writeNode(output, measurements);
+        count++;
+    }
+
+    private void writeNavigation(DataOutputStream output, long id,
+                                 @Nullable NavigationTiming navigation) throws IOException {
+        if (navigation == null) {
+            output.writeByte(0);
+            return;
+        }
+        output.writeByte(1);
+        long navigationStart = navigation.getNavigationStart();
+        Varints.writeSigned(output, navigationStart - id);
+        for (NavigationTimingField field : NAVIGATION_FIELDS) {
+            if (field == NavigationTimingField.NAVIGATION_START) {
+                continue;
+            }
+            long value = field.get(navigation);
+            if (value == 0) {
+                Varints.writeUnsigned(output, 0);
+            } else {
+                Varints.writeUnsigned(output, 1);
+                Varints.writeSigned(output, value - navigationStart);
+            }
+        }
+    }
+
+    private void writeNode(DataOutputStream output, MeasurementTree node) throws IOException {
+        ResourceTimingColumns measurements = node.getMeasurements();
+        StringDictionary names = measurements.getDictionary();
+        Varints.writeUnsigned(output, measurements.size());
+        double previousStart = 0;
+        for (int row = 0; row < measurements.size(); row++) {
+            writeString(output, names.decode(measurements.getNameId(row)));
+            writeString(output, names.decode(measurements.getEntryTypeId(row)));
+            writeString(output, names.decode(measurements.getInitiatorTypeId(row)));
+            double start = measurements.get(row, ResourceTimingField.START_TIME);
+            for (ResourceTimingField field : FIELDS) {
+                double reference;
+                switch (field) {
+                    case START_TIME:
+                        reference = previousStart;
+                        break;
+                    case DURATION:
+                        reference = 0;
+                        break;
+                    default:
+                        reference = start;
+                }
+                writeTiming(output, measurements.get(row, field), reference);
+            }
+            previousStart = start;
+        }
+        Varints.writeUnsigned(output, node.getCategories().size());
+        for (Map.Entry<String, MeasurementTree> category : node.getCategories().entrySet()) {
+            writeString(output, category.getKey());
+            writeNode(output, category.getValue());
+        }
+    }
+
+    static long micros(double value) {
+        return Math.round(value * 1000);
+    }
+
+    private static void writeTiming(DataOutputStream output, double value, double reference) throws IOException {
+        if (value == 0) {
+            Varints.writeUnsigned(output, TAG_ZERO);
+            return;
+        }
+        long base = micros(reference);
+        long delta = micros(value) - base;
+        if ((base + delta) / 1000.0 == value) {
+            Varints.writeUnsigned(output, (((delta << 1) ^ (delta >> 63)) << TAG_BITS) | TAG_MICROS);
+        } else {
+            Varints.writeUnsigned(output, TAG_RAW);
+            output.writeDouble(value);
+        }
+    }
+
+    private void writeString(DataOutputStream output, @Nullable String value) throws IOException {
+        if (value == null) {
+            Varints.writeUnsigned(output, 0);
+            return;
+        }
+        int size = dictionary.size();
+        int id = dictionary.encode(value);
+        Varints.writeUnsigned(output, id + 1);
+        if (id == size) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Varints.writeUnsigned(output, bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only record of completed iterations that survives a crash of
+ * the process or the machine. Each record is the length of the payload,
+ * the iteration id, a CRC32 checksum of the id and the payload, and the
+ * payload, the JSON of the {@link MeasurementTree}. Every record is forced
+ * to the storage device before {@link #append(long, MeasurementTree)}
+ * returns. When a journal is reopened for a resumed run the records are
+ * replayed and a torn or corrupt record at the tail, left behind by a crash
+ * in the middle of an append, is truncated.
+ */
+public class Journal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    private static final int HEADER_SIZE = 4 + 8 + 4;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+
+    private static final ObjectWriter WRITER = MAPPER.writerWithType(MeasurementTree.class);
+
+    private static final ObjectReader READER = MAPPER.reader(MeasurementTree.class);
+
+    private final Path path;
+
+    private final boolean resume;
+
+    @Nullable private FileChannel channel;
+
+    private long count;
+
+    /**
+     * Open a journal.
+     *
+     * @param path   location of the journal
+     * @param resume if true the journal must exist and new records are
+     *               appended after its records, otherwise the journal is
+     *               created or emptied. The file is not opened until
+     *               it is first replayed or appended to.
+     */
+    public Journal(Path path, boolean resume) {
+        this.path = path;
+        this.resume = resume;
+    }
+
+    private FileChannel open() throws IOException {
+        if (channel == null) {
+            if (resume) {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } else {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                           StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the path of the journal that is kept next to the specified results file.
+     *
+     * @param outputPath path of the results file
+     * @return path of the journal
+     */
+    public static Path journalPath(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + ".journal");
+    }
+
+    /**
+     * Pass every intact record to the handler in the order they were
+     * appended and truncate anything after the last intact record.
+     * Must be called before the first append.
+     *
+     * @param handler receives each iteration
+     * @return number of records replayed
+     * @throws IOException if the journal cannot be read or truncated
+     */
+    public synchronized long replay(ResultsReader.IterationHandler handler) throws IOException {
+        FileChannel channel = open();
+        channel.position(0);
+        InputStream stream = Channels.newInputStream(channel);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+        long size = channel.size();
+        long valid = 0;
+        long replayed = 0;
+        try {
+            while (true) {
+                int length = input.readInt();
+                long id = input.readLong();
+                int checksum = input.readInt();
+                if (length < 0 || valid + HEADER_SIZE + length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                input.readFully(payload);
+                if (checksum != checksum(id, payload)) {
+                    break;
+                }
+                MeasurementTree measurements = READER.readValue(new ByteArrayInputStream(payload));
+                handler.iteration(id, measurements);
+                valid += HEADER_SIZE + length;
+                replayed++;
+            }
+        } catch (EOFException ignored) {
+            // torn record at the tail
+        }
+        if (valid < size) {
+            log.warn("Truncating {} bytes of incomplete records from {}", size - valid, path);
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+        count = replayed;
+        return replayed;
+    }
+
+    private static int checksum(long id, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(0, id).array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Durably append one iteration.
+     *
+     * @param id           iteration id
+     * @param measurements measurements of the iteration
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void append(long id, MeasurementTree measurements) throws IOException {
+        byte[] payload = WRITER.writeValueAsBytes(measurements);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putLong(id).putInt(checksum(id, payload)).put(payload);
+        buffer.flip();
+        FileChannel channel = open();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        count++;
+    }
+
+    /**
+     * Returns the number of records replayed or appended.
+     *
+     * @return number of records
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Close and remove the journal once the results it
+     * protects have been written completely.
+     *
+     * @throws IOException if the journal cannot be removed
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+/**
+ * Appends every iteration to a {@link Journal} before passing it to
+ * another {@link ResultsWriter}. The results file of the other writer
+ * may be lost in a crash but every iteration it contained can be
+ * recovered from the journal with {@link #replay(ResultsReader.IterationHandler)}.
+ */
+public class JournaledResultsWriter implements ResultsWriter {
+
+    private final ResultsWriter delegate;
+
+    private final Journal journal;
+
+    public JournaledResultsWriter(ResultsWriter delegate, Journal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    /**
+     * Rewrite the iterations of the journal to the results file and pass
+     * them to the handler. Must be called before the first write.
+     *
+     * @param handler receives each recovered iteration
+     * @return number of iterations recovered
+     * @throws IOException if the journal cannot be read or the results cannot be written
+     */
+    public long replay(ResultsReader.IterationHandler handler) throws IOException {
+        return journal.replay((id, measurements) -> {
+            delegate.write(id, measurements);
+            handler.iteration(id, measurements);
+        });
+    }
+
+    @Override
+    public synchronized void write(long id, MeasurementTree measurements) throws IOException {
+        journal.append(id, measurements);
+        delegate.write(id, measurements);
+    }
+
+    @Override
+    public long getCount() {
+        return delegate.getCount();
+    }
+
+    @Override
+    public Path getOutputPath() {
+        return delegate.getOutputPath();
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import javax.annotation.Nullable;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Appends iterations to a gzip-compressed file as they complete.
+ * Each iteration is written on its own line as a JSON object with a
+ * single key, the iteration id, mapped to the {@link MeasurementTree}
+ * of that iteration. Every line therefore has the same layout as the
+ * original single-object output format and the {@link ResultsReader}
+ * merges the lines back into one map. The file is not created
+ * until the first iteration is written.
+ */
+public class JsonResultsWriter implements ResultsWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final ObjectWriter WRITER = MAPPER.writerWithType(MeasurementTree.class);
+
+    private final Path outputPath;
+
+    @Nullable private JsonGenerator generator;
+
+    private long count;
+
+    private boolean closed;
+
+    public JsonResultsWriter(Path outputPath) {
+        this.outputPath = outputPath;
+    }
+
+    private JsonGenerator open() throws IOException {
+        if (generator == null) {
+            OutputStream output = new GZIPOutputStream(new FileOutputStream(outputPath.toFile()));
+            generator = MAPPER.getFactory().createGenerator(output);
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+
+    @Override
+    public synchronized void write(long id, MeasurementTree measurements) throws IOException {
+        if (closed) {
+            throw new IOException("Cannot write to closed results file " + outputPath);
+        }
+        JsonGenerator generator = open();
+        generator.writeStartObject();
+        generator.writeFieldName(Long.toString(id));
+        WRITER.writeValue(generator, measurements);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        count++;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public Path getOutputPath() {
+        return outputPath;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (generator != null) {
+            generator.close();
+            generator = null;
+        }
+    }
+}
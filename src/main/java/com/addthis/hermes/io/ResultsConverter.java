@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts a results file of either format into the specified
+ * format, one iteration at a time.
+ * <p/>
+ * Usage: ResultsConverter &lt;input&gt; &lt;output&gt; [json|binary]
+ */
+public class ResultsConverter {
+
+    private ResultsConverter() {}
+
+    /**
+     * Write every iteration of the input file to a new output file.
+     *
+     * @param inputPath  results file of either format
+     * @param outputPath path to new file for output results
+     * @param format     format of the output file
+     * @return number of iterations converted
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long convert(Path inputPath, Path outputPath, ResultsFormat format) throws IOException {
+        try (ResultsWriter writer = format.createWriter(outputPath)) {
+            ResultsReader.read(inputPath, writer::write);
+            return writer.getCount();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: ResultsConverter <input> <output> [json|binary]");
+            System.exit(1);
+        }
+        Path inputPath = Paths.get(args[0]);
+        Path outputPath = Paths.get(args[1]);
+        ResultsFormat format = (args.length == 3) ? ResultsFormat.valueOf(args[2].toUpperCase()) :
+                               ResultsFormat.BINARY;
+        if (Files.exists(outputPath)) {
+            System.err.println("ERROR: The output file already exists " + outputPath);
+            System.exit(1);
+        }
+        long count = convert(inputPath, outputPath, format);
+        System.out.println("Converted " + count + " iterations to " + outputPath);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.nio.file.Path;
+
+/**
+ * The formats of results files. Both are gzip-compressed and
+ * the {@link ResultsReader} recognizes either format.
+ */
+public enum ResultsFormat {
+    /**
+     * Newline-delimited JSON, see {@link JsonResultsWriter}.
+     */
+    JSON {
+        @Override
+        public ResultsWriter createWriter(Path outputPath) {
+            return new JsonResultsWriter(outputPath);
+        }
+    },
+    /**
+     * Dictionary and varint encoded binary, see {@link BinaryResultsWriter}.
+     */
+    BINARY {
+        @Override
+        public ResultsWriter createWriter(Path outputPath) {
+            return new BinaryResultsWriter(outputPath);
+        }
+    };
+
+    public abstract ResultsWriter createWriter(Path outputPath);
+}
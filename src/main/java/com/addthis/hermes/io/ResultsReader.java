@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads gzip-compressed results files. Both the single JSON object
+ * written by earlier versions and the newline-delimited output of the
+ * {@link JsonResultsWriter} are accepted, since the latter is a sequence
+ * of objects with the same layout as the former. Files written by the
+ * {@link BinaryResultsWriter} are recognized by their magic bytes.
+ */
+public class ResultsReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Receives iterations, such as those of a results file
+     * in the order they appear in the file.
+     */
+    public static interface IterationHandler {
+        public void iteration(long id, MeasurementTree measurements) throws IOException;
+    }
+
+    private ResultsReader() {}
+
+    /**
+     * Read every iteration of the results file into memory.
+     *
+     * @param inputPath gzip-compressed results file
+     * @return iterations sorted by id
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static Map<Long, MeasurementTree> read(Path inputPath) throws IOException {
+        Map<Long, MeasurementTree> results = new TreeMap<>();
+        read(inputPath, results::put);
+        return results;
+    }
+
+    /**
+     * Pass the iterations of the results file to a handler. Only one
+     * iteration of a JSON file or one block of a binary file is held
+     * in memory at a time, also for files that hold a single JSON object.
+     * Use the {@link StreamingResultsReader} to process the measurements
+     * without holding an entire iteration in memory.
+     *
+     * @param inputPath gzip-compressed results file
+     * @param handler   receives each iteration
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static void read(Path inputPath, IterationHandler handler) throws IOException {
+        try (InputStream input = new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(inputPath.toFile())))) {
+            if (BinaryResultsReader.isBinary(input)) {
+                BinaryResultsReader.read(input, handler);
+            } else {
+                readJson(input, handler);
+            }
+        }
+    }
+
+    private static void readJson(InputStream input, IterationHandler handler) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(input)) {
+            while (parser.nextToken() != null) {
+                if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected an object of iterations at " + parser.getCurrentLocation());
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    long id = Long.parseLong(parser.getCurrentName());
+                    parser.nextToken();
+                    handler.iteration(id, MAPPER.readValue(parser, MeasurementTree.class));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+/**
+ * Appends iterations to a results file as they complete.
+ * Implementations are safe for use by multiple threads.
+ */
+public interface ResultsWriter extends Closeable {
+
+    /**
+     * Append one iteration to the output file.
+     *
+     * @param id           iteration id
+     * @param measurements measurements of the iteration
+     * @throws IOException if the output file cannot be written
+     */
+    public void write(long id, MeasurementTree measurements) throws IOException;
+
+    /**
+     * Returns the number of iterations that have been written.
+     *
+     * @return number of iterations written
+     */
+    public long getCount();
+
+    public Path getOutputPath();
+}
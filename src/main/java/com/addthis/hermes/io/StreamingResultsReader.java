@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementListener;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads gzip-compressed results files as a stream of measurements without
+ * building a {@link com.addthis.hermes.internal.MeasurementTree} per iteration.
+ * JSON files, both the single object written by earlier versions and the
+ * newline-delimited output of the {@link JsonResultsWriter}, are walked token
+ * by token with the Jackson streaming parser. Each resource and navigation
+ * timing is passed to a {@link MeasurementListener} as soon as it has been
+ * parsed, so memory does not grow with the size of the file, the number of
+ * iterations or the number of resources in an iteration. The events of an
+ * iteration arrive in the order they appear in the file: the navigation
+ * timing follows the resources of the iteration in the files of the
+ * {@link JsonResultsWriter}. Files written by the {@link BinaryResultsWriter}
+ * are read one block at a time and replayed to the listener.
+ */
+public class StreamingResultsReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String[] NO_CATEGORIES = new String[0];
+
+    private StreamingResultsReader() {}
+
+    /**
+     * Pass every measurement of the results file to the listener.
+     *
+     * @param inputPath gzip-compressed results file
+     * @param listener  receives the measurements of every iteration
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static void read(Path inputPath, MeasurementListener listener) throws IOException {
+        try (InputStream input = new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(inputPath.toFile())))) {
+            if (BinaryResultsReader.isBinary(input)) {
+                Manager manager = new Manager(new IdentityTransformer());
+                manager.addListener(listener);
+                BinaryResultsReader.read(input, manager::replay);
+            } else {
+                read(input, listener);
+            }
+        }
+    }
+
+    /**
+     * Pass every measurement of uncompressed JSON results to the listener.
+     *
+     * @param input    one or more JSON objects that map iteration ids to measurement trees
+     * @param listener receives the measurements of every iteration
+     * @throws IOException if the input cannot be read or parsed
+     */
+    public static void read(InputStream input, MeasurementListener listener) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(input)) {
+            List<String> path = new ArrayList<>();
+            while (parser.nextToken() != null) {
+                expect(parser, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    long id;
+                    try {
+                        id = Long.parseLong(parser.getCurrentName());
+                    } catch (NumberFormatException ex) {
+                        throw new IOException("Invalid iteration id " + parser.getCurrentName() + " at " +
+                                              parser.getCurrentLocation());
+                    }
+                    parser.nextToken();
+                    readTree(parser, id, path, listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walk one measurement tree. The parser is positioned at the
+     * start of the tree and is left at the end of the tree.
+     */
+    private static void readTree(JsonParser parser, long id, List<String> path, MeasurementListener listener)
+            throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("categories".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    path.add(parser.getCurrentName());
+                    parser.nextToken();
+                    readTree(parser, id, path, listener);
+                    path.remove(path.size() - 1);
+                }
+            } else if ("measurements".equals(field) && value == JsonToken.START_ARRAY) {
+                String[] categories = path.isEmpty() ? NO_CATEGORIES : path.toArray(new String[path.size()]);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    listener.measurement(id, categories, MAPPER.readValue(parser, ResourceTiming.class));
+                }
+                expect(parser, JsonToken.END_ARRAY);
+            } else if ("navigation".equals(field) && value == JsonToken.START_OBJECT) {
+                listener.navigationTiming(id, MAPPER.readValue(parser, NavigationTiming.class));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        expect(parser, JsonToken.END_OBJECT);
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.getCurrentToken() != token) {
+            throw new IOException("Expected " + token + " but found " + parser.getCurrentToken() + " at " +
+                                  parser.getCurrentLocation());
+        }
+    }
+}
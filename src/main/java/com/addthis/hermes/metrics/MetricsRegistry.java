@@ -0,0 +1,322 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.metrics;
+
+import javax.annotation.Nullable;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import java.nio.file.Path;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timers and counters of the harness itself, used to tell how much
+ * of a run is spent in each step and how much overhead the measurement
+ * adds to the page loads being measured. The metrics can be read over
+ * JMX once {@link #register(String)} is called, dumped in the Prometheus
+ * text exposition format, or written as a JSON overhead summary.
+ */
+@JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE,
+                isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class MetricsRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    /**
+     * Time until the browser of an iteration is ready, including
+     * waiting for a standby browser that is still launching.
+     */
+    public static final String SETUP = "browser.setup";
+
+    /**
+     * Time spent resetting or quitting the browser after an iteration.
+     */
+    public static final String TEARDOWN = "browser.teardown";
+
+    /**
+     * Time spent in the navigator.
+     */
+    public static final String NAVIGATE = "navigate";
+
+    /**
+     * Time spent in the completion strategy waiting for the page to load.
+     */
+    public static final String WAIT = "wait";
+
+    /**
+     * Time spent running the capture script and parsing its result.
+     */
+    public static final String CAPTURE = "capture";
+
+    /**
+     * Time spent passing the captured entries through the transformer.
+     */
+    public static final String TRANSFORM = "transform";
+
+    /**
+     * Time spent serializing and writing an iteration.
+     */
+    public static final String WRITE = "write";
+
+    /**
+     * Number of resource timing entries captured.
+     */
+    public static final String RESOURCES = "resources";
+
+    /**
+     * The timers that are harness overhead rather than
+     * the navigation and page load being measured.
+     */
+    public static final ImmutableSet<String> OVERHEAD = ImmutableSet.of(SETUP, TEARDOWN, CAPTURE, TRANSFORM, WRITE);
+
+    private static final String PREFIX = "hermes_";
+
+    private final NavigableMap<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+    private final NavigableMap<String, Counter> counters = new ConcurrentSkipListMap<>();
+
+    private final long created = System.nanoTime();
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    @JsonProperty
+    public Map<String, Timer> getTimers() {
+        return timers;
+    }
+
+    @JsonProperty
+    public Map<String, Counter> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Returns the wall clock time since the registry was created.
+     */
+    @JsonProperty
+    public double getElapsedMillis() {
+        return (System.nanoTime() - created) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the total time of the {@link #OVERHEAD} timers. With concurrent
+     * browsers this is the sum over all of them and may exceed the elapsed time.
+     */
+    @JsonProperty
+    public double getOverheadMillis() {
+        double total = 0;
+        for (String name : OVERHEAD) {
+            Timer timer = timers.get(name);
+            if (timer != null) {
+                total += timer.getTotalMillis();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format.
+     * Timers become summaries in seconds with an additional maximum gauge.
+     */
+    public void writePrometheus(Appendable output) throws IOException {
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            String name = PREFIX + sanitize(entry.getKey()) + "_seconds";
+            Timer timer = entry.getValue();
+            output.append("# TYPE ").append(name).append(" summary\n");
+            output.append(name).append("_count ").append(Long.toString(timer.getCount())).append('\n');
+            output.append(name).append("_sum ").append(seconds(timer.getTotalNanos())).append('\n');
+            output.append("# TYPE ").append(name).append("_max gauge\n");
+            output.append(name).append("_max ").append(seconds(timer.getMaxNanos())).append('\n');
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            String name = PREFIX + sanitize(entry.getKey()) + "_total";
+            output.append("# TYPE ").append(name).append(" counter\n");
+            output.append(name).append(' ').append(Long.toString(entry.getValue().getCount())).append('\n');
+        }
+    }
+
+    /**
+     * Write the overhead summary as JSON.
+     *
+     * @param outputPath path of the summary file
+     */
+    public void writeSummary(Path outputPath) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(outputPath.toFile(), this);
+    }
+
+    /**
+     * Returns the path of the overhead summary written next to a results file.
+     */
+    public static Path summaryPath(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + ".overhead.json");
+    }
+
+    /**
+     * Expose the metrics through the platform MBean server.
+     *
+     * @param name distinguishes the registries of concurrent runs
+     * @return name of the MBean or null if it could not be registered
+     */
+    @Nullable
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.addthis.hermes:type=Metrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new MetricsBean(), objectName);
+            return objectName;
+        } catch (JMException ex) {
+            log.warn("Unable to register metrics with JMX", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Remove the MBean registered by {@link #register(String)}.
+     */
+    public static void unregister(@Nullable ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ex) {
+            log.warn("Unable to unregister metrics from JMX", ex);
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Read-only view of the registry with the attributes
+     * {@code <timer>.count}, {@code <timer>.totalMillis},
+     * {@code <timer>.meanMillis}, {@code <timer>.maxMillis}
+     * and {@code <counter>}.
+     */
+    private class MetricsBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Counter counter = counters.get(attribute);
+            if (counter != null) {
+                return counter.getCount();
+            }
+            int separator = attribute.lastIndexOf('.');
+            Timer timer = (separator > 0) ? timers.get(attribute.substring(0, separator)) : null;
+            if (timer != null) {
+                switch (attribute.substring(separator + 1)) {
+                    case "count":
+                        return timer.getCount();
+                    case "totalMillis":
+                        return timer.getTotalMillis();
+                    case "meanMillis":
+                        return timer.getMeanMillis();
+                    case "maxMillis":
+                        return timer.getMaxMillis();
+                    default:
+                        break;
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList result = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    result.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException ignored) {
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException(actionName);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String timer : timers.keySet()) {
+                attributes.add(attribute(timer + ".count", "long"));
+                attributes.add(attribute(timer + ".totalMillis", "double"));
+                attributes.add(attribute(timer + ".meanMillis", "double"));
+                attributes.add(attribute(timer + ".maxMillis", "double"));
+            }
+            for (String counter : counters.keySet()) {
+                attributes.add(attribute(counter, "long"));
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "hermes harness metrics",
+                                 attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, null, null);
+        }
+
+        private MBeanAttributeInfo attribute(String name, String type) {
+            return new MBeanAttributeInfo(name, type, name, true, false, false);
+        }
+    }
+}
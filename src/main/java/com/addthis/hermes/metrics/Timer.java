@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Accumulates the number of times and the elapsed time
+ * of a step of the harness. Safe for use by multiple threads.
+ */
+@JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE,
+                isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public final class Timer {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * A started measurement. Call {@link #stop()} in a finally block;
+     * {@link #close()} is equivalent.
+     */
+    public final class Context implements AutoCloseable {
+
+        private final long start = System.nanoTime();
+
+        public void stop() {
+            update(System.nanoTime() - start);
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    Timer() {}
+
+    public Context time() {
+        return new Context();
+    }
+
+    public void update(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @JsonProperty
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    @JsonProperty
+    public double getTotalMillis() {
+        return getTotalNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @JsonProperty
+    public double getMeanMillis() {
+        long n = getCount();
+        return (n == 0) ? 0 : getTotalMillis() / n;
+    }
+
+    @JsonProperty
+    public double getMaxMillis() {
+        return getMaxNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
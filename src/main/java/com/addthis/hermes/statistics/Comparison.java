@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Comparison of one metric between a baseline sample and a variant sample:
+ * the medians and 90th percentiles of both, the difference of the medians
+ * and the outcome of a {@link MannWhitney} test.
+ */
+@JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE,
+                isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonPropertyOrder({"baselineCount", "variantCount", "baselineMedian", "variantMedian", "baselineP90",
+                    "variantP90", "difference", "relativeDifference", "u", "z", "pValue", "effectSize"})
+public final class Comparison {
+
+    private final double[] baseline;
+
+    private final double[] variant;
+
+    private final MannWhitney test;
+
+    private Comparison(double[] baseline, double[] variant) {
+        this.baseline = baseline;
+        this.variant = variant;
+        this.test = MannWhitney.test(baseline, variant);
+    }
+
+    /**
+     * Compare two non-empty samples.
+     *
+     * @param baseline values of the baseline
+     * @param variant  values of the variant
+     * @return comparison of the samples
+     */
+    public static Comparison of(double[] baseline, double[] variant) {
+        double[] sortedBaseline = baseline.clone();
+        double[] sortedVariant = variant.clone();
+        Arrays.sort(sortedBaseline);
+        Arrays.sort(sortedVariant);
+        return new Comparison(sortedBaseline, sortedVariant);
+    }
+
+    /**
+     * Returns the quantile of a sorted sample with linear interpolation.
+     */
+    static double quantile(double[] sorted, double quantile) {
+        double position = quantile * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    @JsonProperty("baselineCount")
+    public int getBaselineCount() {
+        return baseline.length;
+    }
+
+    @JsonProperty("variantCount")
+    public int getVariantCount() {
+        return variant.length;
+    }
+
+    public double getBaselineQuantile(double quantile) {
+        return quantile(baseline, quantile);
+    }
+
+    public double getVariantQuantile(double quantile) {
+        return quantile(variant, quantile);
+    }
+
+    @JsonProperty("baselineMedian")
+    public double getBaselineMedian() {
+        return getBaselineQuantile(0.5);
+    }
+
+    @JsonProperty("variantMedian")
+    public double getVariantMedian() {
+        return getVariantQuantile(0.5);
+    }
+
+    @JsonProperty("baselineP90")
+    public double getBaselineP90() {
+        return getBaselineQuantile(0.9);
+    }
+
+    @JsonProperty("variantP90")
+    public double getVariantP90() {
+        return getVariantQuantile(0.9);
+    }
+
+    /**
+     * Returns the median of the variant minus the median of the baseline.
+     *
+     * @return difference of the medians
+     */
+    @JsonProperty("difference")
+    public double getDifference() {
+        return getVariantMedian() - getBaselineMedian();
+    }
+
+    /**
+     * Returns the difference of the medians divided by the median of the baseline.
+     *
+     * @return relative difference of the medians
+     */
+    @JsonProperty("relativeDifference")
+    public double getRelativeDifference() {
+        return getDifference() / getBaselineMedian();
+    }
+
+    @JsonProperty("u")
+    public double getU() {
+        return test.getU();
+    }
+
+    @JsonProperty("z")
+    public double getZ() {
+        return test.getZ();
+    }
+
+    @JsonProperty("pValue")
+    public double getPValue() {
+        return test.getPValue();
+    }
+
+    @JsonProperty("effectSize")
+    public double getEffectSize() {
+        return test.getEffectSize();
+    }
+
+    public MannWhitney getTest() {
+        return test;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.addthis.hermes.data.NavigationTimingField;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Per-resource and per-navigation-attribute {@link Comparison}s of
+ * a baseline and a variant. Resources are matched by their transformed
+ * name and only resources that appear in both samples are compared.
+ */
+@JsonPropertyOrder({"baselineIterations", "variantIterations", "navigation", "resources"})
+public class ComparisonReport {
+
+    @JsonProperty
+    private final int baselineIterations;
+
+    @JsonProperty
+    private final int variantIterations;
+
+    @JsonProperty
+    private final Map<String, Comparison> navigation;
+
+    @JsonProperty
+    private final Map<String, Map<String, Comparison>> resources;
+
+    private ComparisonReport(int baselineIterations, int variantIterations,
+                             Map<String, Comparison> navigation, Map<String, Map<String, Comparison>> resources) {
+        this.baselineIterations = baselineIterations;
+        this.variantIterations = variantIterations;
+        this.navigation = navigation;
+        this.resources = resources;
+    }
+
+    public static ComparisonReport of(SampleCollector baseline, SampleCollector variant) {
+        Map<String, Comparison> navigation = new TreeMap<>();
+        for (NavigationTimingField field : NavigationTimingField.values()) {
+            if (field == NavigationTimingField.NAVIGATION_START) {
+                continue;
+            }
+            double[] first = baseline.getNavigation(field);
+            double[] second = variant.getNavigation(field);
+            if (first.length > 0 && second.length > 0) {
+                navigation.put(field.getPropertyName(), Comparison.of(first, second));
+            }
+        }
+        Map<String, Map<String, Comparison>> resources = new TreeMap<>();
+        for (String name : baseline.getResourceNames()) {
+            Map<String, Comparison> metrics = new TreeMap<>();
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                double[] first = baseline.getResource(name, metric);
+                double[] second = variant.getResource(name, metric);
+                if (first.length > 0 && second.length > 0) {
+                    metrics.put(metric.getPropertyName(), Comparison.of(first, second));
+                }
+            }
+            if (!metrics.isEmpty()) {
+                resources.put(name, metrics);
+            }
+        }
+        return new ComparisonReport(baseline.getIterations(), variant.getIterations(), navigation, resources);
+    }
+
+    public int getBaselineIterations() {
+        return baselineIterations;
+    }
+
+    public int getVariantIterations() {
+        return variantIterations;
+    }
+
+    public Map<String, Comparison> getNavigation() {
+        return navigation;
+    }
+
+    public Map<String, Map<String, Comparison>> getResources() {
+        return resources;
+    }
+}
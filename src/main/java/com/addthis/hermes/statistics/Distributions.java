@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cumulative distribution and quantile functions of the
+ * normal and Student's t distributions.
+ */
+public final class Distributions {
+
+    private Distributions() {}
+
+    /**
+     * Returns the standard normal cumulative distribution function.
+     * The complementary error function is evaluated with the Chebyshev
+     * approximation from Numerical Recipes (fractional error below 1.2e-7).
+     *
+     * @param x input value
+     * @return probability that a standard normal variable is at most x
+     */
+    public static double normalCdf(double x) {
+        double z = Math.abs(x) / Math.sqrt(2);
+        double t = 1 / (1 + 0.5 * z);
+        double erfc = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 +
+                      t * (0.09678418 + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 +
+                      t * (1.48851587 + t * (-0.82215223 + t * 0.17087277)))))))));
+        return (x >= 0) ? 1 - 0.5 * erfc : 0.5 * erfc;
+    }
+
+    /**
+     * Returns the quantile function of the standard normal distribution
+     * using the rational approximation of Peter Acklam
+     * (relative error below 1.15e-9).
+     *
+     * @param p probability strictly between 0 and 1
+     * @return value x such that normalCdf(x) = p
+     */
+    public static double normalQuantile(double p) {
+        checkArgument(p > 0 && p < 1, "probability must be between 0 and 1 exclusive");
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                      1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                      6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                      -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                      3.754408661907416e+00};
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) /
+                   ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        } else if (p <= 1 - low) {
+            double q = p - 0.5;
+            double r = q * q;
+            return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q /
+                   (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+        } else {
+            return -normalQuantile(1 - p);
+        }
+    }
+
+    /**
+     * Returns the quantile function of Student's t distribution. For one
+     * and two degrees of freedom the closed forms are exact. Otherwise it
+     * is computed from the normal quantile with the Cornish-Fisher expansion
+     * (Abramowitz and Stegun 26.7.5), which is accurate to about three
+     * significant digits for three or more degrees of freedom but much too
+     * low below that.
+     *
+     * @param p                probability strictly between 0 and 1
+     * @param degreesOfFreedom degrees of freedom, at least one
+     * @return value t such that P(T &lt;= t) = p
+     */
+    public static double studentTQuantile(double p, double degreesOfFreedom) {
+        checkArgument(degreesOfFreedom >= 1, "degrees of freedom must be at least one");
+        if (degreesOfFreedom == 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        } else if (degreesOfFreedom == 2) {
+            return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+        }
+        double x = normalQuantile(p);
+        double n = degreesOfFreedom;
+        double x2 = x * x;
+        double g1 = (x2 + 1) * x / 4;
+        double g2 = ((5 * x2 + 16) * x2 + 3) * x / 96;
+        double g3 = (((3 * x2 + 19) * x2 + 17) * x2 - 15) * x / 384;
+        double g4 = ((((79 * x2 + 776) * x2 + 1482) * x2 - 1920) * x2 - 945) * x / 92160;
+        return x + g1 / n + g2 / (n * n) + g3 / (n * n * n) + g4 / (n * n * n * n);
+    }
+}
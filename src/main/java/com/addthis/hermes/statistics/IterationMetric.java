@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.Objects;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.internal.MeasurementTree;
+
+/**
+ * Extracts a single value from the measurements of one iteration.
+ * See {@link #navigation(NavigationTimingField, NavigationTimingField)}
+ * and {@link #resource(String, ResourceTimingField)} for the
+ * two standard metrics.
+ */
+public interface IterationMetric {
+
+    /**
+     * Returns the value of the metric for one iteration
+     * or {@link Double#NaN} if the iteration does not
+     * contain the measurement.
+     *
+     * @param iteration measurements of the iteration
+     * @return value of the metric
+     */
+    public double extract(MeasurementTree iteration);
+
+    /**
+     * Elapsed time between two Navigation Timing attributes,
+     * for example from navigationStart to loadEventEnd.
+     *
+     * @param start the earlier attribute
+     * @param end   the later attribute
+     * @return navigation metric
+     */
+    public static IterationMetric navigation(NavigationTimingField start, NavigationTimingField end) {
+        return iteration -> {
+            NavigationTiming navigation = iteration.getNavigation();
+            if (navigation == null || end.get(navigation) == 0) {
+                return Double.NaN;
+            }
+            return end.get(navigation) - start.get(navigation);
+        };
+    }
+
+    /**
+     * One timing attribute of the first resource with the specified
+     * (transformed) name in any category of the iteration.
+     *
+     * @param name  name of the resource
+     * @param field timing attribute
+     * @return resource metric
+     */
+    public static IterationMetric resource(String name, ResourceTimingField field) {
+        return iteration -> find(iteration, name, field);
+    }
+
+    static double find(MeasurementTree tree, String name, ResourceTimingField field) {
+        ResourceTimingColumns measurements = tree.getMeasurements();
+        for (int i = 0; i < measurements.size(); i++) {
+            if (Objects.equals(name, measurements.getName(i))) {
+                return measurements.get(i, field);
+            }
+        }
+        for (MeasurementTree category : tree.getCategories().values()) {
+            double value = find(category, name, field);
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
+        return Double.NaN;
+    }
+}
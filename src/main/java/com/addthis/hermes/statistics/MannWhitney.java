@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Mann-Whitney U test (Wilcoxon rank-sum test) of two independent samples
+ * with the normal approximation, a correction for ties and a continuity
+ * correction. The effect size is Cliff's delta: the probability that a value
+ * of the second sample is larger than a value of the first sample minus the
+ * probability that it is smaller. A positive delta means that the second
+ * sample tends to be larger.
+ */
+public final class MannWhitney {
+
+    private final int firstSize;
+
+    private final int secondSize;
+
+    private final double u;
+
+    private final double z;
+
+    private final double effectSize;
+
+    private MannWhitney(int firstSize, int secondSize, double u, double z, double effectSize) {
+        this.firstSize = firstSize;
+        this.secondSize = secondSize;
+        this.u = u;
+        this.z = z;
+        this.effectSize = effectSize;
+    }
+
+    /**
+     * Compare two samples.
+     *
+     * @param first  first sample, not empty
+     * @param second second sample, not empty
+     * @return outcome of the test
+     */
+    public static MannWhitney test(double[] first, double[] second) {
+        checkArgument(first.length > 0 && second.length > 0, "samples must not be empty");
+        int n1 = first.length;
+        int n2 = second.length;
+        int n = n1 + n2;
+        double[] values = new double[n];
+        boolean[] fromFirst = new boolean[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            values[i] = (i < n1) ? first[i] : second[i - n1];
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        for (int i = 0; i < n1; i++) {
+            fromFirst[i] = true;
+        }
+        double rankSum = 0;
+        double tieSum = 0;
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j + 1 < n && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            int ties = j - i + 1;
+            tieSum += (double) ties * ties * ties - ties;
+            for (int k = i; k <= j; k++) {
+                if (fromFirst[order[k]]) {
+                    rankSum += rank;
+                }
+            }
+            i = j + 1;
+        }
+        double u = rankSum - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * (double) n2 / 2;
+        double variance = n1 * (double) n2 / 12 * ((n + 1) - tieSum / ((double) n * (n - 1)));
+        double z;
+        if (variance <= 0) {
+            z = 0;
+        } else {
+            double difference = u - mean;
+            double corrected = Math.signum(difference) * Math.max(0, Math.abs(difference) - 0.5);
+            z = corrected / Math.sqrt(variance);
+        }
+        double effectSize = 1 - 2 * u / (n1 * (double) n2);
+        return new MannWhitney(n1, n2, u, z, effectSize);
+    }
+
+    /**
+     * Returns the U statistic of the first sample: the number of pairs
+     * in which the value of the first sample is larger, counting ties as one half.
+     *
+     * @return U statistic
+     */
+    public double getU() {
+        return u;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getEffectSize() {
+        return effectSize;
+    }
+
+    public int getFirstSize() {
+        return firstSize;
+    }
+
+    public int getSecondSize() {
+        return secondSize;
+    }
+
+    /**
+     * Returns the two-sided p-value of the null hypothesis
+     * that both samples come from the same distribution.
+     *
+     * @return two-sided p-value
+     */
+    public double getPValue() {
+        return Math.min(1, 2 * Distributions.normalCdf(-Math.abs(z)));
+    }
+
+    /**
+     * Returns the one-sided p-value against the alternative
+     * that the second sample tends to be larger than the first.
+     *
+     * @return one-sided p-value
+     */
+    public double getPValueSecondGreater() {
+        return Distributions.normalCdf(z);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Running count, mean, variance, minimum and maximum computed in a single
+ * pass with Welford's algorithm. Two instances are merged with the
+ * parallel formula of Chan, Golub and LeVeque.
+ * This class is not safe for use by multiple threads.
+ */
+public class Moments {
+
+    private long count;
+
+    private double mean;
+
+    private double m2;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(Moments other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Write the state of the moments so that it
+     * can be restored with {@link #readFrom(DataInput)}.
+     *
+     * @param output destination of the state
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeLong(count);
+        output.writeDouble(mean);
+        output.writeDouble(m2);
+        output.writeDouble(min);
+        output.writeDouble(max);
+    }
+
+    public static Moments readFrom(DataInput input) throws IOException {
+        Moments moments = new Moments();
+        moments.count = input.readLong();
+        moments.mean = input.readDouble();
+        moments.m2 = input.readDouble();
+        moments.min = input.readDouble();
+        moments.max = input.readDouble();
+        return moments;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return (count > 0) ? mean : Double.NaN;
+    }
+
+    /**
+     * Returns the sample variance or {@link Double#NaN}
+     * if there are fewer than two values.
+     *
+     * @return sample variance
+     */
+    public double getVariance() {
+        return (count > 1) ? m2 / (count - 1) : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return (count > 0) ? min : Double.NaN;
+    }
+
+    public double getMax() {
+        return (count > 0) ? max : Double.NaN;
+    }
+}
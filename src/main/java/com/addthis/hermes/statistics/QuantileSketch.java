@@ -0,0 +1,284 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Mergeable quantile sketch with a relative accuracy guarantee.
+ * Values are counted in buckets whose boundaries grow geometrically
+ * by a factor of {@code (1 + accuracy) / (1 - accuracy)} so that
+ * every quantile estimate is within {@code accuracy} of the true
+ * value relative to its magnitude (see Masson, Rim and Lee,
+ * "DDSketch: A Fast and Fully-Mergeable Quantile Sketch with
+ * Relative-Error Guarantees"). Memory grows with the logarithm
+ * of the range of the values, not with the number of values.
+ * Sketches can only be merged with sketches of the same accuracy.
+ * This class is not safe for use by multiple threads.
+ */
+public class QuantileSketch {
+
+    /**
+     * Default relative accuracy of the quantile estimates.
+     */
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    /**
+     * Magnitudes below this value are counted as zero.
+     */
+    private static final double MIN_MAGNITUDE = 1e-9;
+
+    private final double accuracy;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final Buckets positive = new Buckets();
+
+    private final Buckets negative = new Buckets();
+
+    private long zeroCount;
+
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    public QuantileSketch(double accuracy) {
+        checkArgument(accuracy > 0 && accuracy < 1, "accuracy must be between 0 and 1");
+        this.accuracy = accuracy;
+        this.gamma = (1 + accuracy) / (1 - accuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, long weight) {
+        checkArgument(!Double.isNaN(value), "value must be a number");
+        checkArgument(weight >= 0, "weight must be non-negative");
+        if (value > MIN_MAGNITUDE) {
+            positive.add(index(value), weight);
+        } else if (value < -MIN_MAGNITUDE) {
+            negative.add(index(-value), weight);
+        } else {
+            zeroCount += weight;
+        }
+        count += weight;
+    }
+
+    /**
+     * Add all the values of another sketch into this sketch.
+     *
+     * @param other sketch with the same accuracy
+     */
+    public void merge(QuantileSketch other) {
+        checkArgument(other.accuracy == accuracy, "cannot merge sketches of different accuracy");
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Returns an estimate of the value at the specified quantile
+     * or {@link Double#NaN} if the sketch is empty.
+     *
+     * @param quantile number between 0 and 1 inclusive
+     * @return estimated value
+     */
+    public double getQuantile(double quantile) {
+        checkArgument(quantile >= 0 && quantile <= 1, "quantile must be between 0 and 1");
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    /**
+     * Returns an estimate of the median absolute deviation
+     * from the median or {@link Double#NaN} if the sketch is empty.
+     *
+     * @return estimated median absolute deviation
+     */
+    public double getMedianAbsoluteDeviation() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double median = getQuantile(0.5);
+        int buckets = positive.counts.length + negative.counts.length + 1;
+        double[] deviations = new double[buckets];
+        long[] weights = new long[buckets];
+        int next = 0;
+        for (int i = 0; i < positive.counts.length; i++) {
+            deviations[next] = Math.abs(value(positive.offset + i) - median);
+            weights[next++] = positive.counts[i];
+        }
+        for (int i = 0; i < negative.counts.length; i++) {
+            deviations[next] = Math.abs(-value(negative.offset + i) - median);
+            weights[next++] = negative.counts[i];
+        }
+        deviations[next] = Math.abs(median);
+        weights[next] = zeroCount;
+        Integer[] order = new Integer[buckets];
+        for (int i = 0; i < buckets; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(deviations[a], deviations[b]));
+        long rank = (count - 1) / 2;
+        long seen = 0;
+        for (Integer i : order) {
+            seen += weights[i];
+            if (seen > rank) {
+                return deviations[i];
+            }
+        }
+        return deviations[order[buckets - 1]];
+    }
+
+    /**
+     * Write the state of the sketch so that it can be restored with
+     * {@link #readFrom(DataInput)}. Only the buckets that are not empty
+     * are written.
+     *
+     * @param output destination of the state
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeDouble(accuracy);
+        output.writeLong(zeroCount);
+        positive.writeTo(output);
+        negative.writeTo(output);
+    }
+
+    public static QuantileSketch readFrom(DataInput input) throws IOException {
+        double accuracy = input.readDouble();
+        if (!(accuracy > 0 && accuracy < 1)) {
+            throw new IOException("Invalid sketch accuracy " + accuracy);
+        }
+        QuantileSketch sketch = new QuantileSketch(accuracy);
+        sketch.zeroCount = input.readLong();
+        sketch.count = sketch.zeroCount + sketch.positive.readFrom(input) + sketch.negative.readFrom(input);
+        return sketch;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Dense array of bucket counts starting from the bucket index {@code offset}.
+     */
+    private static final class Buckets {
+
+        long[] counts = new long[0];
+
+        int offset;
+
+        void add(int index, long weight) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+            } else if (index < offset) {
+                long[] grown = new long[counts.length + (offset - index)];
+                System.arraycopy(counts, 0, grown, offset - index, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+            counts[index - offset] += weight;
+        }
+
+        void writeTo(DataOutput output) throws IOException {
+            int occupied = 0;
+            for (long bucket : counts) {
+                if (bucket > 0) {
+                    occupied++;
+                }
+            }
+            output.writeInt(occupied);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    output.writeInt(offset + i);
+                    output.writeLong(counts[i]);
+                }
+            }
+        }
+
+        /**
+         * Returns the total count of the buckets that were read.
+         */
+        long readFrom(DataInput input) throws IOException {
+            int occupied = input.readInt();
+            long total = 0;
+            for (int i = 0; i < occupied; i++) {
+                int index = input.readInt();
+                long weight = input.readLong();
+                if (weight <= 0) {
+                    throw new IOException("Invalid sketch bucket count " + weight);
+                }
+                add(index, weight);
+                total += weight;
+            }
+            return total;
+        }
+
+        void merge(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] > 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+    }
+}
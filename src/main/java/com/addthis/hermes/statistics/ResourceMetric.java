@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import com.addthis.hermes.data.ResourceTiming;
+
+/**
+ * The properties of a resource that are summarized and compared:
+ * the start time, the end time (responseEnd) and the duration
+ * (responseEnd - startTime), as plotted by graph.py.
+ */
+public enum ResourceMetric {
+    START, END, DURATION;
+
+    public double get(ResourceTiming measurement) {
+        switch (this) {
+            case START:
+                return measurement.getStartTime();
+            case END:
+                return measurement.getResponseEnd();
+            case DURATION:
+                return measurement.getResponseEnd() - measurement.getStartTime();
+            default:
+                throw new IllegalStateException("unknown metric " + this);
+        }
+    }
+
+    /**
+     * Returns the name used for the metric in reports.
+     *
+     * @return lower case name
+     */
+    public String getPropertyName() {
+        return name().toLowerCase();
+    }
+}
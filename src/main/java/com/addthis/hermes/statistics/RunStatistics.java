@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import javax.annotation.Nullable;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.MeasurementListener;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Aggregates the summary statistics of a run as the measurements arrive
+ * from the {@link com.addthis.hermes.internal.Manager}. For each resource
+ * name every {@link ResourceMetric} is summarized. For each Navigation Timing attribute the time elapsed since
+ * navigationStart is summarized, skipping attributes that were not set.
+ * The number of distinct resource names can be bounded, in which case
+ * measurements of names beyond the bound are counted and dropped.
+ * This class is safe for use by multiple threads. The summaries it
+ * returns are copies taken while holding the lock, so they can be read
+ * or serialized while measurements keep arriving.
+ */
+@JsonPropertyOrder({"iterations", "navigation", "resources"})
+public class RunStatistics implements MeasurementListener {
+
+    private final Map<String, EnumMap<ResourceMetric, Summary>> resources = new TreeMap<>();
+
+    private final Map<NavigationTimingField, Summary> navigation = new EnumMap<>(NavigationTimingField.class);
+
+    private final int maxResources;
+
+    private long iterations;
+
+    private long droppedMeasurements;
+
+    public RunStatistics() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxResources maximum number of distinct resource names to summarize
+     */
+    public RunStatistics(int maxResources) {
+        checkArgument(maxResources > 0);
+        this.maxResources = maxResources;
+    }
+
+    @Override
+    public synchronized void navigationTiming(long timestamp, NavigationTiming timing) {
+        iterations++;
+        long start = timing.getNavigationStart();
+        for (NavigationTimingField field : NavigationTimingField.values()) {
+            long value = field.get(timing);
+            if (field != NavigationTimingField.NAVIGATION_START && value > 0) {
+                Summary summary = navigation.get(field);
+                if (summary == null) {
+                    summary = new Summary();
+                    navigation.put(field, summary);
+                }
+                summary.add(value - start);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+        EnumMap<ResourceMetric, Summary> summaries = resources.get(measurement.getName());
+        if (summaries == null) {
+            if (resources.size() >= maxResources) {
+                droppedMeasurements++;
+                return;
+            }
+            summaries = new EnumMap<>(ResourceMetric.class);
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                summaries.put(metric, new Summary());
+            }
+            resources.put(measurement.getName(), summaries);
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            summaries.get(metric).add(metric.get(measurement));
+        }
+    }
+
+    @JsonProperty("iterations")
+    public synchronized long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of measurements that were dropped
+     * because the maximum number of resource names was reached.
+     */
+    @JsonIgnore
+    public synchronized long getDroppedMeasurements() {
+        return droppedMeasurements;
+    }
+
+    public synchronized Set<String> getResourceNames() {
+        return new TreeSet<>(resources.keySet());
+    }
+
+    @Nullable
+    public synchronized Summary getResource(String name, ResourceMetric metric) {
+        EnumMap<ResourceMetric, Summary> summaries = resources.get(name);
+        return (summaries != null) ? summaries.get(metric).copy() : null;
+    }
+
+    @Nullable
+    public synchronized Summary getNavigation(NavigationTimingField field) {
+        Summary summary = navigation.get(field);
+        return (summary != null) ? summary.copy() : null;
+    }
+
+    @JsonProperty("resources")
+    synchronized Map<String, Map<String, Summary>> getResources() {
+        Map<String, Map<String, Summary>> result = new TreeMap<>();
+        for (Map.Entry<String, EnumMap<ResourceMetric, Summary>> entry : resources.entrySet()) {
+            Map<String, Summary> metrics = new TreeMap<>();
+            for (Map.Entry<ResourceMetric, Summary> metric : entry.getValue().entrySet()) {
+                metrics.put(metric.getKey().getPropertyName(), metric.getValue().copy());
+            }
+            result.put(entry.getKey(), metrics);
+        }
+        return result;
+    }
+
+    @JsonProperty("navigation")
+    synchronized Map<String, Summary> getNavigation() {
+        Map<String, Summary> result = new TreeMap<>();
+        for (Map.Entry<NavigationTimingField, Summary> entry : navigation.entrySet()) {
+            result.put(entry.getKey().getPropertyName(), entry.getValue().copy());
+        }
+        return result;
+    }
+}
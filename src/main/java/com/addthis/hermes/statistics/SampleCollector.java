@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingColumns;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.MeasurementListener;
+
+/**
+ * Retains the raw values that are needed for significance tests: every
+ * {@link ResourceMetric} of every resource name and the navigation timing
+ * of every iteration in a {@link NavigationTimingColumns}.
+ * This class is safe for use by multiple threads.
+ */
+public class SampleCollector implements MeasurementListener {
+
+    private final Map<String, EnumMap<ResourceMetric, Samples>> resources = new TreeMap<>();
+
+    private final NavigationTimingColumns navigation = new NavigationTimingColumns();
+
+    @Override
+    public synchronized void navigationTiming(long timestamp, NavigationTiming timing) {
+        navigation.add(timing);
+    }
+
+    @Override
+    public synchronized void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+        EnumMap<ResourceMetric, Samples> samples = resources.get(measurement.getName());
+        if (samples == null) {
+            samples = new EnumMap<>(ResourceMetric.class);
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                samples.put(metric, new Samples());
+            }
+            resources.put(measurement.getName(), samples);
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            samples.get(metric).add(metric.get(measurement));
+        }
+    }
+
+    public synchronized int getIterations() {
+        return navigation.size();
+    }
+
+    public synchronized Set<String> getResourceNames() {
+        return new TreeSet<>(resources.keySet());
+    }
+
+    /**
+     * Returns the values of one metric for every occurrence of a resource.
+     *
+     * @param name   transformed name of the resource
+     * @param metric property of the resource
+     * @return the values or an empty array if the resource was never seen
+     */
+    public synchronized double[] getResource(String name, ResourceMetric metric) {
+        EnumMap<ResourceMetric, Samples> samples = resources.get(name);
+        return (samples != null) ? samples.get(metric).toArray() : new double[0];
+    }
+
+    /**
+     * Returns the time elapsed from navigationStart to the attribute
+     * in every iteration where the attribute was set.
+     *
+     * @param field navigation timing attribute
+     * @return elapsed times in milliseconds
+     */
+    public synchronized double[] getNavigation(NavigationTimingField field) {
+        Samples samples = new Samples(navigation.size());
+        for (int i = 0; i < navigation.size(); i++) {
+            long value = navigation.get(i, field);
+            if (value > 0) {
+                samples.add(value - navigation.get(i, NavigationTimingField.NAVIGATION_START));
+            }
+        }
+        return samples.toArray();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive double values.
+ * This class is not safe for use by multiple threads.
+ */
+public class Samples {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] values;
+
+    private int size;
+
+    public Samples() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Samples(int capacity) {
+        values = new double[capacity];
+    }
+
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns a copy of the values.
+     *
+     * @return values in insertion order
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sequential stopping rule for a performance test. After every iteration
+ * the confidence interval of the mean of an {@link IterationMetric} is
+ * computed with Student's t distribution. The rule is satisfied once the
+ * width of the interval relative to the mean is at most the target width,
+ * for example a 95% confidence interval of 4% of the mean. Iterations
+ * that do not contain the metric are not counted.
+ * This class is safe for use by multiple threads.
+ */
+public class StoppingRule {
+
+    /**
+     * Default confidence level of the interval.
+     */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    /**
+     * Default minimum number of samples before the rule can be satisfied.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 5;
+
+    private final IterationMetric metric;
+
+    private final double confidence;
+
+    private final double relativeWidth;
+
+    private final int minSamples;
+
+    private final Moments moments = new Moments();
+
+    public StoppingRule(IterationMetric metric, double relativeWidth) {
+        this(metric, DEFAULT_CONFIDENCE, relativeWidth, DEFAULT_MIN_SAMPLES);
+    }
+
+    public StoppingRule(IterationMetric metric, double confidence, double relativeWidth) {
+        this(metric, confidence, relativeWidth, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * @param metric        value measured in each iteration
+     * @param confidence    confidence level strictly between 0 and 1
+     * @param relativeWidth target width of the interval divided by the mean
+     * @param minSamples    minimum number of samples, at least two
+     */
+    public StoppingRule(IterationMetric metric, double confidence, double relativeWidth, int minSamples) {
+        checkArgument(confidence > 0 && confidence < 1, "confidence must be between 0 and 1");
+        checkArgument(relativeWidth > 0, "relative width must be positive");
+        checkArgument(minSamples >= 2, "at least two samples are required");
+        this.metric = checkNotNull(metric);
+        this.confidence = confidence;
+        this.relativeWidth = relativeWidth;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Record the outcome of one iteration.
+     *
+     * @param iteration measurements of the iteration
+     */
+    public void record(MeasurementTree iteration) {
+        double value = metric.extract(iteration);
+        if (!Double.isNaN(value)) {
+            synchronized (this) {
+                moments.add(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the current width of the confidence interval
+     * divided by the absolute value of the mean, or infinity
+     * if there are fewer than two samples.
+     *
+     * @return relative width of the confidence interval
+     */
+    public synchronized double getRelativeWidth() {
+        long count = moments.getCount();
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = Distributions.studentTQuantile(1 - (1 - confidence) / 2, count - 1);
+        double halfWidth = t * moments.getStandardDeviation() / Math.sqrt(count);
+        return 2 * halfWidth / Math.abs(moments.getMean());
+    }
+
+    public synchronized boolean isSatisfied() {
+        return moments.getCount() >= minSamples && getRelativeWidth() <= relativeWidth;
+    }
+
+    public synchronized long getSamples() {
+        return moments.getCount();
+    }
+
+    public synchronized double getMean() {
+        return moments.getMean();
+    }
+
+    public double getTargetWidth() {
+        return relativeWidth;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Summary statistics of a stream of values: the {@link Moments}
+ * and a {@link QuantileSketch} of the values. Serializes to JSON as the
+ * count, mean, standard deviation, extremes, median absolute deviation
+ * and the 50th, 90th and 99th percentiles.
+ * This class is not safe for use by multiple threads.
+ */
+@JsonAutoDetect(getterVisibility = JsonAutoDetect.Visibility.NONE,
+                isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonPropertyOrder({"count", "mean", "stdDev", "min", "max", "mad", "p50", "p90", "p99"})
+public class Summary {
+
+    private final Moments moments = new Moments();
+
+    private final QuantileSketch sketch;
+
+    public Summary() {
+        this(new QuantileSketch());
+    }
+
+    public Summary(QuantileSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    public void add(double value) {
+        moments.add(value);
+        sketch.add(value);
+    }
+
+    public void merge(Summary other) {
+        moments.merge(other.moments);
+        sketch.merge(other.sketch);
+    }
+
+    /**
+     * Returns an independent copy of the moments and the sketch.
+     */
+    public Summary copy() {
+        Summary copy = new Summary(new QuantileSketch(sketch.getAccuracy()));
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Write the moments and the sketch so that they
+     * can be restored with {@link #readFrom(DataInput)}.
+     *
+     * @param output destination of the summary
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        moments.writeTo(output);
+        sketch.writeTo(output);
+    }
+
+    public static Summary readFrom(DataInput input) throws IOException {
+        Moments moments = Moments.readFrom(input);
+        Summary summary = new Summary(QuantileSketch.readFrom(input));
+        summary.moments.merge(moments);
+        return summary;
+    }
+
+    public Moments getMoments() {
+        return moments;
+    }
+
+    public QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    @JsonProperty("count")
+    public long getCount() {
+        return moments.getCount();
+    }
+
+    @JsonProperty("mean")
+    public double getMean() {
+        return moments.getMean();
+    }
+
+    @JsonProperty("stdDev")
+    public double getStandardDeviation() {
+        return moments.getStandardDeviation();
+    }
+
+    @JsonProperty("min")
+    public double getMin() {
+        return moments.getMin();
+    }
+
+    @JsonProperty("max")
+    public double getMax() {
+        return moments.getMax();
+    }
+
+    @JsonProperty("mad")
+    public double getMedianAbsoluteDeviation() {
+        return sketch.getMedianAbsoluteDeviation();
+    }
+
+    @JsonProperty("p50")
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    @JsonProperty("p90")
+    public double getP90() {
+        return getQuantile(0.9);
+    }
+
+    @JsonProperty("p99")
+    public double getP99() {
+        return getQuantile(0.99);
+    }
+
+    /**
+     * Returns the estimate of the sketch limited
+     * to the observed minimum and maximum.
+     *
+     * @param quantile number between 0 and 1 inclusive
+     * @return estimated value
+     */
+    public double getQuantile(double quantile) {
+        double estimate = sketch.getQuantile(quantile);
+        return Math.max(moments.getMin(), Math.min(moments.getMax(), estimate));
+    }
+}
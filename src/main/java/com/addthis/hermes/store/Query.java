@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.addthis.hermes.data.ResourceTimingField;
+
+import com.google.common.collect.ImmutableList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Selects series of a {@link ResultsStore} by category path prefix,
+ * resource name pattern and range of iteration ids, and specifies
+ * which timing attribute and which quantiles to report.
+ */
+public class Query {
+
+    /**
+     * Default timing attribute that is summarized.
+     */
+    public static final ResourceTimingField DEFAULT_FIELD = ResourceTimingField.DURATION;
+
+    private final ImmutableList<String> categories;
+
+    private final Pattern namePattern;
+
+    private final long from;
+
+    private final long to;
+
+    private final ResourceTimingField field;
+
+    private final double[] quantiles;
+
+    private Query(List<String> categories, Pattern namePattern, long from, long to,
+                  ResourceTimingField field, double[] quantiles) {
+        checkNotNull(namePattern);
+        checkNotNull(field);
+        checkArgument(from <= to, "from must not be after to");
+        for (double quantile : quantiles) {
+            checkArgument(quantile >= 0 && quantile <= 1, "quantile must be in [0, 1]");
+        }
+        this.categories = ImmutableList.copyOf(categories);
+        this.namePattern = namePattern;
+        this.from = from;
+        this.to = to;
+        this.field = field;
+        this.quantiles = quantiles.clone();
+    }
+
+    boolean matches(SeriesKey key) {
+        return key.hasCategoryPrefix(categories) && namePattern.matcher(key.getName()).find();
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public Pattern getNamePattern() {
+        return namePattern;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public ResourceTimingField getField() {
+        return field;
+    }
+
+    public double[] getQuantiles() {
+        return quantiles.clone();
+    }
+
+    public static class Builder {
+
+        private List<String> categories = ImmutableList.of();
+
+        private Pattern namePattern = Pattern.compile("");
+
+        private long from = Long.MIN_VALUE;
+
+        private long to = Long.MAX_VALUE;
+
+        private ResourceTimingField field = DEFAULT_FIELD;
+
+        private double[] quantiles = {0.5, 0.9, 0.99};
+
+        /**
+         * Only select series whose category path starts with these categories.
+         */
+        public Builder setCategories(String... categories) {
+            this.categories = Arrays.asList(categories);
+            return this;
+        }
+
+        /**
+         * Only select series whose resource name contains a match of the pattern.
+         */
+        public Builder setNamePattern(Pattern namePattern) {
+            this.namePattern = namePattern;
+            return this;
+        }
+
+        /**
+         * Only select iterations whose id, the millisecond timestamp
+         * of the iteration, is in the range [from, to).
+         */
+        public Builder setTimeRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public Builder setField(ResourceTimingField field) {
+            this.field = field;
+            return this;
+        }
+
+        public Builder setQuantiles(double... quantiles) {
+            this.quantiles = quantiles;
+            return this;
+        }
+
+        public Query build() {
+            return new Query(categories, namePattern, from, to, field, quantiles);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.statistics.Summary;
+
+/**
+ * A directory of imported results files that can be queried without
+ * decompressing or parsing them again. Each results file is imported into
+ * one memory-mapped {@link Segment} that is indexed by category path,
+ * resource name and iteration id. A {@link Query} reads only the blocks of
+ * the series that match it, and only the rows of its range of iteration ids.
+ * This class is not safe for use by multiple threads.
+ */
+public class ResultsStore {
+
+    static final String SEGMENT_SUFFIX = ".segment";
+
+    private final Path directory;
+
+    private final List<Segment> segments;
+
+    private ResultsStore(Path directory, List<Segment> segments) {
+        this.directory = directory;
+        this.segments = segments;
+    }
+
+    /**
+     * Open the store in the directory, creating the directory if necessary.
+     *
+     * @param directory location of the store
+     * @return the store
+     * @throws IOException if a segment cannot be read
+     */
+    public static ResultsStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) {
+                segments.add(Segment.open(path));
+            }
+        }
+        return new ResultsStore(directory, segments);
+    }
+
+    /**
+     * Import a results file of either format as a new segment.
+     * The name of the segment is the file name of the results.
+     *
+     * @param resultsPath results file
+     * @return number of iterations imported
+     * @throws IOException if the results cannot be read, the segment
+     *                     cannot be written or it already exists
+     */
+    public long importResults(Path resultsPath) throws IOException {
+        Path segmentPath = directory.resolve(resultsPath.getFileName() + SEGMENT_SUFFIX);
+        if (Files.exists(segmentPath)) {
+            throw new IOException("Results have already been imported " + segmentPath);
+        }
+        Map<SeriesKey, SeriesBuilder> series = new TreeMap<>();
+        long[] count = new long[1];
+        ResultsReader.read(resultsPath, (id, measurements) -> {
+            addSeries(series, new ArrayList<>(), id, measurements);
+            count[0]++;
+        });
+        Path temporary = directory.resolve(segmentPath.getFileName() + ".tmp");
+        Segment.write(temporary, series);
+        Files.move(temporary, segmentPath, StandardCopyOption.ATOMIC_MOVE);
+        segments.add(Segment.open(segmentPath));
+        return count[0];
+    }
+
+    private static void addSeries(Map<SeriesKey, SeriesBuilder> series, List<String> path,
+                                  long id, MeasurementTree node) {
+        ResourceTimingColumns measurements = node.getMeasurements();
+        for (int row = 0; row < measurements.size(); row++) {
+            SeriesKey key = new SeriesKey(path, measurements.getName(row));
+            SeriesBuilder builder = series.get(key);
+            if (builder == null) {
+                builder = new SeriesBuilder();
+                series.put(key, builder);
+            }
+            builder.add(id, measurements, row);
+        }
+        for (Map.Entry<String, MeasurementTree> category : node.getCategories().entrySet()) {
+            path.add(category.getKey());
+            addSeries(series, path, id, category.getValue());
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * Summarize every series that matches the query. Series with
+     * the same key in different segments are merged.
+     *
+     * @param query selects the series and the values
+     * @return one result per matching series sorted by key
+     */
+    public List<SeriesResult> query(Query query) {
+        Map<SeriesKey, Summary> summaries = new TreeMap<>();
+        Map<SeriesKey, Integer> contributors = new TreeMap<>();
+        for (Segment segment : segments) {
+            if (!segment.overlaps(query.getFrom(), query.getTo())) {
+                continue;
+            }
+            for (Segment.Entry entry : segment.getEntries()) {
+                if (!entry.overlaps(query.getFrom(), query.getTo()) || !query.matches(entry.key)) {
+                    continue;
+                }
+                Summary summary = summaries.get(entry.key);
+                if (summary == null) {
+                    summary = new Summary();
+                    summaries.put(entry.key, summary);
+                }
+                long before = summary.getCount();
+                Summary target = summary;
+                segment.read(entry, query.getField(), query.getFrom(), query.getTo(),
+                             (id, value) -> target.add(value));
+                if (summary.getCount() > before) {
+                    contributors.merge(entry.key, 1, Integer::sum);
+                }
+            }
+        }
+        List<SeriesResult> results = new ArrayList<>();
+        for (Map.Entry<SeriesKey, Summary> summary : summaries.entrySet()) {
+            if (summary.getValue().getCount() > 0) {
+                results.add(new SeriesResult(summary.getKey(), contributors.get(summary.getKey()),
+                                             summary.getValue(), query.getQuantiles()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the paths of the segments of the store.
+     *
+     * @return segment paths
+     */
+    public List<Path> getSegments() {
+        List<Path> paths = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            paths.add(segment.getPath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.addthis.hermes.data.ResourceTimingField;
+
+/**
+ * One imported results file in the store. A segment is an uncompressed
+ * file that is read through a memory mapping. It starts with the
+ * {@link #MAGIC} bytes, the format version and the offset of the index,
+ * followed by one block per series and then the index. A block holds the
+ * iteration ids of the series in ascending order followed by one column per
+ * {@link ResourceTimingField}, so a query only touches the pages of the
+ * iteration ids and of the column that it reads. The index holds the key,
+ * the number of rows, the range of iteration ids and the offset of every
+ * block and is read into memory when the segment is opened.
+ */
+final class Segment {
+
+    static final byte[] MAGIC = {'H', 'R', 'M', 'S'};
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 8;
+
+    private static final int FIELD_COUNT = ResourceTimingField.values().length;
+
+    /**
+     * Location and range of one series in the segment.
+     */
+    static final class Entry {
+
+        final SeriesKey key;
+
+        final int count;
+
+        final long minId;
+
+        final long maxId;
+
+        final long offset;
+
+        Entry(SeriesKey key, int count, long minId, long maxId, long offset) {
+            this.key = key;
+            this.count = count;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.offset = offset;
+        }
+
+        boolean overlaps(long from, long to) {
+            return minId < to && maxId >= from;
+        }
+    }
+
+    /**
+     * Receives the values of a series that match a query.
+     */
+    interface ValueHandler {
+        void value(long id, double value);
+    }
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final List<Entry> entries;
+
+    private final long minId;
+
+    private final long maxId;
+
+    private Segment(Path path, MappedByteBuffer buffer, List<Entry> entries) {
+        this.path = path;
+        this.buffer = buffer;
+        this.entries = entries;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Entry entry : entries) {
+            min = Math.min(min, entry.minId);
+            max = Math.max(max, entry.maxId);
+        }
+        this.minId = min;
+        this.maxId = max;
+    }
+
+    static Segment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer input = buffer.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        input.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a results store segment " + path);
+        }
+        int version = input.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported segment version " + version + " in " + path);
+        }
+        input.position((int) input.getLong());
+        int size = input.getInt();
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int depth = input.getInt();
+            List<String> categories = new ArrayList<>(depth);
+            for (int j = 0; j < depth; j++) {
+                categories.add(getString(input));
+            }
+            SeriesKey key = new SeriesKey(categories, getString(input));
+            entries.add(new Entry(key, input.getInt(), input.getLong(), input.getLong(), input.getLong()));
+        }
+        return new Segment(path, buffer, Collections.unmodifiableList(entries));
+    }
+
+    private static String getString(ByteBuffer input) {
+        byte[] bytes = new byte[input.getInt()];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Write the series to a new segment file.
+     *
+     * @param path   path to new segment file
+     * @param series series sorted by key, the rows of each series sorted by iteration id
+     */
+    static void write(Path path, Map<SeriesKey, SeriesBuilder> series) throws IOException {
+        long offset = HEADER_SIZE;
+        List<Entry> entries = new ArrayList<>(series.size());
+        for (Map.Entry<SeriesKey, SeriesBuilder> block : series.entrySet()) {
+            SeriesBuilder rows = block.getValue();
+            entries.add(new Entry(block.getKey(), rows.size(), rows.getId(0), rows.getId(rows.size() - 1), offset));
+            offset += 8L * rows.size() * (1 + FIELD_COUNT);
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Results are too large for one segment");
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(path.toFile())))) {
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(offset);
+            for (SeriesBuilder rows : series.values()) {
+                rows.writeTo(output);
+            }
+            output.writeInt(entries.size());
+            for (Entry entry : entries) {
+                output.writeInt(entry.key.getCategories().size());
+                for (String category : entry.key.getCategories()) {
+                    putString(output, category);
+                }
+                putString(output, entry.key.getName());
+                output.writeInt(entry.count);
+                output.writeLong(entry.minId);
+                output.writeLong(entry.maxId);
+                output.writeLong(entry.offset);
+            }
+        }
+    }
+
+    /**
+     * Pass the values of one series with iteration ids in the
+     * range [from, to) to the handler.
+     */
+    void read(Entry entry, ResourceTimingField field, long from, long to, ValueHandler handler) {
+        int start = (int) entry.offset;
+        int first = search(start, entry.count, from);
+        int last = search(start, entry.count, to);
+        int column = start + 8 * entry.count * (1 + field.ordinal());
+        for (int i = first; i < last; i++) {
+            handler.value(buffer.getLong(start + 8 * i), buffer.getDouble(column + 8 * i));
+        }
+    }
+
+    /**
+     * Returns the first row whose iteration id is at least the target.
+     */
+    private int search(int start, int count, long target) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getLong(start + 8 * middle) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    boolean overlaps(long from, long to) {
+        return !entries.isEmpty() && minId < to && maxId >= from;
+    }
+
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.ResourceTimingField;
+
+/**
+ * Accumulates the rows of one series while a results file is imported.
+ */
+final class SeriesBuilder {
+
+    private static final ResourceTimingField[] FIELDS = ResourceTimingField.values();
+
+    private long[] ids = new long[8];
+
+    private double[][] columns = new double[FIELDS.length][8];
+
+    private int size;
+
+    private boolean sorted = true;
+
+    void add(long id, ResourceTimingColumns measurements, int row) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+        }
+        if (size > 0 && id < ids[size - 1]) {
+            sorted = false;
+        }
+        ids[size] = id;
+        for (ResourceTimingField field : FIELDS) {
+            columns[field.ordinal()][size] = measurements.get(row, field);
+        }
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getId(int row) {
+        sort();
+        return ids[row];
+    }
+
+    /**
+     * Order the rows by iteration id. Concurrent runs may
+     * write iterations slightly out of order.
+     */
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        long[] sortedIds = new long[size];
+        double[][] sortedColumns = new double[columns.length][size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[order[i]];
+            for (int j = 0; j < columns.length; j++) {
+                sortedColumns[j][i] = columns[j][order[i]];
+            }
+        }
+        ids = sortedIds;
+        columns = sortedColumns;
+        sorted = true;
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+        sort();
+        for (int i = 0; i < size; i++) {
+            output.writeLong(ids[i]);
+        }
+        for (double[] column : columns) {
+            for (int i = 0; i < size; i++) {
+                output.writeDouble(column[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Identifies a series of measurements by the category path
+ * of the measurements and the transformed resource name.
+ */
+final class SeriesKey implements Comparable<SeriesKey> {
+
+    private final ImmutableList<String> categories;
+
+    private final String name;
+
+    SeriesKey(List<String> categories, String name) {
+        this.categories = ImmutableList.copyOf(categories);
+        this.name = name;
+    }
+
+    List<String> getCategories() {
+        return categories;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean hasCategoryPrefix(List<String> prefix) {
+        return prefix.size() <= categories.size() && categories.subList(0, prefix.size()).equals(prefix);
+    }
+
+    @Override
+    public int compareTo(SeriesKey other) {
+        int length = Math.min(categories.size(), other.categories.size());
+        for (int i = 0; i < length; i++) {
+            int compare = categories.get(i).compareTo(other.categories.get(i));
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        if (categories.size() != other.categories.size()) {
+            return Integer.compare(categories.size(), other.categories.size());
+        }
+        return name.compareTo(other.name);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof SeriesKey)) {
+            return false;
+        }
+        SeriesKey key = (SeriesKey) other;
+        return categories.equals(key.categories) && name.equals(key.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{categories, name});
+    }
+
+    @Override
+    public String toString() {
+        return categories + " " + name;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.addthis.hermes.statistics.Summary;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The summary of one series that matched a {@link Query}
+ * across every segment of the store.
+ */
+@JsonPropertyOrder({"categories", "name", "segments", "summary", "quantiles"})
+public class SeriesResult {
+
+    @JsonProperty
+    private final List<String> categories;
+
+    @JsonProperty
+    private final String name;
+
+    @JsonProperty
+    private final int segments;
+
+    @JsonProperty
+    private final Summary summary;
+
+    @JsonProperty
+    private final Map<String, Double> quantiles;
+
+    SeriesResult(SeriesKey key, int segments, Summary summary, double[] quantiles) {
+        this.categories = key.getCategories();
+        this.name = key.getName();
+        this.segments = segments;
+        this.summary = summary;
+        this.quantiles = new LinkedHashMap<>();
+        for (double quantile : quantiles) {
+            this.quantiles.put(Double.toString(quantile), summary.getQuantile(quantile));
+        }
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of segments that contributed values.
+     *
+     * @return number of segments
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    public Summary getSummary() {
+        return summary;
+    }
+
+    public Map<String, Double> getQuantiles() {
+        return quantiles;
+    }
+}
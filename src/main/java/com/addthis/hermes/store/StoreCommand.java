@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+import com.addthis.hermes.data.ResourceTimingField;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Command line interface of the {@link ResultsStore}:
+ * <pre>
+ * import &lt;store&gt; &lt;results&gt;...
+ * query &lt;store&gt; [options]
+ * </pre>
+ * The query prints one JSON summary per matching series.
+ */
+public class StoreCommand {
+
+    public static final String IMPORT = "import";
+
+    public static final String QUERY = "query";
+
+    private StoreCommand() {}
+
+    /**
+     * Returns true if the argument names a store command.
+     *
+     * @param command first command line argument
+     * @return true for the import and query commands
+     */
+    public static boolean isCommand(String command) {
+        return IMPORT.equals(command) || QUERY.equals(command);
+    }
+
+    private static Options createQueryOptions() {
+        Option category = Option.builder().argName("name").longOpt("category")
+                                       .hasArg().desc("only series below this category. Repeat the option " +
+                                                      "for nested categories")
+                                       .build();
+        Option name = Option.builder().argName("regex").longOpt("name")
+                                   .hasArg().desc("only resources whose name contains a match of the regex")
+                                   .build();
+        Option from = Option.builder().argName("time").longOpt("from")
+                                   .hasArg().desc("only iterations at or after the time, in epoch " +
+                                                  "milliseconds or ISO-8601")
+                                   .build();
+        Option to = Option.builder().argName("time").longOpt("to")
+                                 .hasArg().desc("only iterations before the time, in epoch milliseconds " +
+                                                "or ISO-8601")
+                                 .build();
+        Option field = Option.builder().argName("attribute").longOpt("field")
+                                    .hasArg().desc("resource timing attribute to summarize. Default is " +
+                                                   Query.DEFAULT_FIELD.getPropertyName())
+                                    .build();
+        Option quantiles = Option.builder().argName("q,...").longOpt("quantiles")
+                                        .hasArg().desc("comma separated quantiles to report. Default is " +
+                                                       "0.5,0.9,0.99")
+                                        .build();
+        Options options = new Options();
+        options.addOption(category);
+        options.addOption(name);
+        options.addOption(from);
+        options.addOption(to);
+        options.addOption(field);
+        options.addOption(quantiles);
+        return options;
+    }
+
+    private static long parseTime(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return Instant.parse(value).toEpochMilli();
+        }
+    }
+
+    private static ResourceTimingField parseField(String name) {
+        for (ResourceTimingField field : ResourceTimingField.values()) {
+            if (field.getPropertyName().equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resource timing attribute " + name);
+    }
+
+    private static void usage(Options options) {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("page-racer import <store> <results>... | query <store> [options]", options);
+        System.exit(1);
+    }
+
+    static Query parseQuery(CommandLine line) {
+        Query.Builder builder = new Query.Builder();
+        if (line.hasOption("category")) {
+            builder.setCategories(line.getOptionValues("category"));
+        }
+        if (line.hasOption("name")) {
+            builder.setNamePattern(Pattern.compile(line.getOptionValue("name")));
+        }
+        long from = line.hasOption("from") ? parseTime(line.getOptionValue("from")) : Long.MIN_VALUE;
+        long to = line.hasOption("to") ? parseTime(line.getOptionValue("to")) : Long.MAX_VALUE;
+        builder.setTimeRange(from, to);
+        if (line.hasOption("field")) {
+            builder.setField(parseField(line.getOptionValue("field")));
+        }
+        if (line.hasOption("quantiles")) {
+            builder.setQuantiles(Arrays.stream(line.getOptionValue("quantiles").split(","))
+                                       .mapToDouble(Double::parseDouble).toArray());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Run a store command.
+     *
+     * @param args the command followed by its arguments
+     * @throws IOException if the store cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = createQueryOptions();
+        if (args.length < 2 || !isCommand(args[0])) {
+            usage(options);
+        }
+        ResultsStore store = ResultsStore.open(Paths.get(args[1]));
+        if (IMPORT.equals(args[0])) {
+            for (int i = 2; i < args.length; i++) {
+                Path results = Paths.get(args[i]);
+                long count = store.importResults(results);
+                System.out.println("Imported " + count + " iterations from " + results);
+            }
+            return;
+        }
+        CommandLine line = null;
+        try {
+            line = new DefaultParser().parse(options, Arrays.copyOfRange(args, 2, args.length));
+        } catch (ParseException ex) {
+            System.err.println("Parsing failed.  Reason: " + ex.getMessage());
+            System.exit(1);
+        }
+        List<SeriesResult> results = store.query(parseQuery(line));
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(System.out, results);
+    }
+}
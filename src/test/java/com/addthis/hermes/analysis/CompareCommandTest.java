@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.statistics.ComparisonReport;
+import com.addthis.hermes.statistics.SampleCollector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompareCommandTest {
+
+    private static SampleCollector samples(double slowdown) {
+        SampleCollector samples = new SampleCollector();
+        for (int i = 0; i < 20; i++) {
+            long loadEventEnd = 1000 + 500 + i + (long) slowdown;
+            samples.navigationTiming(i, new NavigationTiming(1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                                                             0, 0, 0, 0, 0, loadEventEnd));
+            double end = 200 + i + slowdown;
+            samples.measurement(i, new String[0], new ResourceTiming("app.js", "resource", "script", 100, end - 100,
+                                                                     0, 0, 100, 0, 0, 0, 0, 0, 0, 0, end));
+        }
+        return samples;
+    }
+
+    @Test
+    public void gate() {
+        RegressionGate gate = new RegressionGate.Builder().build();
+        assertTrue(gate.evaluate(ComparisonReport.of(samples(0), samples(0))).isEmpty());
+        assertTrue(gate.evaluate(ComparisonReport.of(samples(0), samples(5))).isEmpty());
+        assertTrue(gate.evaluate(ComparisonReport.of(samples(50), samples(0))).isEmpty());
+
+        List<RegressionGate.Regression> regressions = gate.evaluate(ComparisonReport.of(samples(0), samples(50)));
+        assertEquals(3, regressions.size());
+        assertEquals(RegressionGate.Regression.NAVIGATION, regressions.get(0).getKind());
+        assertEquals("loadEventEnd", regressions.get(0).getName());
+        assertEquals("app.js", regressions.get(1).getName());
+        assertEquals("duration", regressions.get(1).getMetric());
+        assertEquals("end", regressions.get(2).getMetric());
+
+        RegressionGate lenient = new RegressionGate.Builder().setRelativeThreshold(0.2).build();
+        assertEquals(2, lenient.evaluate(ComparisonReport.of(samples(0), samples(50))).size());
+        assertTrue(gate.evaluate(ComparisonReport.of(samples(0), samples(8))).isEmpty());
+        RegressionGate strict = new RegressionGate.Builder().setAbsoluteThreshold(2).setRelativeThreshold(0)
+                                                            .setAlpha(0.05).build();
+        assertEquals(3, strict.evaluate(ComparisonReport.of(samples(0), samples(8))).size());
+    }
+
+    @Test
+    public void exitCodes() throws IOException {
+        Path report = Files.createTempFile("compare", ".json");
+        try {
+            String example = new File("examples/spacejam.txt.gz").getPath();
+            assertEquals(CompareCommand.EXIT_PASSED, CompareCommand.run(new String[] {
+                    CompareCommand.COMPARE, example, example, "--report", report.toString()}));
+            JsonNode json = new ObjectMapper().readTree(report.toFile());
+            assertTrue(json.path("passed").asBoolean());
+            assertEquals(100, json.path("comparison").path("baselineIterations").asInt());
+            assertEquals(CompareCommand.EXIT_ERROR, CompareCommand.run(new String[] {CompareCommand.COMPARE}));
+            assertEquals(CompareCommand.EXIT_ERROR, CompareCommand.run(new String[] {
+                    CompareCommand.COMPARE, example, "missing.txt.gz", "--report", report.toString()}));
+        } finally {
+            Files.delete(report);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.StringDictionary;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.JsonResultsWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CriticalPathAnalyzerTest {
+
+    private static ResourceTiming resource(String name, String initiatorType, double start, double end) {
+        return new ResourceTiming(name, "resource", initiatorType, start, end - start,
+                                  0, 0, start, 0, 0, 0, 0, 0, 0, 0, end);
+    }
+
+    private static MeasurementTree iteration(StringDictionary dictionary, long loadEventEnd) {
+        MeasurementTree tree = new MeasurementTree(dictionary);
+        tree.addMeasurement(resource("page.html", "navigation", 0, 100));
+        tree.addMeasurement(resource("async.js", "script", 120, 150), "scripts");
+        tree.addMeasurement(resource("style.css", "link", 110, 200), "styles");
+        tree.addMeasurement(resource("hero.png", "css", 210, 400), "images", "hero");
+        tree.addMeasurement(resource("beacon.gif", "img", 500, 600));
+        tree.setNavigation(new NavigationTiming(1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                                                0, 0, 0, 0, 0, 1000 + loadEventEnd));
+        return tree;
+    }
+
+    @Test
+    public void criticalPath() {
+        StringDictionary dictionary = new StringDictionary();
+        Waterfall waterfall = Waterfall.of(iteration(dictionary, 450));
+        assertEquals(5, waterfall.size());
+        int[] path = waterfall.criticalPath(450);
+        assertEquals(3, path.length);
+        assertEquals("hero.png", waterfall.getName(path[0]));
+        assertEquals("style.css", waterfall.getName(path[1]));
+        assertEquals("page.html", waterfall.getName(path[2]));
+        assertEquals(0, waterfall.criticalPath(50).length);
+    }
+
+    @Test
+    public void rankAcrossIterations() {
+        StringDictionary dictionary = new StringDictionary();
+        List<MeasurementTree> iterations = new ArrayList<>();
+        for (int i = 0; i < 10 * CriticalPathAnalyzer.THRESHOLD; i++) {
+            iterations.add(iteration(dictionary, (i % 2 == 0) ? 450 : 205));
+        }
+        iterations.add(new MeasurementTree(dictionary));
+        CriticalPathReport report = new CriticalPathAnalyzer(4).analyze(iterations);
+        assertEquals(10 * CriticalPathAnalyzer.THRESHOLD, report.getIterations());
+        assertEquals(1, report.getSkipped());
+        assertEquals(2.5, report.getMeanPathLength(), 1e-9);
+        assertEquals(3, report.getResources().size());
+
+        CriticalPathReport.Resource first = report.getResources().get(0);
+        assertEquals("page.html", first.getName());
+        assertEquals("navigation", first.getInitiatorType());
+        assertEquals(1.0, first.getFraction(), 1e-9);
+        assertEquals(0, first.getBounding());
+        assertEquals(100, first.getMeanContribution(), 1e-9);
+        CriticalPathReport.Resource second = report.getResources().get(1);
+        assertEquals("style.css", second.getName());
+        assertEquals(second.getOccurrences() / 2, second.getBounding());
+        assertEquals("hero.png", report.getResources().get(2).getName());
+        assertEquals(0.5, report.getResources().get(2).getFraction(), 1e-9);
+    }
+
+    @Test
+    public void categorizedResultsFile() throws Exception {
+        Path directory = Files.createTempDirectory("critical-path");
+        Path results = directory.resolve("results.txt.gz");
+        try {
+            try (JsonResultsWriter writer = new JsonResultsWriter(results)) {
+                for (int i = 0; i < 10 * CriticalPathAnalyzer.THRESHOLD; i++) {
+                    MeasurementTree tree = new MeasurementTree();
+                    tree.addMeasurement(resource("page.html", "navigation", 0, 100), "documents");
+                    tree.addMeasurement(resource("style.css", "link", 110, 200), "styles");
+                    tree.addMeasurement(resource("hero.png", "css", 210, 400), "images", "hero");
+                    tree.setNavigation(new NavigationTiming(1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                                                            0, 0, 0, 0, 0, 1450));
+                    writer.write(i, tree);
+                }
+            }
+            CriticalPathReport report = new CriticalPathAnalyzer().analyze(results);
+            assertEquals(10 * CriticalPathAnalyzer.THRESHOLD, report.getIterations());
+            assertEquals(3, report.getResources().size());
+            List<String> names = new ArrayList<>();
+            for (CriticalPathReport.Resource resource : report.getResources()) {
+                names.add(resource.getInitiatorType() + " " + resource.getName());
+            }
+            assertTrue(names.contains("navigation page.html"));
+            assertTrue(names.contains("link style.css"));
+            assertTrue(names.contains("css hero.png"));
+        } finally {
+            Files.deleteIfExists(results);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void example() throws Exception {
+        CriticalPathReport report = new CriticalPathAnalyzer().analyze(Paths.get("examples/spacejam.txt.gz"));
+        assertEquals(100, report.getIterations() + report.getSkipped());
+        assertTrue(report.getIterations() > 0);
+        assertTrue(report.getMeanPathLength() >= 1);
+        CriticalPathReport.Resource top = report.getResources().get(0);
+        for (CriticalPathReport.Resource resource : report.getResources()) {
+            assertTrue(resource.getOccurrences() <= top.getOccurrences());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.analysis;
+
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.ResourceTiming;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PhaseBreakdownTest {
+
+    // redirect 10, dns 20, connect 30, tls 15, ttfb 40, download 60
+    private static final ResourceTiming NEW_CONNECTION = new ResourceTiming(
+            "https://cdn.example.com/app.js?v=1", "resource", "script", 5, 185,
+            5, 15, 15, 15, 35, 35, 80, 65, 80, 120, 180);
+
+    private static final ResourceTiming REUSED_CONNECTION = new ResourceTiming(
+            "https://cdn.example.com/app.css", "resource", "link", 200, 50,
+            0, 0, 200, 200, 200, 200, 200, 0, 200, 230, 250);
+
+    private static final ResourceTiming OPAQUE = new ResourceTiming(
+            "http://ads.example.net:8080#frame", "resource", "iframe", 100, 300,
+            0, 0, 100, 0, 0, 0, 0, 0, 0, 0, 400);
+
+    @Test
+    public void phases() {
+        assertEquals(10, ResourcePhase.REDIRECT.get(NEW_CONNECTION), 0);
+        assertEquals(20, ResourcePhase.DNS.get(NEW_CONNECTION), 0);
+        assertEquals(30, ResourcePhase.CONNECT.get(NEW_CONNECTION), 0);
+        assertEquals(15, ResourcePhase.TLS.get(NEW_CONNECTION), 0);
+        assertEquals(40, ResourcePhase.TTFB.get(NEW_CONNECTION), 0);
+        assertEquals(60, ResourcePhase.DOWNLOAD.get(NEW_CONNECTION), 0);
+        assertEquals(0, ResourcePhase.CONNECT.get(REUSED_CONNECTION), 0);
+        assertEquals(0, ResourcePhase.TLS.get(REUSED_CONNECTION), 0);
+        assertTrue(ResourcePhase.isDetailed(REUSED_CONNECTION));
+        assertTrue(!ResourcePhase.isDetailed(OPAQUE));
+    }
+
+    @Test
+    public void origins() {
+        assertEquals("https://cdn.example.com", PhaseBreakdown.origin("https://cdn.example.com/app.js?v=1"));
+        assertEquals("http://ads.example.net:8080", PhaseBreakdown.origin("http://ads.example.net:8080#frame"));
+        assertEquals("https://example.com", PhaseBreakdown.origin("https://example.com"));
+        assertEquals(PhaseBreakdown.UNKNOWN_ORIGIN, PhaseBreakdown.origin("app.js"));
+        assertEquals(PhaseBreakdown.UNKNOWN_ORIGIN, PhaseBreakdown.origin("file:///"));
+    }
+
+    @Test
+    public void aggregate() throws Exception {
+        PhaseBreakdown breakdown = new PhaseBreakdown(2);
+        breakdown.measurement(0, new String[] {"scripts"}, NEW_CONNECTION);
+        breakdown.measurement(0, new String[] {"styles", "main"}, REUSED_CONNECTION);
+        breakdown.measurement(0, new String[0], OPAQUE);
+
+        PhaseBreakdown.Breakdown cdn = breakdown.getOrigin("https://cdn.example.com");
+        assertNotNull(cdn);
+        assertEquals(2, cdn.getResources());
+        assertEquals(1, cdn.getNewConnections());
+        assertEquals(1, cdn.getReusedConnections());
+        assertEquals(35, breakdown.getOrigin("https://cdn.example.com").getMean(ResourcePhase.TTFB), 1e-9);
+        assertEquals(80, cdn.getTotal(ResourcePhase.DOWNLOAD), 1e-9);
+        assertEquals(60, cdn.getMax(ResourcePhase.DOWNLOAD), 1e-9);
+        assertEquals(80.0 / 225, cdn.getShare(ResourcePhase.DOWNLOAD), 1e-9);
+        assertEquals(1, breakdown.getOrigin("http://ads.example.net:8080").getOpaque());
+        assertEquals(0, breakdown.getOrigin("http://ads.example.net:8080").getNewConnections());
+        assertNotNull(breakdown.getCategory("/styles/main"));
+        assertNull(breakdown.getCategory("/"));
+        assertNull(breakdown.getInitiatorType("iframe"));
+        assertEquals(2, breakdown.getDroppedMeasurements());
+
+        JsonNode json = new ObjectMapper().valueToTree(breakdown);
+        assertEquals(20.0, json.path("initiatorTypes").path("script").path("phases").path("dns")
+                               .path("mean").asDouble(), 1e-9);
+    }
+
+    @Test
+    public void example() throws Exception {
+        PhaseBreakdown breakdown = PhaseBreakdown.of(Paths.get("examples/spacejam.txt.gz"));
+        PhaseBreakdown.Breakdown origin = breakdown.getOrigin("http://www2.warnerbros.com");
+        assertNotNull(origin);
+        assertEquals(origin.getResources(),
+                     origin.getOpaque() + origin.getNewConnections() + origin.getReusedConnections());
+        assertTrue(breakdown.getCategories().size() > 0);
+    }
+}
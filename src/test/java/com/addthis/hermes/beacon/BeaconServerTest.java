@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.beacon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.PerformanceSnapshot;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BeaconServerTest {
+
+    private static final int CLIENTS = 4;
+
+    private static final int REQUESTS = 50;
+
+    private static final int BATCH = 10;
+
+    private static int post(URL url, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        }
+        int status = connection.getResponseCode();
+        connection.disconnect();
+        return status;
+    }
+
+    @Test
+    public void ingestConcurrentBatches() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<byte[]> batches = new ArrayList<>();
+        List<PerformanceSnapshot> beacons = new ArrayList<>();
+        for (MeasurementTree tree : ResultsReader.read(Paths.get("examples", "spacejam.txt.gz")).values()) {
+            beacons.add(new PerformanceSnapshot(tree.getNavigation(), tree.getMeasurements()));
+            if (beacons.size() == BATCH) {
+                batches.add(mapper.writeValueAsBytes(beacons));
+                beacons.clear();
+            }
+        }
+        BeaconServer server = new BeaconServer.Builder().setMaxRequestBytes(1 << 18).build();
+        URL url = new URL("http://127.0.0.1:" + server.start() + "/beacon");
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Integer>> accepted = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                accepted.add(clients.submit(() -> {
+                    int count = 0;
+                    for (int j = 0; j < REQUESTS; j++) {
+                        if (post(url, batches.get((client + j) % batches.size())) == 204) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            for (Future<Integer> future : accepted) {
+                assertEquals(REQUESTS, (int) future.get());
+            }
+            assertEquals(400, post(url, "{\"entries\": [".getBytes(StandardCharsets.UTF_8)));
+            assertEquals(413, post(url, new byte[1 << 19]));
+            byte[] single = mapper.writeValueAsBytes(beacons.isEmpty() ? new PerformanceSnapshot(null, null) :
+                                                     beacons.get(0));
+            assertEquals(204, post(url, single));
+
+            long total = CLIENTS * REQUESTS * BATCH + 1;
+            assertEquals(total, server.getMetrics().counter(BeaconServer.BEACONS).getCount());
+            JsonNode windows = mapper.readTree(new URL("http://127.0.0.1:" + url.getPort() + "/windows"));
+            long beaconsInWindows = 0;
+            long iterations = 0;
+            for (JsonNode window : windows) {
+                beaconsInWindows += window.path("beacons").asLong();
+                iterations += window.path("statistics").path("iterations").asLong();
+                assertTrue(window.path("statistics").path("resources").size() > 0);
+            }
+            assertEquals(total, beaconsInWindows);
+            assertEquals(CLIENTS * REQUESTS * BATCH, iterations);
+        } finally {
+            clients.shutdownNow();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.beacon;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.addthis.hermes.data.ResourceTiming;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RollingWindowsTest {
+
+    private static ResourceTiming resource(String name) {
+        return new ResourceTiming(name, "resource", "img", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+    }
+
+    @Test
+    public void windowsRollOver() {
+        AtomicLong clock = new AtomicLong(10_000);
+        RollingWindows windows = new RollingWindows(1000, 3, 2, clock::get);
+        long sequence = 0;
+        for (long time = 10_000; time < 15_000; time += 500) {
+            clock.set(time);
+            long id = RollingWindows.id(time, sequence++);
+            windows.beacon(id);
+            windows.measurement(id, new String[0], resource("r" + (time / 1000)));
+            windows.measurement(id, new String[0], resource("x"));
+            windows.measurement(id, new String[0], resource("y"));
+        }
+        List<RollingWindows.Window> retained = windows.getWindows();
+        assertEquals(3, retained.size());
+        assertEquals(12_000, retained.get(0).getStart());
+        assertEquals(14_000, retained.get(2).getStart());
+        for (RollingWindows.Window window : retained) {
+            assertEquals(2, window.getBeacons());
+            assertEquals(2, window.getStatistics().getDroppedMeasurements());
+        }
+        windows.beacon(RollingWindows.id(11_999, sequence++));
+        windows.beacon(RollingWindows.id(15_000, sequence));
+        assertEquals(2, windows.getDroppedBeacons());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class CompletionStrategyTest {
+
+    /**
+     * Answers each poll with the next state and repeats the last one.
+     */
+    private static class ScriptedPage implements JavascriptExecutor {
+
+        private final List<List<Long>> states;
+
+        final List<String> scripts = new ArrayList<>();
+
+        ScriptedPage(List<List<Long>> states) {
+            this.states = states;
+        }
+
+        @Override
+        public Object executeScript(String script, Object... args) {
+            scripts.add(script);
+            return states.get(Math.min(scripts.size(), states.size()) - 1);
+        }
+
+        @Override
+        public Object executeAsyncScript(String script, Object... args) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void networkQuietWaitsForNewResources() throws InterruptedException {
+        ScriptedPage page = new ScriptedPage(Arrays.asList(
+                Arrays.asList(0L, 3L), Arrays.asList(100L, 150L), Arrays.asList(100L, 151L),
+                Arrays.asList(100L, 200L), Arrays.asList(100L, 200L)));
+        long start = System.nanoTime();
+        new NetworkQuietCompletion(50, 10).await(page, 10, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(page.scripts.size() >= 5);
+        assertTrue(elapsed >= 50);
+        assertTrue(elapsed < TimeUnit.SECONDS.toMillis(10));
+        assertTrue(page.scripts.get(0).contains("setResourceTimingBufferSize("
+                                                + NetworkQuietCompletion.RESOURCE_BUFFER_SIZE + ")"));
+    }
+
+    @Test
+    public void networkQuietStopsAtTimeout() throws InterruptedException {
+        ScriptedPage page = new ScriptedPage(Arrays.asList(Arrays.asList(0L, 0L)));
+        long start = System.nanoTime();
+        new NetworkQuietCompletion(0, 10).await(page, 100, TimeUnit.MILLISECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 100);
+        assertTrue(page.scripts.size() > 1);
+    }
+
+    @Test
+    public void fixedDelay() throws InterruptedException {
+        long start = System.nanoTime();
+        new FixedDelayCompletion().awaitCompletion(null, 50, TimeUnit.MILLISECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResourceTimingColumnsTest {
+
+    @Test
+    public void columns() {
+        StringDictionary dictionary = new StringDictionary();
+        ResourceTimingColumns first = new ResourceTimingColumns(dictionary, 1);
+        ResourceTimingColumns second = new ResourceTimingColumns(dictionary);
+        for (int i = 0; i < 20; i++) {
+            ResourceTiming measurement = new ResourceTiming(
+                    "name" + (i % 4), "resource", null,
+                    i, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+            first.add(measurement);
+            second.add(measurement);
+            assertEquals(measurement, first.get(i));
+            assertEquals(i, first.get(i, ResourceTimingField.START_TIME), 0.0);
+            assertEquals(13, first.get(i, ResourceTimingField.RESPONSE_END), 0.0);
+        }
+        assertEquals(20, first.size());
+        assertEquals(first, second);
+        assertEquals(5, dictionary.size());
+        assertEquals(first.getNameId(1), second.getNameId(5));
+        assertEquals(StringDictionary.NULL_ID, first.getInitiatorTypeId(0));
+        assertEquals(20, first.getColumn(ResourceTimingField.DURATION).length);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.distributed;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.framework.PerformanceTest;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoordinatorTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    private static final int ITERATIONS = 10;
+
+    private static final int SHARD_SIZE = 3;
+
+    @Test
+    public void reassignShardOfLostWorker() throws Exception {
+        List<MeasurementTree> trees = new ArrayList<>(ResultsReader.read(EXAMPLE).values());
+        ShardExecutor executor = (shard, sink) -> {
+            for (int i = 0; i < shard.getIterations(); i++) {
+                sink.iteration(System.currentTimeMillis(), trees.get(shard.getId() * SHARD_SIZE + i));
+            }
+        };
+        ShardExecutor lost = (shard, sink) -> {
+            sink.iteration(System.currentTimeMillis(), trees.get(shard.getId() * SHARD_SIZE));
+            throw new IOException("worker lost");
+        };
+        Path directory = Files.createTempDirectory("coordinator");
+        Path output = directory.resolve("results.gz");
+        try {
+            Coordinator coordinator = new Coordinator.Builder()
+                    .setUrl("http://example.com")
+                    .setOutputPath(output)
+                    .setIterations(ITERATIONS)
+                    .setShardSize(SHARD_SIZE)
+                    .build();
+            int port = coordinator.start();
+            try {
+                new Worker("localhost", port, lost, "lost").run();
+                fail("expected the worker to be lost");
+            } catch (IOException expected) {
+            }
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Worker worker = new Worker("localhost", port, executor, "worker-" + i);
+                Thread thread = new Thread(() -> {
+                    try {
+                        worker.run();
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                });
+                thread.start();
+                workers.add(thread);
+            }
+            coordinator.run();
+            for (Thread thread : workers) {
+                thread.join();
+            }
+
+            ObjectMapper mapper = new ObjectMapper();
+            List<String> expected = new ArrayList<>();
+            for (MeasurementTree tree : trees.subList(0, ITERATIONS)) {
+                expected.add(mapper.writeValueAsString(tree));
+            }
+            Map<Long, MeasurementTree> results = ResultsReader.read(output);
+            List<String> actual = new ArrayList<>();
+            for (MeasurementTree tree : results.values()) {
+                actual.add(mapper.writeValueAsString(tree));
+            }
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals(expected, actual);
+            assertEquals(ITERATIONS, coordinator.getStatistics().getIterations());
+            assertTrue(Files.exists(PerformanceTest.summaryPath(output)));
+        } finally {
+            Files.deleteIfExists(PerformanceTest.summaryPath(output));
+            Files.deleteIfExists(output);
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class BrowserStateResetTest {
+
+    @Test
+    public void origins() {
+        Set<String> origins = BrowserStateReset.origins(Arrays.asList(
+                "https://www.example.com/index.html", "https://www.example.com/app.js?v=1",
+                "http://cdn.example.com:8080/a.css", "data:image/png;base64,AAAA", "about:blank"));
+        assertEquals("[http://cdn.example.com:8080, https://www.example.com]", origins.toString());
+        assertEquals(0, BrowserStateReset.origins(null).size());
+    }
+
+    @Test
+    public void clearSendsDevToolsCommands() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> paths = new ArrayList<>();
+        List<JsonNode> commands = new ArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream input = exchange.getRequestBody()) {
+                paths.add(exchange.getRequestURI().getPath());
+                JsonNode command = mapper.readTree(input);
+                commands.add(command);
+                boolean failed = command.path("cmd").asText().equals("Fail.command");
+                byte[] response = (failed ? "{\"status\":13,\"value\":{\"message\":\"unknown\"}}" :
+                                   "{\"sessionId\":\"abc\",\"status\":0,\"value\":{}}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(response);
+                }
+            }
+        });
+        server.start();
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            DevToolsClient devTools = new DevToolsClient(url, "abc");
+            BrowserStateReset.clear(devTools, BrowserStateReset.origins(Arrays.asList("https://www.example.com/")));
+            assertEquals(3, commands.size());
+            assertEquals("/session/abc/chromium/send_command_and_get_result", paths.get(0));
+            assertEquals("Network.clearBrowserCache", commands.get(0).path("cmd").asText());
+            assertEquals("Network.clearBrowserCookies", commands.get(1).path("cmd").asText());
+            assertEquals("Storage.clearDataForOrigin", commands.get(2).path("cmd").asText());
+            assertEquals("https://www.example.com", commands.get(2).path("params").path("origin").asText());
+            try {
+                devTools.send("Fail.command");
+                fail();
+            } catch (IOException expected) {
+                // the error status is surfaced
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
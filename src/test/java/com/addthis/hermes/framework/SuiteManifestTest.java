@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.framework;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.configuration.SinglePageNavigator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SuiteManifestTest {
+
+    @Test
+    public void createPages() throws IOException {
+        Path directory = Files.createTempDirectory("suite");
+        Path manifestPath = directory.resolve("suite.json");
+        String json = "{\"iterations\": 3, \"scheduling\": \"random\", \"seed\": 7, \"pages\": [" +
+                      "{\"name\": \"home\", \"url\": \"http://www.example.com/\", \"output\": \"home.gz\"}," +
+                      "{\"navigator\": \"" + SinglePageNavigator.class.getName() + "\", " +
+                      "\"transformer\": \"" + IdentityTransformer.class.getName() + "\", " +
+                      "\"output\": \"/tmp/other.gz\"}]}";
+        Files.write(manifestPath, json.getBytes(StandardCharsets.UTF_8));
+        try {
+            SuiteManifest manifest = SuiteManifest.read(manifestPath);
+            assertEquals(Integer.valueOf(3), manifest.getIterations());
+            assertEquals(Scheduling.RANDOM, manifest.getScheduling());
+            assertEquals(Long.valueOf(7), manifest.getSeed());
+            try {
+                manifest.createPages(directory);
+                fail();
+            } catch (IllegalArgumentException ex) {
+                // SinglePageNavigator has no no-argument constructor
+                assertTrue(ex.getMessage().contains(SinglePageNavigator.class.getName()));
+            }
+        } finally {
+            Files.delete(manifestPath);
+        }
+        Files.write(manifestPath, ("{\"pages\": [{\"url\": \"http://www.example.com/\", \"output\": \"home.gz\"}," +
+                                   "{\"name\": \"b\", \"url\": \"http://b.example.com/\", \"output\": \"b.gz\"}]}")
+                .getBytes(StandardCharsets.UTF_8));
+        try {
+            List<PerformanceSuite.Page> pages = SuiteManifest.read(manifestPath).createPages(directory);
+            assertEquals(2, pages.size());
+            assertEquals("http://www.example.com/", pages.get(0).getName());
+            assertEquals(directory.resolve("home.gz"), pages.get(0).getOutputPath());
+            assertTrue(pages.get(1).getTransformer() instanceof IdentityTransformer);
+        } finally {
+            Files.delete(manifestPath);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void scheduling() {
+        assertArrayEquals(new int[]{0, 1, 2, 0, 1, 2}, Scheduling.ROUND_ROBIN.order(3, 2, new Random(1)));
+        int[] order = Scheduling.RANDOM.order(3, 4, new Random(1));
+        int[] counts = new int[3];
+        for (int page : order) {
+            counts[page]++;
+        }
+        assertEquals("[4, 4, 4]", Arrays.toString(counts));
+        assertArrayEquals(order, Scheduling.RANDOM.order(3, 4, new Random(1)));
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.history;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.statistics.ResourceMetric;
+import com.addthis.hermes.statistics.RunStatistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryStoreTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private static final String LOAD = HistoryStore.navigationSeries(NavigationTimingField.LOAD_EVENT_END);
+
+    private static RunStatistics run(long loadEventEnd, int iterations) {
+        RunStatistics statistics = new RunStatistics();
+        for (int i = 0; i < iterations; i++) {
+            statistics.navigationTiming(i, new NavigationTiming(1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                                                                0, 0, 0, 0, 0, 1000 + loadEventEnd + i));
+            statistics.measurement(i, new String[0], new ResourceTiming("app.js", "resource", "script", 10, 90,
+                                                                        0, 0, 10, 0, 0, 0, 0, 0, 0, 0, 100));
+        }
+        return statistics;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        for (Tier tier : Tier.values()) {
+            Path subdirectory = directory.resolve(tier.getDirectoryName());
+            for (Path path : Files.newDirectoryStream(subdirectory)) {
+                Files.delete(path);
+            }
+            Files.delete(subdirectory);
+        }
+        Files.deleteIfExists(directory.resolve(HistoryStore.LOCK_FILE));
+        Files.delete(directory);
+    }
+
+    private static List<HistoryPoint> points(HistoryStore store, long resolution) throws IOException {
+        List<HistorySeries> series = store.query(new HistoryQuery.Builder()
+                .setSeriesPattern(Pattern.compile("^" + LOAD + "$")).setResolution(resolution).build());
+        assertEquals(1, series.size());
+        return series.get(0).getPoints();
+    }
+
+    @Test
+    public void recordAndRollup() throws IOException {
+        Path directory = Files.createTempDirectory("history");
+        try {
+            HistoryStore store = HistoryStore.open(directory);
+            long old = Tier.HOURLY.truncate(NOW - 10 * DAY);
+            assertEquals(4, store.record(old + 60_000, run(500, 10)));
+            store.record(old + 120_000, run(700, 30));
+            store.record(NOW - 3_600_000, run(600, 20));
+            assertEquals(2, store.getPartitions(Tier.RAW).size());
+            assertEquals(3, points(store, 0).size());
+
+            assertEquals(1, store.rollup(NOW));
+            assertEquals(1, store.getPartitions(Tier.RAW).size());
+            assertEquals(1, store.getPartitions(Tier.HOURLY).size());
+            List<HistoryPoint> points = points(store, 0);
+            assertEquals(2, points.size());
+            assertEquals(old, points.get(0).getTime());
+            assertEquals(Tier.HOURLY.getResolution(), points.get(0).getResolution());
+            assertEquals(40, points.get(0).getSummary().getCount());
+            assertEquals(700 + 14.5, points.get(0).getSummary().getMedian(), 8);
+            assertEquals(0, points.get(1).getResolution());
+
+            List<HistoryPoint> daily = points(store, DAY);
+            assertEquals(Tier.DAILY.truncate(old), daily.get(0).getTime());
+            assertEquals(DAY, daily.get(0).getResolution());
+
+            List<HistorySeries> recent = store.query(new HistoryQuery.Builder()
+                    .setSeriesPattern(Pattern.compile(Pattern.quote("resource/"))).setTimeRange(NOW - DAY, NOW)
+                    .build());
+            assertEquals(ResourceMetric.values().length, recent.size());
+            assertEquals(HistoryStore.resourceSeries("app.js", ResourceMetric.DURATION), recent.get(0).getSeries());
+            assertEquals(20, recent.get(0).getPoints().get(0).getSummary().getCount());
+
+            assertEquals(0, store.rollup(NOW));
+            assertEquals(2, store.rollup(NOW + 365 * DAY));
+            assertEquals(1, store.getPartitions(Tier.DAILY).size());
+            points = points(store, 0);
+            assertEquals(2, points.size());
+            assertEquals(DAY, points.get(0).getResolution());
+            assertEquals(60, points.get(0).getSummary().getCount() + points.get(1).getSummary().getCount());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void interruptedRollup() throws IOException {
+        Path directory = Files.createTempDirectory("history");
+        try {
+            HistoryStore store = HistoryStore.open(directory);
+            long old = Tier.HOURLY.truncate(NOW - 10 * DAY);
+            store.record(old, run(500, 10));
+            Path source = store.getPartitions(Tier.RAW).get(0);
+            Path tombstone = source.resolveSibling(source.getFileName() + HistoryStore.TOMBSTONE_SUFFIX);
+            Path staged = directory.resolve(Tier.HOURLY.getDirectoryName())
+                                   .resolve(source.getFileName() + Partition.STAGED_SUFFIX);
+
+            // staged targets without a tombstone were not committed and are discarded
+            Files.copy(source, staged);
+            assertEquals(1, store.rollup(NOW));
+            assertEquals(10, points(store, 0).get(0).getSummary().getCount());
+
+            // a tombstone was committed, so its source is not merged again
+            store.record(old, run(500, 10));
+            Files.copy(source, tombstone);
+            assertEquals(1, store.rollup(NOW));
+            assertEquals(20, points(store, 0).get(0).getSummary().getCount());
+            assertFalse(Files.exists(tombstone));
+
+            // committed staged targets are moved into place
+            Path hourly = store.getPartitions(Tier.HOURLY).get(0);
+            store.record(old, run(500, 10));
+            Files.move(source, tombstone);
+            Files.copy(hourly, staged);
+            Files.delete(hourly);
+            assertEquals(0, store.rollup(NOW));
+            assertEquals(20, points(store, 0).get(0).getSummary().getCount());
+            assertFalse(Files.exists(staged));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void concurrentRecord() throws Exception {
+        Path directory = Files.createTempDirectory("history");
+        try {
+            int runs = 50;
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> failures = new CopyOnWriteArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                HistoryStore store = HistoryStore.open(directory);
+                long offset = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < runs; i++) {
+                            store.record(NOW + 4 * i + offset, run(500, 5));
+                        }
+                    } catch (Throwable ex) {
+                        failures.add(ex);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(failures.isEmpty());
+            HistoryStore store = HistoryStore.open(directory);
+            assertEquals(1, store.getPartitions(Tier.RAW).size());
+            List<HistoryPoint> points = points(store, 0);
+            assertEquals(4 * runs, points.size());
+            for (HistoryPoint point : points) {
+                assertEquals(5, point.getSummary().getCount());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void incompleteRecord() throws IOException {
+        Path directory = Files.createTempDirectory("history");
+        try {
+            HistoryStore store = HistoryStore.open(directory);
+            store.record(NOW, run(500, 10));
+            Path partition = store.getPartitions(Tier.RAW).get(0);
+            long length = Files.size(partition);
+            try (OutputStream output = Files.newOutputStream(partition, StandardOpenOption.APPEND)) {
+                output.write(new byte[]{0, 0, 1, 2, 3});
+            }
+            assertEquals(1, points(store, 0).size());
+            store.record(NOW + 1, run(500, 10));
+            assertEquals(2 * length - Partition.MAGIC.length - 4, Files.size(partition));
+            assertEquals(2, points(store, 0).size());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void recordResults() throws IOException {
+        Path directory = Files.createTempDirectory("history");
+        try {
+            HistoryStore store = HistoryStore.open(directory);
+            assertEquals(100, store.recordResults(Paths.get("examples", "spacejam.txt.gz")));
+            List<HistoryPoint> points = points(store, 0);
+            assertEquals(1, points.size());
+            assertEquals(100, points.get(0).getSummary().getCount());
+        } finally {
+            delete(directory);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.addthis.hermes.configuration.Transformer;
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ManagerTest {
+
+    private static class ExampleTransformer implements Transformer {
+
+        private final boolean deterministic;
+
+        int categoryCalls;
+
+        ExampleTransformer(boolean deterministic) {
+            this.deterministic = deterministic;
+        }
+
+        @Override
+        public Pattern[] getIgnorePatterns() {
+            return new Pattern[]{Pattern.compile("\\.gif$")};
+        }
+
+        @Override
+        public Pattern[] getSearchPatterns() {
+            return new Pattern[]{Pattern.compile("\\?.*$")};
+        }
+
+        @Override
+        public String[] getReplacementStrings() {
+            return new String[]{""};
+        }
+
+        @Override
+        public String[] generateCategories(ResourceTiming measurement) {
+            categoryCalls++;
+            return new String[]{measurement.getInitiatorType()};
+        }
+
+        @Override
+        public boolean hasDeterministicCategories() {
+            return deterministic;
+        }
+    }
+
+    private static ResourceTiming resource(String name, String initiatorType) {
+        return new ResourceTiming(name, "resource", initiatorType, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+    }
+
+    @Test
+    public void transformations() {
+        ObjectMapper mapper = new ObjectMapper();
+        for (boolean deterministic : new boolean[]{false, true}) {
+            ExampleTransformer transformer = new ExampleTransformer(deterministic);
+            Manager manager = new Manager(transformer);
+            for (int i = 0; i < 3; i++) {
+                manager.addMeasurement(i, resource("http://example.com/a.js?v=" + i, "script"));
+                manager.addMeasurement(i, resource("http://example.com/a.js?v=1", "script"));
+                manager.addMeasurement(i, resource("http://example.com/b.gif", "img"));
+            }
+            assertEquals(deterministic ? 3 : 6, transformer.categoryCalls);
+            for (int i = 0; i < 3; i++) {
+                JsonNode tree = mapper.valueToTree(manager.getMeasurements().get((long) i));
+                JsonNode scripts = tree.get("categories").get("script").get("measurements");
+                assertEquals(2, scripts.size());
+                assertEquals("http://example.com/a.js", scripts.get(0).get("name").asText());
+                assertEquals("http://example.com/a.js", scripts.get(1).get("name").asText());
+                assertNull(tree.get("categories").get("img"));
+            }
+        }
+    }
+
+    @Test
+    public void listenOnly() {
+        Manager manager = new Manager(new ExampleTransformer(true), Manager.DEFAULT_NAME_CACHE_SIZE, false);
+        List<String> names = new ArrayList<>();
+        manager.addListener(new MeasurementListener() {
+            @Override
+            public void navigationTiming(long timestamp, NavigationTiming navigation) {}
+
+            @Override
+            public void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+                names.add(categories[0] + " " + measurement.getName());
+            }
+        });
+        manager.addMeasurement(0, resource("http://example.com/a.js?v=0", "script"));
+        manager.addMeasurement(0, resource("http://example.com/b.gif", "img"));
+        assertEquals(1, names.size());
+        assertEquals("script http://example.com/a.js", names.get(0));
+        assertTrue(manager.getMeasurements().isEmpty());
+        assertNull(manager.removeMeasurements(0));
+    }
+
+}
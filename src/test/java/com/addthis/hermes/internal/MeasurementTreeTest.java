@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.internal;
+
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.data.ResourceTimingColumns;
+import com.addthis.hermes.data.StringDictionary;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MeasurementTreeTest {
+
+    private static ResourceTiming resource(String name) {
+        return new ResourceTiming(name, "resource", "script", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+    }
+
+    @Test
+    public void sharedCategoryIndex() throws Exception {
+        StringDictionary dictionary = new StringDictionary();
+        CategoryIndex index = new CategoryIndex();
+        MeasurementTree first = new MeasurementTree(dictionary, index);
+        MeasurementTree second = new MeasurementTree(dictionary, index);
+        first.addMeasurement(resource("a"), "x", "y", "z");
+        first.addMeasurement(resource("b"));
+        second.addMeasurement(resource("c"), "x", "y", "z");
+        second.addMeasurement(resource("d"), "w");
+
+        assertEquals(5, index.size());
+        assertTrue(index.resolve("x", "y", "z") == index.resolve(index.resolve("x"), "y", "z"));
+        assertEquals(5, index.size());
+        assertEquals(1, first.getCategories().size());
+        assertFalse(first.getCategories().containsKey("w"));
+        assertEquals(2, second.getCategories().size());
+        assertEquals("c", second.getCategory("x").getCategory("y").getCategory("z").getMeasurements().getName(0));
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode json = mapper.readTree("{\"categories\":{\"x\":{\"categories\":{\"y\":{\"categories\":{" +
+                "\"z\":{\"categories\":{},\"measurements\":[" + mapper.writeValueAsString(resource("a")) +
+                "],\"navigation\":null}},\"measurements\":[],\"navigation\":null}}," +
+                "\"measurements\":[],\"navigation\":null}},\"measurements\":[" +
+                mapper.writeValueAsString(resource("b")) + "],\"navigation\":null}");
+        assertEquals(json, mapper.valueToTree(first));
+        MeasurementTree copy = mapper.readValue(mapper.writeValueAsString(first), MeasurementTree.class);
+        assertEquals(json, mapper.valueToTree(copy));
+    }
+
+    @Test
+    public void deserializedTreeSharesOneDictionary() throws Exception {
+        MeasurementTree tree = new MeasurementTree();
+        tree.addMeasurement(resource("root.js"));
+        tree.addMeasurement(resource("x.js"), "x");
+        tree.addMeasurement(resource("y.js"), "x", "y");
+        tree.addMeasurement(resource("z.js"), "z");
+
+        ObjectMapper mapper = new ObjectMapper();
+        MeasurementTree copy = mapper.readValue(mapper.writeValueAsString(tree), MeasurementTree.class);
+        StringDictionary dictionary = copy.getMeasurements().getDictionary();
+        ResourceTimingColumns x = copy.getCategory("x").getMeasurements();
+        ResourceTimingColumns y = copy.getCategory("x").getCategory("y").getMeasurements();
+        ResourceTimingColumns z = copy.getCategory("z").getMeasurements();
+        assertTrue(x.getDictionary() == dictionary);
+        assertTrue(y.getDictionary() == dictionary);
+        assertTrue(z.getDictionary() == dictionary);
+        assertEquals("root.js", dictionary.decode(copy.getMeasurements().getNameId(0)));
+        assertEquals("x.js", dictionary.decode(x.getNameId(0)));
+        assertEquals("y.js", dictionary.decode(y.getNameId(0)));
+        assertEquals("z.js", dictionary.decode(z.getNameId(0)));
+        assertEquals("script", dictionary.decode(z.getInitiatorTypeId(0)));
+    }
+
+    @Test
+    public void emptyMeasurementsAreShared() {
+        MeasurementTree tree = new MeasurementTree();
+        tree.addMeasurement(resource("a"), "x", "y");
+        MeasurementTree x = tree.getCategory("x");
+        assertTrue(x.getMeasurements().isEmpty());
+        assertTrue(x.getMeasurements() == tree.getMeasurements());
+        try {
+            x.getMeasurements().add(resource("b"));
+            fail("expected the empty measurements to be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+        tree.addMeasurement(resource("b"));
+        assertEquals(1, tree.getMeasurements().size());
+        assertTrue(x.getMeasurements().isEmpty());
+        assertEquals("a", x.getCategory("y").getMeasurements().getName(0));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.IOException;
+import java.util.Map;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryResultsTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    @Test
+    public void convertRoundTrip() throws IOException {
+        Path binary = Files.createTempFile("results", ".bin.gz");
+        Path json = Files.createTempFile("results", ".gz");
+        Files.delete(binary);
+        Files.delete(json);
+        try {
+            assertEquals(100, ResultsConverter.convert(EXAMPLE, binary, ResultsFormat.BINARY));
+            assertTrue(Files.size(binary) < Files.size(EXAMPLE));
+            assertEquals(100, ResultsConverter.convert(binary, json, ResultsFormat.JSON));
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+            Map<Long, MeasurementTree> original = ResultsReader.read(EXAMPLE);
+            assertEquals(mapper.writeValueAsString(original), mapper.writeValueAsString(ResultsReader.read(binary)));
+            assertEquals(mapper.writeValueAsString(original), mapper.writeValueAsString(ResultsReader.read(json)));
+        } finally {
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(json);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JournalTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    @Test
+    public void resumeAfterTornRecord() throws IOException {
+        Iterator<Map.Entry<Long, MeasurementTree>> iterations = ResultsReader.read(EXAMPLE).entrySet().iterator();
+        Path path = Files.createTempFile("results", ".journal");
+        try {
+            long size;
+            try (Journal journal = new Journal(path, false)) {
+                for (int i = 0; i < 3; i++) {
+                    Map.Entry<Long, MeasurementTree> entry = iterations.next();
+                    journal.append(entry.getKey(), entry.getValue());
+                }
+                size = Files.size(path);
+            }
+            Files.write(path, new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+            List<Long> ids = new ArrayList<>();
+            Map.Entry<Long, MeasurementTree> last = iterations.next();
+            try (Journal journal = new Journal(path, true)) {
+                assertEquals(3, journal.replay((id, measurements) -> ids.add(id)));
+                assertEquals(size, Files.size(path));
+                journal.append(last.getKey(), last.getValue());
+            }
+
+            List<MeasurementTree> trees = new ArrayList<>();
+            try (Journal journal = new Journal(path, true)) {
+                assertEquals(4, journal.replay((id, measurements) -> trees.add(measurements)));
+                ObjectMapper mapper = new ObjectMapper();
+                assertEquals(mapper.writeValueAsString(last.getValue()), mapper.writeValueAsString(trees.get(3)));
+                journal.delete();
+            }
+            assertFalse(Files.exists(path));
+            assertEquals(3, ids.size());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.IOException;
+import java.util.Map;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultsReaderTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    @Test
+    public void roundTrip() throws IOException {
+        Map<Long, MeasurementTree> original = ResultsReader.read(EXAMPLE);
+        assertEquals(100, original.size());
+        Path output = Files.createTempFile("results", ".gz");
+        try {
+            try (JsonResultsWriter writer = new JsonResultsWriter(output)) {
+                for (Map.Entry<Long, MeasurementTree> entry : original.entrySet()) {
+                    writer.write(entry.getKey(), entry.getValue());
+                }
+                assertEquals(100, writer.getCount());
+            }
+            Map<Long, MeasurementTree> copy = ResultsReader.read(output);
+            ObjectMapper mapper = new ObjectMapper();
+            assertEquals(mapper.writeValueAsString(original), mapper.writeValueAsString(copy));
+        } finally {
+            Files.delete(output);
+        }
+    }
+
+}
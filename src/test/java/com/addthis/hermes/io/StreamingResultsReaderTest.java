@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.configuration.IdentityTransformer;
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.ResourceTiming;
+import com.addthis.hermes.internal.Manager;
+import com.addthis.hermes.internal.MeasurementListener;
+import com.addthis.hermes.internal.MeasurementTree;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamingResultsReaderTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    /**
+     * Records every event as a line of text.
+     */
+    private static class Events implements MeasurementListener {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void navigationTiming(long timestamp, NavigationTiming navigation) {
+            events.add(timestamp + " navigation " + navigation.getLoadEventEnd());
+        }
+
+        @Override
+        public void measurement(long timestamp, String[] categories, ResourceTiming measurement) {
+            events.add(timestamp + " " + Arrays.toString(categories) + " " + measurement.getName() + " " +
+                       measurement.getResponseEnd());
+        }
+    }
+
+    private static Events expected(Path path) throws IOException {
+        Events events = new Events();
+        Manager manager = new Manager(new IdentityTransformer());
+        manager.addListener(events);
+        for (Map.Entry<Long, MeasurementTree> entry : ResultsReader.read(path).entrySet()) {
+            manager.replay(entry.getKey(), entry.getValue());
+        }
+        return events;
+    }
+
+    private static List<String> sorted(Events events) {
+        List<String> sorted = new ArrayList<>(events.events);
+        sorted.sort(null);
+        return sorted;
+    }
+
+    @Test
+    public void example() throws IOException {
+        Events streamed = new Events();
+        StreamingResultsReader.read(EXAMPLE, streamed);
+        assertEquals(sorted(expected(EXAMPLE)), sorted(streamed));
+
+        Path binary = Files.createTempFile("results", ".gz");
+        Files.delete(binary);
+        try {
+            ResultsConverter.convert(EXAMPLE, binary, ResultsFormat.BINARY);
+            Events replayed = new Events();
+            StreamingResultsReader.read(binary, replayed);
+            assertEquals(sorted(streamed), sorted(replayed));
+        } finally {
+            Files.delete(binary);
+        }
+    }
+
+    @Test
+    public void layouts() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        String resource = mapper.writeValueAsString(new ResourceTiming(
+                "a.js", "resource", "script", 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13));
+        String navigation = mapper.writeValueAsString(new NavigationTiming(
+                1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1500));
+        String json = "{\"1\":{\"navigation\":" + navigation + ",\"extra\":[{\"a\":[1]}],\"categories\":{" +
+                      "\"x\":{\"categories\":{\"y\":{\"measurements\":[" + resource + "," + resource + "]}}," +
+                      "\"measurements\":[],\"navigation\":null}},\"measurements\":[" + resource + "]}," +
+                      "\"2\":null}\n{\"3\":{\"categories\":{},\"measurements\":[" + resource + "]}}";
+        Events events = new Events();
+        StreamingResultsReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), events);
+        assertEquals(Arrays.asList("1 navigation 1500", "1 [x, y] a.js 13.0", "1 [x, y] a.js 13.0",
+                                   "1 [] a.js 13.0", "3 [] a.js 13.0"), events.events);
+
+        for (String invalid : new String[] {"[]", "{\"x\":{}}", "{\"1\":{\"measurements\":[1]}}"}) {
+            try {
+                StreamingResultsReader.read(new ByteArrayInputStream(invalid.getBytes(StandardCharsets.UTF_8)),
+                                            new Events());
+                fail(invalid);
+            } catch (IOException expected) {
+                // malformed results are reported
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.metrics;
+
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void exposeTimersAndCounters() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.timer(MetricsRegistry.CAPTURE).update(TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.timer(MetricsRegistry.CAPTURE).update(TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.timer(MetricsRegistry.WAIT).update(TimeUnit.SECONDS.toNanos(2));
+        metrics.counter(MetricsRegistry.RESOURCES).add(42);
+
+        StringBuilder text = new StringBuilder();
+        metrics.writePrometheus(text);
+        assertTrue(text.toString().contains("hermes_capture_seconds_count 2\n"));
+        assertTrue(text.toString().contains("hermes_capture_seconds_sum 0.040000000\n"));
+        assertTrue(text.toString().contains("hermes_capture_seconds_max 0.030000000\n"));
+        assertTrue(text.toString().contains("hermes_resources_total 42\n"));
+
+        JsonNode summary = new ObjectMapper().valueToTree(metrics);
+        assertEquals(40.0, summary.path("overheadMillis").asDouble(), 1e-9);
+        assertEquals(20.0, summary.path("timers").path(MetricsRegistry.CAPTURE).path("meanMillis").asDouble(), 1e-9);
+        assertEquals(42, summary.path("counters").path(MetricsRegistry.RESOURCES).asLong());
+
+        ObjectName name = metrics.register("test");
+        try {
+            assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "capture.count"));
+        } finally {
+            MetricsRegistry.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MannWhitneyTest {
+
+    @Test
+    public void separatedSamples() {
+        MannWhitney test = MannWhitney.test(new double[]{5, 3, 1, 4, 2}, new double[]{10, 6, 8, 7, 9});
+        assertEquals(0, test.getU(), 0);
+        assertEquals(1, test.getEffectSize(), 0);
+        assertEquals(-2.5067, test.getZ(), 1e-4);
+        assertEquals(0.0122, test.getPValue(), 1e-4);
+        assertEquals(0.0061, test.getPValueSecondGreater(), 1e-4);
+    }
+
+    @Test
+    public void ties() {
+        MannWhitney test = MannWhitney.test(new double[]{1, 2, 2}, new double[]{2, 3});
+        assertEquals(1, test.getU(), 0);
+        assertEquals(1 - 2.0 / 6, test.getEffectSize(), 1e-12);
+        MannWhitney same = MannWhitney.test(new double[]{4, 4}, new double[]{4, 4, 4});
+        assertEquals(0, same.getZ(), 0);
+        assertEquals(1, same.getPValue(), 1e-6);
+    }
+
+    @Test
+    public void comparison() {
+        Comparison comparison = Comparison.of(new double[]{100, 120, 110}, new double[]{150, 130, 140, 160});
+        assertEquals(110, comparison.getBaselineMedian(), 0);
+        assertEquals(145, comparison.getVariantMedian(), 0);
+        assertEquals(35, comparison.getDifference(), 0);
+        assertEquals(35.0 / 110, comparison.getRelativeDifference(), 1e-12);
+        assertEquals(1, comparison.getEffectSize(), 0);
+    }
+}
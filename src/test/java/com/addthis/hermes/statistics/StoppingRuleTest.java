@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import com.addthis.hermes.data.NavigationTiming;
+import com.addthis.hermes.data.NavigationTimingField;
+import com.addthis.hermes.internal.MeasurementTree;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StoppingRuleTest {
+
+    private static MeasurementTree iteration(long loadEventEnd) {
+        MeasurementTree tree = new MeasurementTree();
+        tree.setNavigation(new NavigationTiming(1000, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                                                0, 0, 0, 0, 0, 1000 + loadEventEnd));
+        return tree;
+    }
+
+    @Test
+    public void distributions() {
+        assertEquals(1.959964, Distributions.normalQuantile(0.975), 1e-6);
+        assertEquals(-2.326348, Distributions.normalQuantile(0.01), 1e-6);
+        assertEquals(0.975, Distributions.normalCdf(1.959964), 1e-6);
+        assertEquals(0.5, Distributions.normalCdf(0), 1e-7);
+        assertEquals(2.228, Distributions.studentTQuantile(0.975, 10), 1e-3);
+        assertEquals(2.776, Distributions.studentTQuantile(0.975, 4), 1e-2);
+        assertEquals(12.706, Distributions.studentTQuantile(0.975, 1), 1e-3);
+        assertEquals(-12.706, Distributions.studentTQuantile(0.025, 1), 1e-3);
+        assertEquals(4.303, Distributions.studentTQuantile(0.975, 2), 1e-3);
+        assertEquals(3.182, Distributions.studentTQuantile(0.975, 3), 1e-2);
+    }
+
+    @Test
+    public void stopsOnceIntervalIsNarrow() {
+        StoppingRule rule = new StoppingRule(
+                IterationMetric.navigation(NavigationTimingField.NAVIGATION_START,
+                                           NavigationTimingField.LOAD_EVENT_END), 0.95, 0.05);
+        rule.record(iteration(1000));
+        rule.record(new MeasurementTree());
+        assertEquals(1, rule.getSamples());
+        assertFalse(rule.isSatisfied());
+        long[] values = {990, 1010, 1005, 995, 1000, 1002, 998};
+        for (long value : values) {
+            rule.record(iteration(value));
+        }
+        assertEquals(8, rule.getSamples());
+        assertTrue(rule.isSatisfied());
+        assertEquals(1000, rule.getMean(), 1e-9);
+    }
+
+    @Test
+    public void fewSamples() {
+        IterationMetric metric = IterationMetric.navigation(NavigationTimingField.NAVIGATION_START,
+                                                            NavigationTimingField.LOAD_EVENT_END);
+        // with two samples the interval is 2 * 12.706 * 5 / 1005 wide
+        StoppingRule two = new StoppingRule(metric, 0.95, 0.12, 2);
+        two.record(iteration(1000));
+        two.record(iteration(1010));
+        assertEquals(0.1264, two.getRelativeWidth(), 1e-4);
+        assertFalse(two.isSatisfied());
+
+        // with three samples the interval is 2 * 4.303 * 5 / sqrt(3) / 1005 wide
+        StoppingRule three = new StoppingRule(metric, 0.95, 0.0246, 2);
+        three.record(iteration(1000));
+        three.record(iteration(1010));
+        three.record(iteration(1005));
+        assertEquals(0.02472, three.getRelativeWidth(), 1e-5);
+        assertFalse(three.isSatisfied());
+        three.record(iteration(1005));
+        three.record(iteration(1005));
+        assertTrue(three.isSatisfied());
+    }
+
+}
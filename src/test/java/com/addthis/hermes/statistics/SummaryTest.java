@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.statistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SummaryTest {
+
+    private static double exactQuantile(double[] sorted, double quantile) {
+        return sorted[(int) (quantile * (sorted.length - 1))];
+    }
+
+    @Test
+    public void quantiles() {
+        Random random = new Random(42);
+        Summary first = new Summary();
+        Summary second = new Summary();
+        double[] values = new double[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian()) * 100;
+            if (i % 2 == 0) {
+                first.add(values[i]);
+            } else {
+                second.add(values[i]);
+            }
+        }
+        first.merge(second);
+        Arrays.sort(values);
+        assertEquals(values.length, first.getCount());
+        for (double quantile : new double[]{0.01, 0.5, 0.9, 0.99}) {
+            double exact = exactQuantile(values, quantile);
+            assertEquals(exact, first.getQuantile(quantile), exact * QuantileSketch.DEFAULT_ACCURACY);
+        }
+        assertEquals(values[0], first.getMin(), 0.0);
+        assertEquals(values[values.length - 1], first.getMax(), 0.0);
+        double median = exactQuantile(values, 0.5);
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        Arrays.sort(deviations);
+        double mad = exactQuantile(deviations, 0.5);
+        assertEquals(mad, first.getMedianAbsoluteDeviation(), mad * 0.05);
+    }
+
+    @Test
+    public void copy() {
+        Summary summary = new Summary();
+        summary.add(1);
+        summary.add(3);
+        Summary copy = summary.copy();
+        summary.add(100);
+        assertEquals(2, copy.getCount());
+        assertEquals(2.0, copy.getMean(), 1e-12);
+        assertEquals(1.0, copy.getMin(), 0.0);
+        assertEquals(3.0, copy.getMax(), 0.0);
+        assertEquals(3, summary.getCount());
+    }
+
+    @Test
+    public void moments() {
+        Moments left = new Moments();
+        Moments right = new Moments();
+        double[] values = {2, 4, 4, 4, 5, 5, 7, 9};
+        for (int i = 0; i < values.length; i++) {
+            (i < 3 ? left : right).add(values[i]);
+        }
+        left.merge(right);
+        assertEquals(8, left.getCount());
+        assertEquals(5.0, left.getMean(), 1e-12);
+        assertEquals(32.0 / 7, left.getVariance(), 1e-12);
+    }
+
+    @Test
+    public void negativeValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = -50; i <= 50; i++) {
+            sketch.add(i);
+        }
+        assertEquals(0.0, sketch.getQuantile(0.5), 0.0);
+        assertEquals(-50.0, sketch.getQuantile(0.0), 0.5);
+        assertEquals(50.0, sketch.getQuantile(1.0), 0.5);
+    }
+
+    @Test
+    public void serialization() throws IOException {
+        Summary summary = new Summary();
+        for (int i = -20; i <= 200; i++) {
+            summary.add(i * 1.5);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        summary.writeTo(new DataOutputStream(bytes));
+        Summary copy = Summary.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(summary.getCount(), copy.getCount());
+        assertEquals(summary.getMean(), copy.getMean(), 0.0);
+        assertEquals(summary.getStandardDeviation(), copy.getStandardDeviation(), 0.0);
+        assertEquals(summary.getMin(), copy.getMin(), 0.0);
+        for (double quantile : new double[]{0, 0.1, 0.5, 0.9, 1}) {
+            assertEquals(summary.getQuantile(quantile), copy.getQuantile(quantile), 0.0);
+        }
+        copy.merge(summary);
+        assertEquals(2 * summary.getCount(), copy.getSketch().getCount());
+    }
+
+}
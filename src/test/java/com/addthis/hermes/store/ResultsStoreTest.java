@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.addthis.hermes.store;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.addthis.hermes.data.ResourceTimingField;
+import com.addthis.hermes.internal.MeasurementTree;
+import com.addthis.hermes.io.ResultsReader;
+import com.addthis.hermes.statistics.Summary;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultsStoreTest {
+
+    private static final Path EXAMPLE = Paths.get("examples", "spacejam.txt.gz");
+
+    private static final String NAME = "http://www2.warnerbros.com/spacejam/movie/img/bg_stars.gif";
+
+    private static Summary expected(long from, long to) throws IOException {
+        Summary summary = new Summary();
+        for (Map.Entry<Long, MeasurementTree> entry : ResultsReader.read(EXAMPLE).entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() < to) {
+                MeasurementTree tree = entry.getValue();
+                for (int row = 0; row < tree.getMeasurements().size(); row++) {
+                    if (NAME.equals(tree.getMeasurements().getName(row))) {
+                        summary.add(tree.getMeasurements().get(row, ResourceTimingField.RESPONSE_END));
+                    }
+                }
+            }
+        }
+        return summary;
+    }
+
+    @Test
+    public void importAndQuery() throws IOException {
+        Path directory = Files.createTempDirectory("store");
+        try {
+            assertEquals(100, ResultsStore.open(directory).importResults(EXAMPLE));
+            ResultsStore store = ResultsStore.open(directory);
+            assertEquals(1, store.getSegments().size());
+            Query query = new Query.Builder().setNamePattern(Pattern.compile(Pattern.quote(NAME) + "$"))
+                                             .setField(ResourceTimingField.RESPONSE_END)
+                                             .build();
+            List<SeriesResult> results = store.query(query);
+            assertEquals(1, results.size());
+            Summary summary = expected(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertEquals(summary.getCount(), results.get(0).getSummary().getCount());
+            assertEquals(summary.getMean(), results.get(0).getSummary().getMean(), 1e-9);
+            assertEquals(summary.getP90(), results.get(0).getQuantiles().get("0.9"), 1e-9);
+
+            long from = 1410302032325L;
+            long to = from + 60_000;
+            results = store.query(new Query.Builder().setNamePattern(Pattern.compile(Pattern.quote(NAME) + "$"))
+                                                     .setField(ResourceTimingField.RESPONSE_END)
+                                                     .setTimeRange(from, to)
+                                                     .build());
+            summary = expected(from, to);
+            assertEquals(summary.getCount(), results.get(0).getSummary().getCount());
+            assertEquals(summary.getMax(), results.get(0).getSummary().getMax(), 0);
+
+            assertEquals(0, store.query(new Query.Builder().setCategories("missing").build()).size());
+        } finally {
+            for (Path path : Files.newDirectoryStream(directory)) {
+                Files.delete(path);
+            }
+            Files.delete(directory);
+        }
+    }
+}